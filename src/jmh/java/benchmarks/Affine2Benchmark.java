@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.graphicsPrimitives.Affine2;
+import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Vec2;
+
+/**
+ * Benchmarks for transforming a whole array of points by one affine transformation:
+ * Affine2's batch kernel against the per-point Mat2 multiply and Vec2 add the IFS used to do
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Affine2Benchmark
+{
+	@Param({"1000", "100000"})
+	public int points;
+
+	private Affine2 map = new Affine2(0.195, -0.488, 0.344, 0.443, 0.4431, 0.2452);
+	private Mat2 matrix = map.getLinear();
+	private Vec2 addend = map.getTranslation();
+
+	private double[] src;
+	private double[] dst;
+	private Vec2[] vectors;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(42);
+		src = new double[2*points];
+		dst = new double[2*points];
+		vectors = new Vec2[points];
+		for (int i=0; i<points; i++)
+		{
+			src[2*i] = random.nextDouble();
+			src[2*i+1] = random.nextDouble();
+			vectors[i] = new Vec2(src[2*i], src[2*i+1]);
+		}
+	}
+
+	@Benchmark
+	public double[] applyBatch()
+	{
+		map.apply(src, dst, points);
+		return dst;
+	}
+
+	/**
+	 * The fluent Mat2/Vec2 chain, allocating two vectors per point
+	 */
+	@Benchmark
+	public double[] fluentMultiplyAdd()
+	{
+		for (int i=0; i<points; i++)
+		{
+			Vec2 p = matrix.multiply(vectors[i]).add(addend);
+			dst[2*i] = p.getX();
+			dst[2*i+1] = p.getY();
+		}
+		return dst;
+	}
+}
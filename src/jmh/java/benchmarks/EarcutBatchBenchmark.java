@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.triangulation.Earcut;
+
+/**
+ * Benchmarks for triangulating many Koch snowflake outlines one at a time on one thread versus as a batch on the common ForkJoinPool
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EarcutBatchBenchmark
+{
+	/**
+	 * The number of outlines to triangulate
+	 */
+	@Param({"100", "1000"})
+	public int polygons;
+
+	/**
+	 * The depth of every outline
+	 */
+	@Param({"4", "6"})
+	public int generations;
+
+	private double[] outline;
+
+	private double[] data;
+
+	private int[] polygonOffsets;
+
+	private int[] indices;
+
+	private Earcut.Workspace workspace;
+
+	@Setup
+	public void setup()
+	{
+		outline = EarcutBenchmark.kochOutline(generations);
+		int vertices = outline.length/2;
+
+		data = new double[polygons*outline.length];
+		polygonOffsets = new int[polygons+1];
+		for (int p=0; p<polygons; p++)
+		{
+			System.arraycopy(outline, 0, data, p*outline.length, outline.length);
+			polygonOffsets[p+1] = (p+1)*vertices;
+		}
+		indices = new int[Earcut.maxIndices(vertices, 0)];
+		workspace = new Earcut.Workspace();
+	}
+
+	@Benchmark
+	public int sequential()
+	{
+		int total = 0;
+		for (int p=0; p<polygons; p++)
+			total += Earcut.earcut(outline, null, 2, indices, 0, workspace);
+		return total;
+	}
+
+	@Benchmark
+	public int[] batch()
+	{
+		return Earcut.earcutBatch(data, polygonOffsets, null, 2);
+	}
+}
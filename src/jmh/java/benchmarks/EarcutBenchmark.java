@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.triangulation.Earcut;
+import snowflakes.KochSnowflake;
+
+/**
+ * Benchmarks for triangulating Koch snowflake outlines of increasing depth with Earcut
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EarcutBenchmark
+{
+	@Param({"1", "2", "3", "4", "5", "6", "7", "8", "9"})
+	public int generations;
+
+	private double[] outline;
+
+	private int[] indices;
+
+	private Earcut.Workspace workspace;
+
+	@Setup
+	public void setup()
+	{
+		outline = kochOutline(generations);
+		indices = new int[Earcut.maxIndices(outline.length/2, 0)];
+		workspace = new Earcut.Workspace();
+	}
+
+	@Benchmark
+	public List<Integer> earcutKochOutline()
+	{
+		return Earcut.earcut(outline);
+	}
+
+	@Benchmark
+	public int earcutKochOutlineReusingWorkspace()
+	{
+		return Earcut.earcut(outline, null, 2, indices, 0, workspace);
+	}
+
+	/**
+	 * Returns the flattened outline of a unit Koch snowflake with the given number of generations
+	 */
+	static double[] kochOutline(int generations)
+	{
+		return KochSnowflake.buildOutline(generations);
+	}
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import snowflakes.SnowFlurry;
+
+/**
+ * Benchmarks for a SnowFlurry frame in which a given fraction of the flakes, scattered throughout the flurry, despawn at once.
+ * Per-frame cost should stay proportional to the number of flakes as the despawn fraction grows.
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlurryDespawnBenchmark
+{
+	@Param({"1000", "10000", "20000", "100000"})
+	public int flakes;
+
+	/**
+	 * The fraction of the flakes that fall below minY this frame
+	 */
+	@Param({"0", "0.1", "0.5", "1"})
+	public double despawnFraction;
+
+	private SnowFlurry prototype;
+	private SnowFlurry flurry;
+
+	@Setup(Level.Trial)
+	public void buildPrototype()
+	{
+		prototype = new SnowFlurry(0, 1920, -1e9, 0, 1080, 0);
+		Random random = new Random(42);
+		for (int i=0; i<flakes; i++)
+		{
+			//Flakes far enough below minY that they despawn this frame whichever way their cycloid moves them
+			double y = random.nextDouble() < despawnFraction ? -100 : 540;
+			prototype.spawn(random.nextInt(5), random.nextDouble()*1920, y, random.nextDouble()*15 + 11, random.nextDouble()*2*Math.PI,
+					(2*random.nextDouble()-1)*Math.PI/2.0, 30, random.nextDouble()*20, random.nextDouble());
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void copyPrototype()
+	{
+		flurry = new SnowFlurry(prototype);
+	}
+
+	@Benchmark
+	public SnowFlurry iterateWithDespawns()
+	{
+		flurry.iterate(1/60.0);
+		return flurry;
+	}
+}
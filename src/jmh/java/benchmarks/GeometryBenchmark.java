@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import geometry.IntersectionOps;
+import geometry.RegularPolygon;
+import reusable.graphicsPrimitives.Vec2;
+
+/**
+ * Benchmarks for the point-in-polygon test used for clicking on the sun/moon
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryBenchmark
+{
+	/**
+	 * The number of sides of the polygon being tested against (the moon has 30)
+	 */
+	@Param({"30", "1000"})
+	public int numSides;
+
+	private RegularPolygon polygon;
+	private Vec2 inside = new Vec2(10, 5);
+	private Vec2 outside = new Vec2(500, 500);
+
+	@Setup
+	public void setup()
+	{
+		polygon = new RegularPolygon(new Vec2(0, 0), 0, 70, numSides);
+	}
+
+	@Benchmark
+	public boolean isPointInsidePolyHit()
+	{
+		return IntersectionOps.isPointInsidePoly(inside, polygon.getPackedBoundaryPoints());
+	}
+
+	@Benchmark
+	public boolean isPointInsidePolyMiss()
+	{
+		return IntersectionOps.isPointInsidePoly(outside, polygon.getPackedBoundaryPoints());
+	}
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Vec2;
+
+/**
+ * Benchmarks for the Vec2 and Mat2 operations used in the per-frame hot paths
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphicsPrimitivesBenchmark
+{
+	private Vec2 a = new Vec2(3.5, -1.25);
+	private Vec2 b = new Vec2(0.75, 2.0);
+	private double scalar = 1/60.0;
+	private double radians = Math.PI/3.0;
+	private Mat2 m = new Mat2(0.195, -0.488, 0.344, 0.443);
+	private Mat2 n = new Mat2(0.462, 0.414, -0.252, 0.361);
+
+	@Benchmark
+	public Vec2 vec2Add()
+	{
+		return a.add(b);
+	}
+
+	@Benchmark
+	public Vec2 vec2Subtract()
+	{
+		return a.subtract(b);
+	}
+
+	@Benchmark
+	public Vec2 vec2Multiply()
+	{
+		return a.multiply(scalar);
+	}
+
+	@Benchmark
+	public Vec2 vec2Rotated()
+	{
+		return a.rotated(radians);
+	}
+
+	@Benchmark
+	public double vec2Magnitude()
+	{
+		return a.magnitude();
+	}
+
+	/**
+	 * The chain SnowflakeBehaviors' straight fall behavior performs for every flake every frame
+	 */
+	@Benchmark
+	public Vec2 vec2FallChain()
+	{
+		return a.makeCopy().add(Vec2.Down.makeCopy().multiply(30*scalar));
+	}
+
+	@Benchmark
+	public Vec2 mat2MultiplyVec2()
+	{
+		return m.multiply(a);
+	}
+
+	@Benchmark
+	public Mat2 mat2MultiplyMat2()
+	{
+		return Mat2.multiply(m, n);
+	}
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import IFS.IFS;
+import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Vec2;
+
+/**
+ * Benchmarks for iterating the winter tree's IFS one point at a time and in batches. All results are per point.
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IFSBenchmark
+{
+	private static final int BATCH = 4096;
+
+	private IFS ifs;
+	private double[] out = new double[2*BATCH];
+	private Vec2 point = new Vec2(0, 0);
+
+	@Setup
+	public void setup()
+	{
+		ifs = tree();
+	}
+
+	@Benchmark
+	public Vec2 iterateSingle()
+	{
+		return ifs.iterate(point);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public double[] iterateBatch()
+	{
+		ifs.iterate(BATCH, out, 0);
+		return out;
+	}
+
+	/**
+	 * The winter tree from EventManager.initWinter
+	 */
+	static IFS tree()
+	{
+		List<Mat2> matrices = new ArrayList<Mat2>();
+		matrices.add(new Mat2(0.195,-0.488,0.344,0.443));
+		matrices.add(new Mat2(0.462,0.414,-0.252,0.361));
+		matrices.add(new Mat2(-0.6395,0,0,0.501));
+		matrices.add(new Mat2(-0.035,0.07,-0.469,0.022));
+		matrices.add(new Mat2(-0.058,-0.07,0.453,-0.111));
+
+		List<Vec2> translations = new ArrayList<Vec2>();
+		translations.add(new Vec2(0.4431,0.2452));
+		translations.add(new Vec2(0.2511,0.5692));
+		translations.add(new Vec2(0.8562,0.2512));
+		translations.add(new Vec2(0.4884,0.5069));
+		translations.add(new Vec2(0.5976,0.0969));
+
+		return new IFS(matrices, translations, IFS.determinantProbabilities(matrices));
+	}
+}
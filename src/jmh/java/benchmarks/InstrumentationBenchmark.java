@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.instrumentation.Counter;
+import reusable.instrumentation.Instrumentation;
+import reusable.instrumentation.LatencyHistogram;
+import reusable.instrumentation.SpanTimer;
+
+/**
+ * Benchmarks for the cost of the always-on instrumentation: timing one span, recording one histogram value and bumping one counter
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstrumentationBenchmark
+{
+	private final SpanTimer timer = Instrumentation.timer("benchmark span");
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	private final Counter counter = Instrumentation.counter("benchmark counter");
+
+	private long value = 12345;
+
+	@Benchmark
+	public long span()
+	{
+		long start = timer.start();
+		return timer.stop(start);
+	}
+
+	@Benchmark
+	public void histogramRecord()
+	{
+		//Vary the value so different buckets are hit, as real durations would
+		value = value*6364136223846793005L + 1442695040888963407L;
+		histogram.record(value >>> 40);
+	}
+
+	@Benchmark
+	public void counterAdd()
+	{
+		counter.add(3);
+	}
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import snowflakes.FlakeGeometry;
+import snowflakes.KochSnowflake;
+
+/**
+ * Benchmarks for building a Koch snowflake's geometry with its fill triangulated structurally during generation versus by Earcut afterwards
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KochTriangulationBenchmark
+{
+	@Param({"3", "4", "5", "6", "7", "8"})
+	public int generations;
+
+	@Benchmark
+	public FlakeGeometry structural()
+	{
+		return KochSnowflake.buildGeometry(generations);
+	}
+
+	@Benchmark
+	public FlakeGeometry earcut()
+	{
+		return KochSnowflake.buildGeometryWithEarcut(generations);
+	}
+}
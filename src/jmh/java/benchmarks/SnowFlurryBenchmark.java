@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import snowflakes.SnowFlurry;
+
+/**
+ * Benchmarks for advancing a SnowFlurry holding a fixed population of flakes by one frame
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowFlurryBenchmark
+{
+	@Param({"1000", "10000", "100000"})
+	public int flakes;
+
+	private SnowFlurry flurry;
+
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		flurry = populatedFlurry(flakes);
+	}
+
+	@Benchmark
+	public SnowFlurry iterate()
+	{
+		flurry.iterate(1/60.0);
+		return flurry;
+	}
+
+	/**
+	 * Returns a flurry holding the given number of flakes, none of which can leave it within a benchmark iteration:
+	 * no new flakes spawn and the despawn boundaries are far below the flakes
+	 */
+	static SnowFlurry populatedFlurry(int flakes)
+	{
+		SnowFlurry flurry = new SnowFlurry(0, 1920, -1e9, -1e9, 1080, 0);
+		Random random = new Random(42);
+		for (int i=0; i<flakes; i++)
+		{
+			//Same parameter distributions as SnowFlurry.iterate, but started mid-screen so no flake can rise past maxY
+			flurry.spawn(random.nextInt(5), random.nextDouble()*1920, 540, random.nextDouble()*15 + 11, random.nextDouble()*2*Math.PI,
+					(2*random.nextDouble()-1)*Math.PI/2.0, 30, random.nextDouble()*20, random.nextDouble());
+		}
+		return flurry;
+	}
+}
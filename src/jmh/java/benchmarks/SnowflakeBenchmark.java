@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.graphicsPrimitives.Vec2;
+import snowflakes.FlakeGeometry;
+import snowflakes.KochSnowflake;
+import snowflakes.nflake;
+
+/**
+ * Benchmarks for building the snowflake types SnowFlurry spawns.
+ * The build* benchmarks build the shared geometry from scratch; the new* benchmarks create a flake that reuses the cached geometry.
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnowflakeBenchmark
+{
+	/**
+	 * The n of the n-flake (SnowFlurry spawns 3 through 6)
+	 */
+	@Param({"3", "4", "5", "6"})
+	public int numSides;
+
+	@Benchmark
+	public FlakeGeometry buildNflake()
+	{
+		//SnowFlurry gives hexaflakes one fewer iteration than the others
+		return nflake.buildGeometry(numSides, numSides == 6 ? 2 : 3, false, false);
+	}
+
+	@Benchmark
+	public FlakeGeometry buildKochSnowflake()
+	{
+		return KochSnowflake.buildGeometry(3);
+	}
+
+	@Benchmark
+	public nflake newNflake()
+	{
+		return new nflake(new Vec2(0, 0), 20, 0, numSides, numSides == 6 ? 2 : 3, false, false);
+	}
+
+	@Benchmark
+	public KochSnowflake newKochSnowflake()
+	{
+		return new KochSnowflake(new Vec2(0, 0), 20, 0, 3);
+	}
+}
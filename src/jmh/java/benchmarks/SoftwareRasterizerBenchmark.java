@@ -0,0 +1,109 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import IFS.DrawableIFS;
+import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Vec2;
+import reusable.rendering.SoftwareRasterizer;
+import snowflakes.SnowFlurry;
+
+/**
+ * Benchmarks for drawing the parts of a winter frame into a 1920x1080 framebuffer with the software rasterizer (no OpenGL involved)
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoftwareRasterizerBenchmark
+{
+	@Param({"100", "1000"})
+	public int flakes;
+
+	private SoftwareRasterizer target;
+
+	private SnowFlurry flurry;
+
+	private DrawableIFS tree;
+
+	@Setup
+	public void setup()
+	{
+		target = new SoftwareRasterizer(1920, 1080);
+		flurry = SnowFlurryBenchmark.populatedFlurry(flakes);
+
+		tree = fullTree();
+	}
+
+	@Benchmark
+	public int[] backdrop()
+	{
+		target.fillVerticalGradient(0, 1920, 275, 1080, new Color(188, 245, 255), new Color(2, 125, 254));
+		return target.getPixels();
+	}
+
+	@Benchmark
+	public int[] flurry()
+	{
+		target.clear(0xFF000000);
+		flurry.draw(target);
+		return target.getPixels();
+	}
+
+	@Benchmark
+	public int[] ifsPoints()
+	{
+		target.setColor(Color.WHITE);
+		tree.draw(target);
+		return target.getPixels();
+	}
+
+	/**
+	 * Returns the winter tree from EventManager.initWinter, holding a full buffer of (a million) points
+	 */
+	static DrawableIFS fullTree()
+	{
+		DrawableIFS ifs = tree();
+		double[] points = new double[2*4096];
+		for (int i=0; i<1000000/4096 + 1; i++)
+			ifs.iterate(4096, points, 0);
+		return ifs;
+	}
+
+	private static DrawableIFS tree()
+	{
+		List<Mat2> matrices = new ArrayList<Mat2>();
+		matrices.add(new Mat2(0.195,-0.488,0.344,0.443));
+		matrices.add(new Mat2(0.462,0.414,-0.252,0.361));
+		matrices.add(new Mat2(-0.6395,0,0,0.501));
+		matrices.add(new Mat2(-0.035,0.07,-0.469,0.022));
+		matrices.add(new Mat2(-0.058,-0.07,0.453,-0.111));
+
+		List<Vec2> translations = new ArrayList<Vec2>();
+		translations.add(new Vec2(0.4431,0.2452));
+		translations.add(new Vec2(0.2511,0.5692));
+		translations.add(new Vec2(0.8562,0.2512));
+		translations.add(new Vec2(0.4884,0.5069));
+		translations.add(new Vec2(0.5976,0.0969));
+
+		return new DrawableIFS(new Vec2(670, 275*0.9), 500, 500, matrices, translations, DrawableIFS.determinantProbabilities(matrices));
+	}
+}
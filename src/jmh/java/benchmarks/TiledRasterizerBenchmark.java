@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import IFS.DrawableIFS;
+import reusable.rendering.RenderTarget;
+import reusable.rendering.SoftwareRasterizer;
+import reusable.rendering.TiledRasterizer;
+import snowflakes.SnowFlurry;
+
+/**
+ * Benchmarks for drawing a whole 1920x1080 winter frame (backdrop, a million IFS points and a flurry) with the single-threaded
+ * software rasterizer versus the tiled one on pools of increasing parallelism
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TiledRasterizerBenchmark
+{
+	@Param({"1", "2", "4", "8"})
+	public int parallelism;
+
+	private ForkJoinPool pool;
+
+	private SoftwareRasterizer software;
+
+	private TiledRasterizer tiled;
+
+	private SnowFlurry flurry;
+
+	private DrawableIFS tree;
+
+	@Setup
+	public void setup()
+	{
+		pool = new ForkJoinPool(parallelism);
+		software = new SoftwareRasterizer(1920, 1080);
+		tiled = new TiledRasterizer(1920, 1080, pool);
+		flurry = SnowFlurryBenchmark.populatedFlurry(1000);
+		tree = SoftwareRasterizerBenchmark.fullTree();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public int[] software()
+	{
+		drawFrame(software);
+		return software.getPixels();
+	}
+
+	@Benchmark
+	public int[] tiled()
+	{
+		drawFrame(tiled);
+		return tiled.getPixels();
+	}
+
+	private void drawFrame(RenderTarget target)
+	{
+		target.fillVerticalGradient(0, 1920, 0, 1080, Color.BLACK, Color.BLACK);
+		target.setColor(Color.WHITE);
+		tree.draw(target);
+		flurry.draw(target);
+	}
+}
@@ -0,0 +1,125 @@
+package benchmarks;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import geometry.IntersectionOps;
+import reusable.graphicsPrimitives.DirectVec2Buffer;
+import reusable.graphicsPrimitives.DoubleVec2Buffer;
+import reusable.graphicsPrimitives.FloatVec2Buffer;
+import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Vec2;
+import reusable.graphicsPrimitives.Vec2Buffer;
+
+/**
+ * Benchmarks for the packed Vec2Buffer storages against the ArrayList&lt;Vec2&gt; they replace:
+ * the point-in-polygon test, a bulk transform and a bounding box over the same polygon
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Vec2BufferBenchmark
+{
+	/**
+	 * The number of vertices in the polygon (the moon has 30)
+	 */
+	@Param({"30", "10000"})
+	public int numPoints;
+
+	private ArrayList<Vec2> list;
+	private DoubleVec2Buffer doubles;
+	private FloatVec2Buffer floats;
+	private DirectVec2Buffer direct;
+
+	private Vec2 inside = new Vec2(10, 5);
+	private Mat2 rotation = new Mat2(Math.cos(0.01), -Math.sin(0.01), Math.sin(0.01), Math.cos(0.01));
+	private Rectangle2D bounds = new Rectangle2D.Double();
+
+	@Setup
+	public void setup()
+	{
+		list = new ArrayList<Vec2>(numPoints);
+		doubles = new DoubleVec2Buffer(numPoints);
+		floats = new FloatVec2Buffer(numPoints);
+		direct = new DirectVec2Buffer(numPoints);
+		for (int i=0; i<numPoints; i++)
+		{
+			double theta = i*2*Math.PI/numPoints;
+			double x = 70*Math.cos(theta), y = 70*Math.sin(theta);
+			list.add(new Vec2(x, y));
+			doubles.add(x, y);
+			floats.add(x, y);
+			direct.add(x, y);
+		}
+	}
+
+	@Benchmark
+	public boolean pointInsideList()
+	{
+		return IntersectionOps.isPointInsidePoly(inside, list);
+	}
+
+	@Benchmark
+	public boolean pointInsideDoubles()
+	{
+		return IntersectionOps.isPointInsidePoly(inside, doubles);
+	}
+
+	@Benchmark
+	public boolean pointInsideFloats()
+	{
+		return IntersectionOps.isPointInsidePoly(inside, floats);
+	}
+
+	/**
+	 * Rotating the list in place the way the fluent Vec2 API allows, as a baseline for transform*
+	 */
+	@Benchmark
+	public ArrayList<Vec2> transformList()
+	{
+		for (Vec2 p : list)
+			rotation.multiply(p, p);
+		return list;
+	}
+
+	@Benchmark
+	public Vec2Buffer transformDoubles()
+	{
+		return doubles.transform(rotation, 0, 0);
+	}
+
+	@Benchmark
+	public Vec2Buffer transformFloats()
+	{
+		return floats.transform(rotation, 0, 0);
+	}
+
+	@Benchmark
+	public Vec2Buffer transformDirect()
+	{
+		return direct.transform(rotation, 0, 0);
+	}
+
+	@Benchmark
+	public Rectangle2D boundsDoubles()
+	{
+		return doubles.getBounds(bounds);
+	}
+}
@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import IFS.DrawableIFS;
+import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Vec2;
+import snowflakes.SnowFlurry;
+import snowflakes.Snowflake;
+
+/**
+ * Benchmarks for the out-parameter Vec2/Mat2 operations and the hot paths migrated to them.
+ * Run with the GC profiler (gradle jmh -PjmhArgs="-prof gc" -PjmhInclude=VectorAllocation) and check that gc.alloc.rate.norm
+ * is 0 bytes/op for everything except the fluent* baselines.
+ * The snowflake benchmarks cover the per-object Snowflake path (SnowFlurry.generateSnowflake), not the structure-of-arrays flurry itself.
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorAllocationBenchmark
+{
+	private Vec2 a = new Vec2(3.5, -1.25);
+	private Vec2 b = new Vec2(0.75, 2.0);
+	private Vec2 out = new Vec2(0, 0);
+	private double scalar = 1/60.0;
+	private double radians = Math.PI/3.0;
+	private Mat2 m = new Mat2(0.195, -0.488, 0.344, 0.443);
+	private Mat2 n = new Mat2(0.462, 0.414, -0.252, 0.361);
+	private Mat2 product = new Mat2(0, 0, 0, 0);
+
+	private Snowflake flake;
+
+	private DrawableIFS tree;
+
+	@Setup
+	public void setup()
+	{
+		//A Koch snowflake with the cycloid, rotation and fall behaviors SnowFlurry gives every flake
+		flake = new SnowFlurry(0, 1920, 275, 0, 1080, 0).generateSnowflake(4, 20, 0, Math.PI/4, 30, 10, 0.25, false, false);
+		tree = SoftwareRasterizerBenchmark.fullTree();
+	}
+
+	/**
+	 * The chain SnowflakeBehaviors' straight fall behavior used to perform for every flake every frame
+	 */
+	@Benchmark
+	public Vec2 fluentFallChain()
+	{
+		return a.makeCopy().add(Vec2.Down.makeCopy().multiply(30*scalar));
+	}
+
+	@Benchmark
+	public Vec2 scaleAdd()
+	{
+		return Vec2.scaleAdd(a, Vec2.Down, 30*scalar, out);
+	}
+
+	@Benchmark
+	public Vec2 add()
+	{
+		return Vec2.add(a, b, out);
+	}
+
+	@Benchmark
+	public Vec2 rotate()
+	{
+		return Vec2.rotate(a, radians, out);
+	}
+
+	@Benchmark
+	public Vec2 mat2Transform()
+	{
+		return m.transform(a.getX(), a.getY(), out);
+	}
+
+	@Benchmark
+	public Mat2 mat2MultiplyMat2()
+	{
+		return Mat2.multiply(m, n, product);
+	}
+
+	/**
+	 * One update of a flake with every behavior SnowFlurry attaches
+	 */
+	@Benchmark
+	public Snowflake snowflakeUpdate()
+	{
+		flake.update(scalar);
+		return flake;
+	}
+
+	@Benchmark
+	public Vec2 ifsIterate()
+	{
+		return tree.iterate(out);
+	}
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reusable.rendering.VertexBatch;
+import snowflakes.SnowFlurry;
+
+/**
+ * Benchmarks for packing a SnowFlurry's flakes into vertex batches, the CPU side of drawing a frame (no OpenGL involved)
+ * @author DEMcKnight
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VertexBatchBenchmark
+{
+	@Param({"100", "1000", "10000"})
+	public int flakes;
+
+	private SnowFlurry flurry;
+
+	private VertexBatch triangles;
+
+	private VertexBatch lines;
+
+	@Setup
+	public void setup()
+	{
+		flurry = SnowFlurryBenchmark.populatedFlurry(flakes);
+		triangles = new VertexBatch();
+		lines = new VertexBatch();
+
+		//Grow the batches up front so the benchmark measures packing rather than the first frame's allocations
+		flurry.fillBatches(triangles, lines);
+	}
+
+	@Benchmark
+	public int fillBatches()
+	{
+		flurry.fillBatches(triangles, lines);
+		return triangles.getVertexCount() + lines.getVertexCount();
+	}
+}
@@ -2,20 +2,42 @@
 import java.awt.Dimension;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import javax.media.opengl.awt.GLJPanel;
 import javax.swing.JFrame;
 
 import com.jogamp.opengl.util.FPSAnimator;
 
+import reusable.instrumentation.Instrumentation;
+import reusable.rendering.FrameSequenceWriter;
+
 /**
  * Class for spawning an OpenGL Canvas and hosting it in a Java Swing window.
+ * Run with --batch to render frames headlessly to disk instead (see OfflineRenderer).
+ * Frame timings and counters are published over JMX (see Instrumentation); run with -Dwinter.statsSeconds=N to also print them every N seconds.
  * @author DEMcKnight
  */
 public class Application
 {	
+	private static final String USAGE =
+			"Usage: Application [--batch <frames> <output directory> [--format png|rgba] [--size <width>x<height>] [--seed <seed>]]";
+
 	public static void main(String[] args)
 	{
+		Instrumentation.registerMBean(System.err);
+		long statsSeconds = Long.getLong("winter.statsSeconds", 0);
+		if (statsSeconds > 0)
+			Instrumentation.startPeriodicDump(statsSeconds, TimeUnit.SECONDS, System.err);
+
+		if (args.length > 0)
+		{
+			runBatch(args);
+			return;
+		}
+
 		//Create JFrame
 		JFrame			frame = new JFrame("Template");
 		//frame.setBounds(50, 50, 960, 540);
@@ -50,6 +72,75 @@ public class Application
 
 		animator.start();
 	}
-}
+	
+	/**
+	 * Renders frames headlessly as described by the command line arguments, exiting with status 1 if they're invalid or rendering fails
+	 * @param args The command line arguments, starting with --batch
+	 */
+	private static void runBatch(String[] args)
+	{
+		int numFrames;
+		File directory;
+		FrameSequenceWriter.Format format = FrameSequenceWriter.Format.PNG;
+		int width = 1920, height = 1080;
+		long seed = 0;
+		try
+		{
+			if (args.length < 3 || !args[0].equals("--batch"))
+				throw new IllegalArgumentException("Expected --batch <frames> <output directory>");
+			numFrames = Integer.parseInt(args[1]);
+			if (numFrames < 0)
+				throw new IllegalArgumentException("The number of frames can't be negative");
+			directory = new File(args[2]);
 
+			for (int i=3; i<args.length; i+=2)
+			{
+				if (i+1 >= args.length)
+					throw new IllegalArgumentException(args[i] + " needs a value");
+				String value = args[i+1];
+				switch (args[i])
+				{
+				case "--format":
+					format = FrameSequenceWriter.Format.valueOf(value.toUpperCase());
+					break;
+				case "--size":
+					String[] size = value.split("x");
+					if (size.length != 2)
+						throw new IllegalArgumentException("Expected a size like 1920x1080, got " + value);
+					width = Integer.parseInt(size[0]);
+					height = Integer.parseInt(size[1]);
+					if (width <= 0 || height <= 0)
+						throw new IllegalArgumentException("The size must be positive, got " + value);
+					break;
+				case "--seed":
+					seed = Long.parseLong(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			//(NumberFormatException is an IllegalArgumentException too)
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(1);
+			return;
+		}
 
+		//No window is ever opened, so don't let AWT go looking for a display
+		System.setProperty("java.awt.headless", "true");
+		long start = System.nanoTime();
+		try
+		{
+			OfflineRenderer.render(numFrames, directory, format, width, height, seed);
+		}
+		catch (IOException | InterruptedException e)
+		{
+			System.err.println("Rendering failed: " + e);
+			System.exit(1);
+		}
+		System.out.printf("Rendered %d frames to %s in %.1f s%n", numFrames, directory, (System.nanoTime() - start)/1e9);
+	}
+}
@@ -1,10 +1,10 @@
 
 import java.awt.Color;
-import java.util.ArrayList;
 
 import javax.media.opengl.GL2;
 
-import reusable.Helpers;
+import reusable.rendering.GLRenderTarget;
+import reusable.rendering.RenderTarget;
 
 /**
  * Class with methods for drawing things in our Tree project
@@ -16,34 +16,27 @@ public class Drawers
 	//Method for drawing the sky backdrop (the gradient)
 	public static void drawSkyRect(GL2 gl, Color[] gradientColors, double leftX, double rightX, double bottomY, double topY)
 	{
-		gl.glBegin(GL2.GL_QUADS);
-		Helpers.setColor(gl, gradientColors[2]);
-		gl.glVertex2d(leftX, bottomY);
-		gl.glVertex2d(rightX, bottomY);
-		Helpers.setColor(gl, gradientColors[1]);
-		gl.glVertex2d(rightX,bottomY+(topY-bottomY)/2.8);
-		gl.glVertex2d(leftX,bottomY+(topY-bottomY)/2.8);
-
-		Helpers.setColor(gl, gradientColors[1]);
-		gl.glVertex2d(leftX,bottomY+(topY-bottomY)/2.8);
-		gl.glVertex2d(rightX,bottomY+(topY-bottomY)/2.8);
-		Helpers.setColor(gl, gradientColors[0]);
-		gl.glVertex2d(rightX, topY);
-		gl.glVertex2d(leftX, topY);
-		gl.glEnd();
+		drawSkyRect(new GLRenderTarget(gl), gradientColors, leftX, rightX, bottomY, topY);
+	}
+
+	//Method for drawing the sky backdrop (the gradient) onto any render target
+	public static void drawSkyRect(RenderTarget target, Color[] gradientColors, double leftX, double rightX, double bottomY, double topY)
+	{
+		double middleY = bottomY+(topY-bottomY)/2.8;
+		target.fillVerticalGradient(leftX, rightX, bottomY, middleY, gradientColors[2], gradientColors[1]);
+		target.fillVerticalGradient(leftX, rightX, middleY, topY, gradientColors[1], gradientColors[0]);
 	}
 
 	//Method for drawing the ground backdrop (the gradient)
 	public static void drawGroundRect(GL2 gl, Color topColor, Color botColor, double leftX, double rightX, double bottomY, double topY)
 	{
-		gl.glBegin(GL2.GL_QUADS);
-		Helpers.setColor(gl, botColor);
-		gl.glVertex2d(leftX, bottomY);
-		gl.glVertex2d(rightX, bottomY);
-		Helpers.setColor(gl, topColor);
-		gl.glVertex2d(rightX,bottomY+(topY-bottomY));
-		gl.glVertex2d(leftX,bottomY+(topY-bottomY));
-		gl.glEnd();
+		drawGroundRect(new GLRenderTarget(gl), topColor, botColor, leftX, rightX, bottomY, topY);
+	}
+
+	//Method for drawing the ground backdrop (the gradient) onto any render target
+	public static void drawGroundRect(RenderTarget target, Color topColor, Color botColor, double leftX, double rightX, double bottomY, double topY)
+	{
+		target.fillVerticalGradient(leftX, rightX, bottomY, topY, botColor, topColor);
 	}
 
 }
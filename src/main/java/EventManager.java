@@ -17,11 +17,22 @@ import javax.media.opengl.fixedfunc.GLMatrixFunc;
 import javax.media.opengl.glu.GLU;
 
 import IFS.DrawableIFS;
+import IFS.IFS;
+import IFS.IFSGenerator;
 import geometry.IntersectionOps;
 import geometry.RegularPolygon;
 import reusable.Helpers;
-import reusable.graphicsPrimitives.Mat2;
+import reusable.graphicsPrimitives.Affine2;
 import reusable.graphicsPrimitives.Vec2;
+import reusable.instrumentation.Counter;
+import reusable.instrumentation.Instrumentation;
+import reusable.instrumentation.SpanTimer;
+import reusable.rendering.BatchRenderer;
+import reusable.rendering.GLRenderTarget;
+import reusable.rendering.RenderTarget;
+import reusable.rendering.SoftwareRasterizer;
+import reusable.rendering.VertexBatch;
+import snowflakes.FlurrySnapshot;
 import snowflakes.SnowFlurry;
 
 
@@ -128,11 +139,118 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 	 */
 	public static DrawableIFS groundIFS;
 
+	/**
+	 * Produces points for treeIFS on a background thread
+	 */
+	private static IFSGenerator treeGenerator;
+
+	/**
+	 * Produces points for groundIFS on a background thread
+	 */
+	private static IFSGenerator groundGenerator;
+
+	/**
+	 * How many new points each IFS reveals per simulation step
+	 */
+	private final static int IFS_POINTS_PER_STEP = 10;
+
+	/**
+	 * How many generated points may be waiting to be drawn per IFS
+	 */
+	private final static int IFS_QUEUE_CAPACITY = 1 << 16;
+
+	/**
+	 * Scratch space for the points stepWinter produces when there are no background generators
+	 */
+	private final static double[] ifsPoints = new double[2*IFS_POINTS_PER_STEP];
+
 	/**
 	 * A SnowFlurry object for dropping lots of Snowflake objects into and in the winter scene
 	 */
 	public static SnowFlurry flurry;
 
+	/**
+	 * The simulated time each step of the winter scene advances it by, in seconds
+	 */
+	private final static double SIMULATION_TIMESTEP = 1/60.0;
+
+	/**
+	 * The most simulation steps the winter scene takes at once to catch up after a stall, before it drops the rest of the backlog
+	 */
+	private final static int MAX_STEPS_PER_WAKE = 8;
+
+	/**
+	 * Steps the flurry on its own thread in the windowed application, or null when the scene is being stepped by stepWinter
+	 */
+	private static SimulationLoop simulation;
+
+	/**
+	 * The simulation step the IFSs have revealed points up to
+	 */
+	private static long ifsStep = 0;
+
+	/**
+	 * The flurry snapshot's batches, refilled by the render thread every frame
+	 */
+	private final static VertexBatch snapshotTriangles = new VertexBatch(), snapshotLines = new VertexBatch();
+
+	/**
+	 * Draws the flurry's batched vertices. Holds a vertex buffer in the GL context, so it's created in init and released in dispose.
+	 */
+	private static BatchRenderer batchRenderer;
+
+
+	//*********INSTRUMENTATION***********//
+	/**
+	 * Times whole display() calls, from the first GL call to the last
+	 */
+	private static final SpanTimer frameTimer = Instrumentation.timer("frame");
+
+	/**
+	 * Times the gaps between the starts of consecutive display() calls (i.e., the delivered frame period)
+	 */
+	private static final SpanTimer frameIntervalTimer = Instrumentation.timer("frame interval");
+
+	/**
+	 * Times update()
+	 */
+	private static final SpanTimer updateTimer = Instrumentation.timer("update");
+
+	/**
+	 * Times drawing the scene
+	 */
+	private static final SpanTimer renderTimer = Instrumentation.timer("render");
+
+	/**
+	 * Times revealing and producing IFS points
+	 */
+	private static final SpanTimer ifsTimer = Instrumentation.timer("ifs points");
+
+	/**
+	 * Times each step of the flurry (shared with SimulationLoop, which steps it in the windowed application)
+	 */
+	private static final SpanTimer flurryStepTimer = Instrumentation.timer("flurry step");
+
+	/**
+	 * Times filling and drawing the flurry's batches
+	 */
+	private static final SpanTimer flurryDrawTimer = Instrumentation.timer("flurry draw");
+
+	/**
+	 * The number of flakes drawn in the latest frame
+	 */
+	private static final Counter flakesAlive = Instrumentation.counter("flakes alive");
+
+	/**
+	 * The number of points both IFSs held in the latest frame
+	 */
+	private static final Counter ifsPointsStored = Instrumentation.counter("ifs points stored");
+
+	/**
+	 * When the previous display() call started (System.nanoTime), or 0 before the first one
+	 */
+	private static long lastFrameStart = 0;
+
 
 	/******************************************/
 	/*GLEventListener methods*/
@@ -142,6 +260,11 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 	@Override
 	public void display(GLAutoDrawable drawable)
 	{
+		long frameStart = frameTimer.start();
+		if (lastFrameStart != 0)
+			frameIntervalTimer.record(lastFrameStart, frameStart - lastFrameStart);
+		lastFrameStart = frameStart;
+
 		GL2 gl = drawable.getGL().getGL2();
 
 		//Set the clear color to black
@@ -149,24 +272,36 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 		gl.glClear(GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT);
 
 		//Update the scene every frame
+		long start = updateTimer.start();
 		update();
+		updateTimer.stop(start);
 		updateProjectionMatrix(drawable);
 
 		//Decide whether to draw summer stuff or winter stuff
+		start = renderTimer.start();
 		if (!drawWinter)
 			renderSummer(drawable);
 		else
 			renderWinter(drawable);
+		renderTimer.stop(start);
+
+		frameTimer.stop(frameStart);
 	}
 
   //Called by the drawable when the display mode or the display device associated with the GLAutoDrawable has changed.
 	@Override
-	public void dispose(GLAutoDrawable arg0){}
+	public void dispose(GLAutoDrawable arg0)
+	{
+		stopWinter();
+		if (batchRenderer != null)
+			batchRenderer.dispose(arg0.getGL());
+	}
 
 	//Called by the drawable immediately after the OpenGL context is initialized.
 	@Override
 	public void init(GLAutoDrawable canvas)
 	{
+		batchRenderer = new BatchRenderer();
 		initSummer();
 		initWinter();
 	}
@@ -200,7 +335,7 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 
 		//Draw the sun
 		Helpers.setColor(gl, Color.YELLOW);
-		Helpers.drawPolygon(gl, theSunOrMoon.boundaryPoints);
+		Helpers.drawPolygon(gl, theSunOrMoon.getPackedBoundaryPoints());
 	}
 
 
@@ -210,27 +345,58 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 	 */
 	public static void renderWinter(GLAutoDrawable drawable)
 	{
-		GL2 gl = drawable.getGL().getGL2();
+		renderWinter(new GLRenderTarget(drawable.getGL().getGL2(), batchRenderer));
+	}
 
+	/**
+	 * Renders the winter scene to the given target (e.g., a SoftwareRasterizer, to produce a frame without OpenGL).
+	 * The target is expected to map the virtual resolution onto the screen the way updateProjectionMatrix does.
+	 * @param target The target to draw onto
+	 */
+	public static void renderWinter(RenderTarget target)
+	{
 		//Cover the screen with blackness
-		Drawers.drawGroundRect(gl, Color.BLACK, Color.BLACK, 0, 1920, 0, 1080);
+		Drawers.drawGroundRect(target, Color.BLACK, Color.BLACK, 0, 1920, 0, 1080);
 
 		//Draw the moon
-		Helpers.setColor(gl, Color.WHITE);
-		Helpers.drawPolygon(gl, theSunOrMoon.boundaryPoints);
+		target.setColor(Color.WHITE);
+		target.fillPolygon(theSunOrMoon.getPackedBoundaryPoints());
 
 		//We'll draw most of the flakes white
-		Helpers.setColor(gl, Color.WHITE);
+		target.setColor(Color.WHITE);
 
-		gl.glMatrixMode(GLMatrixFunc.GL_MODELVIEW);
-		gl.glPushMatrix();
-		gl.glTranslated(670, 0, 0);
-		treeIFS.draw(gl);
-		gl.glPopMatrix();
+		target.pushTransform();
+		target.translate(670, 0);
+		treeIFS.draw(target);
+		target.popTransform();
 
-		groundIFS.draw(gl);
+		groundIFS.draw(target);
+		ifsPointsStored.set(treeIFS.size() + groundIFS.size());
 
-		flurry.draw(gl);
+		long start = flurryDrawTimer.start();
+		drawFlurry(target);
+		flurryDrawTimer.stop(start);
+	}
+
+	/**
+	 * Draws the flurry: the simulation thread's newest snapshot, blended up to the present, if there is a simulation thread,
+	 * and otherwise the flurry itself
+	 * @param target The target to draw onto
+	 */
+	private static void drawFlurry(RenderTarget target)
+	{
+		if (simulation == null)
+		{
+			flakesAlive.set(flurry.size());
+			flurry.draw(target);
+			return;
+		}
+
+		FlurrySnapshot snapshot = simulation.acquire();
+		flakesAlive.set(snapshot.size());
+		snapshot.fillBatches(snapshotTriangles, snapshotLines, simulation.getAlpha(snapshot, System.nanoTime()));
+		target.drawTriangles(snapshotTriangles);
+		target.drawLines(snapshotLines);
 	}
 
 
@@ -246,49 +412,93 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 	}
 
 	/**
-	 * Initializes/prepares variables being used for the winter scene
+	 * Initializes/prepares variables being used for the winter scene, generating the IFSs' points and stepping the flurry on background threads
 	 */
 	public static void initWinter()
 	{
-		//Prepare IFS values for the tree (modified from parameters' source Paul Bourke at http://paulbourke.net/fractals/)
-		ArrayList<Mat2> treeLinearTransforms = new ArrayList<Mat2>();
-		treeLinearTransforms.add(new Mat2(0.195,-0.488,0.344,0.443));
-		treeLinearTransforms.add(new Mat2(0.462,0.414,-0.252,0.361));
-		treeLinearTransforms.add(new Mat2(-0.6395,0,0,0.501));
-		treeLinearTransforms.add(new Mat2(-0.035,0.07,-0.469,0.022));
-		treeLinearTransforms.add(new Mat2(-0.058,-0.07,0.453,-0.111));
+		buildWinter();
+
+		//Generate the IFSs' points in the background so the render thread only has to draw them
+		treeGenerator = new IFSGenerator(treeIFS, IFS_QUEUE_CAPACITY);
+		groundGenerator = new IFSGenerator(groundIFS, IFS_QUEUE_CAPACITY);
+		treeGenerator.start();
+		groundGenerator.start();
+
+		//Move the flurry at a steady rate no matter how fast frames are drawn
+		simulation = new SimulationLoop(flurry, SIMULATION_TIMESTEP, MAX_STEPS_PER_WAKE);
+		ifsStep = 0;
+		simulation.start();
+	}
 
-		ArrayList<Vec2> treeTranslations = new ArrayList<Vec2>();
-		treeTranslations.add(new Vec2(0.4431,0.2452));
-		treeTranslations.add(new Vec2(0.2511,0.5692));
-		treeTranslations.add(new Vec2(0.8562,0.2512));
-		treeTranslations.add(new Vec2(0.4884,0.5069));
-		treeTranslations.add(new Vec2(0.5976,0.0969));
+	/**
+	 * Initializes/prepares variables being used for the winter scene so that it plays out the same way every time for the given seed.
+	 * The IFSs' points are generated on the calling thread as the scene is stepped (see stepWinter), rather than in the background.
+	 * @param seed The seed for every random choice the scene makes
+	 */
+	public static void initWinter(long seed)
+	{
+		buildWinter();
+
+		//Give everything its own stream derived from the one seed
+		Random seeds = new Random(seed);
+		treeIFS.setSeed(seeds.nextLong());
+		groundIFS.setSeed(seeds.nextLong());
+		flurry.setSeed(seeds.nextLong());
+		treeIFS.burnIn();
+		groundIFS.burnIn();
+	}
 
-		//Prepare the tree IFS
-		treeIFS = new DrawableIFS(new Vec2(0, HORIZON*0.9), 500, 500, treeLinearTransforms, treeTranslations);
+	/**
+	 * Builds the winter scene's IFSs and flurry, stopping any threads left over from a previous scene
+	 */
+	private static void buildWinter()
+	{
+		stopWinter();
 
+		//Prepare IFS values for the tree (modified from parameters' source Paul Bourke at http://paulbourke.net/fractals/)
+		//Each map is (a11, a12, a21, a22, b1, b2): the linear part followed by the translation
+		ArrayList<Affine2> treeMaps = new ArrayList<Affine2>();
+		treeMaps.add(new Affine2(0.195,-0.488,0.344,0.443, 0.4431,0.2452));
+		treeMaps.add(new Affine2(0.462,0.414,-0.252,0.361, 0.2511,0.5692));
+		treeMaps.add(new Affine2(-0.6395,0,0,0.501, 0.8562,0.2512));
+		treeMaps.add(new Affine2(-0.035,0.07,-0.469,0.022, 0.4884,0.5069));
+		treeMaps.add(new Affine2(-0.058,-0.07,0.453,-0.111, 0.5976,0.0969));
 
-		//Prepare IFS values for the ground
-		ArrayList<Mat2> groundLinearTransforms = new ArrayList<Mat2>();
-		groundLinearTransforms.add(new Mat2(0.5,0,0,0.5));
-		groundLinearTransforms.add(new Mat2(0.5,0,0,0.5));
-		groundLinearTransforms.add(new Mat2(0.5,0,0,0.5));
-		groundLinearTransforms.add(new Mat2(0.5,0,0,0.5));
+		//Prepare the tree IFS, scaled up by 500 and placed just below the horizon,
+		//weighting each transformation by its area so the thin stem maps don't hog iterations
+		treeIFS = new DrawableIFS(new Affine2(500,0,0,500, 0,HORIZON*0.9), treeMaps, IFS.areaProbabilities(treeMaps));
 
-		ArrayList<Vec2> groundTranslations = new ArrayList<Vec2>();
-		groundTranslations.add(new Vec2(0,0));
-		groundTranslations.add(new Vec2(0.5,0));
-		groundTranslations.add(new Vec2(0,0.5));
-		groundTranslations.add(new Vec2(0.5,0.5));
 
-		//Prepare the ground IFS
-		groundIFS = new DrawableIFS(new Vec2(0, 0), virtualWidth, HORIZON, groundLinearTransforms, groundTranslations);
+		//Prepare IFS values for the ground
+		ArrayList<Affine2> groundMaps = new ArrayList<Affine2>();
+		groundMaps.add(new Affine2(0.5,0,0,0.5, 0,0));
+		groundMaps.add(new Affine2(0.5,0,0,0.5, 0.5,0));
+		groundMaps.add(new Affine2(0.5,0,0,0.5, 0,0.5));
+		groundMaps.add(new Affine2(0.5,0,0,0.5, 0.5,0.5));
+
+		//Prepare the ground IFS, stretched over the screen below the horizon
+		groundIFS = new DrawableIFS(new Affine2(virtualWidth,0,0,HORIZON, 0,0), groundMaps, null);
 
 		//Prepare the flurry of Snowflakes
 		flurry = new SnowFlurry(0, virtualWidth, HORIZON, 0, virtualHeight, 1/3.0);
 	}
 
+	/**
+	 * Stops the winter scene's background threads (the IFS generators and the simulation loop), if they're running
+	 */
+	private static void stopWinter()
+	{
+		if (treeGenerator != null)
+			treeGenerator.stop();
+		if (groundGenerator != null)
+			groundGenerator.stop();
+		if (simulation != null)
+			simulation.stop();
+		treeGenerator = null;
+		groundGenerator = null;
+		simulation = null;
+	}
+
 
 	/******************************************/
 	/*Update methods*/
@@ -303,7 +513,10 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 		if (seasonChanged)
 		{
 			if (!drawWinter)
+			{
+				stopWinter();
 				initSummer();
+			}
 			else
 				initWinter();
 			seasonChanged =false;
@@ -314,20 +527,51 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 		{
 		}
 
-		//If it's winter, update winter stuff
+		//If it's winter, update winter stuff (the simulation thread moves the snowflakes; we just catch the IFSs up with it)
 		if(drawWinter)
+			revealIFSPoints();
+	}
+
+	/**
+	 * Reveals IFS_POINTS_PER_STEP points of each IFS for every simulation step taken since the last call,
+	 * so the IFSs fill in at the same simulated rate however many frames are drawn per step
+	 */
+	private static void revealIFSPoints()
+	{
+		if (simulation == null)
+			return;
+
+		long step = simulation.acquire().getStep();
+		long owed = Math.min(step - ifsStep, IFS_QUEUE_CAPACITY/IFS_POINTS_PER_STEP);
+		ifsStep = step;
+		if (owed > 0)
 		{
-			//Advance the IFSs by 10 iterations
-			for (int i=0; i<10; i++)
-			{
-				treeIFS.iterate();
-				groundIFS.iterate();
-			}
-			//Advance the snowflakes by a sixtieth of a second
-			flurry.iterate(1/60.0);
+			long start = ifsTimer.start();
+			treeGenerator.drainTo(treeIFS, (int)owed*IFS_POINTS_PER_STEP);
+			groundGenerator.drainTo(groundIFS, (int)owed*IFS_POINTS_PER_STEP);
+			ifsTimer.stop(start);
 		}
 	}
 
+	/**
+	 * Advances a winter scene prepared by initWinter(long) by one step on the calling thread: produces the next few IFS points and moves the snowflakes
+	 * @param timestep How much time to progress the snowflakes
+	 */
+	public static void stepWinter(double timestep)
+	{
+		if (simulation != null)
+			throw new IllegalStateException("The winter scene is being stepped by its simulation thread");
+
+		//Produce the points here rather than on generator threads, so they come out in a repeatable order
+		long start = ifsTimer.start();
+		treeIFS.iterate(IFS_POINTS_PER_STEP, ifsPoints, 0);
+		groundIFS.iterate(IFS_POINTS_PER_STEP, ifsPoints, 0);
+		start = ifsTimer.stop(start);
+
+		flurry.iterate(timestep);
+		flurryStepTimer.stop(start);
+	}
+
 	/**
 	 * Updates the projection matrix, keeping contents on screen and providing a letterboxing/pillarboxing effect
 	 * @param drawable
@@ -362,6 +606,18 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 	}
 
 
+	/**
+	 * Maps the virtual resolution onto the given framebuffer the way updateProjectionMatrix maps it onto the window,
+	 * keeping contents on screen and letterboxing/pillarboxing them as needed
+	 * @param target The framebuffer to set the projection of
+	 */
+	public static void updateProjection(SoftwareRasterizer target)
+	{
+		double scale = Math.max(virtualWidth/(double)target.getWidth(), virtualHeight/(double)target.getHeight());
+		target.setProjection(0, target.getWidth()*scale, 0, target.getHeight()*scale);
+	}
+
+
 	/******************************************/
 	/*Private methods*/
 	/******************************************/
@@ -405,7 +661,7 @@ public class EventManager implements GLEventListener, KeyListener, MouseListener
 	{
 		updateMousePosition(e);
 
-		if (IntersectionOps.isPointInsidePoly(new Vec2(mousePosition.getX(), mousePosition.getY()), theSunOrMoon.boundaryPoints))
+		if (IntersectionOps.isPointInsidePoly(new Vec2(mousePosition.getX(), mousePosition.getY()), theSunOrMoon.getPackedBoundaryPoints()))
 		{
 			drawWinter = !drawWinter;
 			seasonChanged = true;
@@ -0,0 +1,110 @@
+package IFS;
+
+import java.util.SplittableRandom;
+
+/**
+ * A Walker alias table for sampling from a discrete probability distribution in constant time.
+ * Built once in O(n) with Vose's method; each sample costs one random draw, one comparison and at most two array reads.
+ * @author DEMcKnight
+ */
+public class AliasTable
+{
+	/**
+	 * For each column, the probability of keeping the column's own index rather than taking its alias
+	 */
+	final double[] probability;
+
+	/**
+	 * For each column, the index to return when the column's own index isn't kept
+	 */
+	final int[] alias;
+
+	/**
+	 * Builds an alias table for the given weights. The weights need not sum to one, but must be non-negative, finite, and not all zero.
+	 * @param weights The relative probability of each index being sampled
+	 */
+	public AliasTable(double[] weights)
+	{
+		int n = weights.length;
+		if (n == 0)
+			throw new IllegalArgumentException("Cannot build an alias table with no weights");
+
+		double total = 0;
+		for (double w : weights)
+		{
+			if (!(w >= 0) || Double.isInfinite(w))
+				throw new IllegalArgumentException("Weights must be non-negative and finite, got " + w);
+			total += w;
+		}
+		if (total == 0)
+			throw new IllegalArgumentException("At least one weight must be positive");
+
+		probability = new double[n];
+		alias = new int[n];
+
+		//Scale the weights so that the average column holds exactly 1, then sort the columns into under- and over-full stacks
+		double[] scaled = new double[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int numSmall = 0;
+		int numLarge = 0;
+		for (int i=0; i<n; i++)
+		{
+			scaled[i] = weights[i] * n / total;
+			if (scaled[i] < 1)
+				small[numSmall++] = i;
+			else
+				large[numLarge++] = i;
+		}
+
+		//Top up each under-full column with probability mass from an over-full one
+		while (numSmall > 0 && numLarge > 0)
+		{
+			int s = small[--numSmall];
+			int l = large[--numLarge];
+			probability[s] = scaled[s];
+			alias[s] = l;
+			scaled[l] = (scaled[l] + scaled[s]) - 1;
+			if (scaled[l] < 1)
+				small[numSmall++] = l;
+			else
+				large[numLarge++] = l;
+		}
+
+		//Whatever remains is full up to floating-point error
+		while (numLarge > 0)
+		{
+			int l = large[--numLarge];
+			probability[l] = 1;
+			alias[l] = l;
+		}
+		while (numSmall > 0)
+		{
+			int s = small[--numSmall];
+			probability[s] = 1;
+			alias[s] = s;
+		}
+	}
+
+	/**
+	 * Returns the number of indices this table samples from
+	 * @return the number of indices this table samples from
+	 */
+	public int size()
+	{
+		return probability.length;
+	}
+
+	/**
+	 * Samples an index according to the weights this table was built with
+	 * @param rng The random number generator to draw with
+	 * @return an index in [0, size())
+	 */
+	public int sample(SplittableRandom rng)
+	{
+		//One draw picks both the column (integer part) and whether to take its alias (fractional part)
+		double u = rng.nextDouble() * probability.length;
+		int column = (int)u;
+		return (u - column) < probability[column] ? column : alias[column];
+	}
+}
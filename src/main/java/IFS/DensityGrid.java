@@ -0,0 +1,330 @@
+package IFS;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A histogram that bins IFS points into a fixed grid of pixels instead of storing them.
+ * Memory use depends only on the resolution, so arbitrarily many iterations can be accumulated,
+ * and the result is turned into a grayscale image with log-density tone mapping.
+ * @author DEMcKnight
+ */
+public class DensityGrid
+{
+	/**
+	 * The number of points generated at a time when accumulating directly from an IFS
+	 */
+	private static final int CHUNK_POINTS = 4096;
+
+	/**
+	 * The width of this grid in pixels
+	 */
+	private final int width;
+
+	/**
+	 * The height of this grid in pixels
+	 */
+	private final int height;
+
+	/**
+	 * The number of points that landed in each pixel, row by row starting from the bottom row (smallest y)
+	 */
+	final long[] counts;
+
+	/**
+	 * The region of IFS space covered by this grid
+	 */
+	private final double minX, minY, maxX, maxY;
+
+	/**
+	 * Pixels per unit of IFS space in each direction
+	 */
+	private final double xScale, yScale;
+
+	/**
+	 * Scratch space for points generated by accumulate(IFS, long)
+	 */
+	private double[] scratch;
+
+	/**
+	 * Prepares an empty grid of the given resolution covering the given region of IFS space.
+	 * Points outside of the region are ignored.
+	 * @param width The width of the grid in pixels
+	 * @param height The height of the grid in pixels
+	 * @param minX The left edge of the covered region
+	 * @param minY The bottom edge of the covered region
+	 * @param maxX The right edge of the covered region
+	 * @param maxY The top edge of the covered region
+	 */
+	public DensityGrid(int width, int height, double minX, double minY, double maxX, double maxY)
+	{
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Grid dimensions must be positive, got " + width + "x" + height);
+		if (!(maxX > minX) || !(maxY > minY))
+			throw new IllegalArgumentException("The covered region must have positive area");
+
+		this.width = width;
+		this.height = height;
+		this.counts = new long[width*height];
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.xScale = width / (maxX - minX);
+		this.yScale = height / (maxY - minY);
+	}
+
+	/**
+	 * Prepares an empty grid with the same resolution and covered region as the given grid
+	 * @param template The grid to copy the dimensions of
+	 */
+	public DensityGrid(DensityGrid template)
+	{
+		this(template.width, template.height, template.minX, template.minY, template.maxX, template.maxY);
+	}
+
+	/**
+	 * Returns the width of the grid
+	 * @return the width of the grid, in pixels
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Returns the height of the grid
+	 * @return the height of the grid, in pixels
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns the number of points that have landed in the given pixel
+	 * @param px The column of the pixel, from the left
+	 * @param py The row of the pixel, from the bottom
+	 * @return the number of points that have landed in the given pixel
+	 */
+	public long getCount(int px, int py)
+	{
+		return counts[py*width + px];
+	}
+
+	/**
+	 * Returns the largest number of points in any one pixel
+	 * @return the largest number of points in any one pixel
+	 */
+	public long getMaxCount()
+	{
+		long max = 0;
+		for (long c : counts)
+			if (c > max)
+				max = c;
+		return max;
+	}
+
+	/**
+	 * Bins the given interleaved (x, y) points into this grid
+	 * @param xy The points to bin
+	 * @param offset The index in xy of the first x-coordinate
+	 * @param n The number of points to bin
+	 */
+	public void accumulate(double[] xy, int offset, int n)
+	{
+		final long[] bins = counts;
+		final int w = width;
+		final int h = height;
+		final double x0 = minX;
+		final double y0 = minY;
+		final double sx = xScale;
+		final double sy = yScale;
+
+		for (int i = offset, end = offset + 2*n; i < end; i+=2)
+		{
+			//The comparisons are written so that NaNs fall out as well
+			double fx = (xy[i] - x0) * sx;
+			double fy = (xy[i+1] - y0) * sy;
+			if (fx >= 0 && fx < w && fy >= 0 && fy < h)
+				bins[(int)fy * w + (int)fx]++;
+		}
+	}
+
+	/**
+	 * Runs the given IFS for the given number of iterations, binning every visited point into this grid.
+	 * Only a small fixed-size scratch buffer is used, regardless of the number of iterations.
+	 * @param ifs The IFS to iterate
+	 * @param iterations The number of iterations to run
+	 */
+	public void accumulate(IFS ifs, long iterations)
+	{
+		if (scratch == null)
+			scratch = new double[2*CHUNK_POINTS];
+
+		while (iterations > 0)
+		{
+			int n = (int)Math.min(iterations, CHUNK_POINTS);
+			ifs.iterate(n, scratch, 0);
+			accumulate(scratch, 0, n);
+			iterations -= n;
+		}
+	}
+
+	/**
+	 * Runs numWalkers independent walkers of the given IFS on the common ForkJoinPool (see IFS.iterateParallel),
+	 * binning into private grids, and adds the merged result into this grid (see accumulateParallel(IFS, long, int, ForkJoinPool)).
+	 * @param ifs The IFS to iterate
+	 * @param iterations The total number of iterations to run across all walkers
+	 * @param numWalkers The number of independent walkers to run
+	 */
+	public void accumulateParallel(IFS ifs, long iterations, int numWalkers)
+	{
+		accumulateParallel(ifs, iterations, numWalkers, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Runs numWalkers independent walkers of the given IFS on the given pool, binning into private grids, and adds the merged result into this grid.
+	 * A walker borrows a private grid that no running walker is using (creating one only if there is none), so there are never more private grids
+	 * than walkers running at once: at most the pool's parallelism plus the calling thread, whatever numWalkers is.
+	 * Each private grid costs 8*width*height bytes (about 16.6 MB at 1920x1080), and all of them are garbage once this returns.
+	 * @param ifs The IFS to iterate
+	 * @param iterations The total number of iterations to run across all walkers
+	 * @param numWalkers The number of independent walkers to run
+	 * @param pool The pool to run the walkers on
+	 */
+	public void accumulateParallel(IFS ifs, long iterations, int numWalkers, ForkJoinPool pool)
+	{
+		if (numWalkers < 1)
+			throw new IllegalArgumentException("At least one walker is required, got " + numWalkers);
+
+		SplittableRandom[] streams = new SplittableRandom[numWalkers];
+		for (int i=0; i<numWalkers; i++)
+			streams[i] = ifs.randy.split();
+
+		Queue<DensityGrid> grids = new ConcurrentLinkedQueue<DensityGrid>();
+		pool.invoke(new GridTask(ifs, streams, grids, 0, numWalkers, iterations));
+		for (DensityGrid grid : grids)
+			merge(grid);
+	}
+
+	/**
+	 * Adds the counts of another grid of the same resolution into this one
+	 * @param other The grid to add into this one
+	 */
+	public void merge(DensityGrid other)
+	{
+		if (other.width != width || other.height != height)
+			throw new IllegalArgumentException("Cannot merge a " + other.width + "x" + other.height + " grid into a " + width + "x" + height + " grid");
+		for (int i=0; i<counts.length; i++)
+			counts[i] += other.counts[i];
+	}
+
+	/**
+	 * Resets every pixel's count to zero
+	 */
+	public void clear()
+	{
+		Arrays.fill(counts, 0);
+	}
+
+	/**
+	 * Tone maps this grid to a grayscale image, with brightness proportional to log(1 + count) / log(1 + maxCount).
+	 * The log compresses the enormous range of densities an attractor has, so sparse regions stay visible.
+	 * The image's top row is this grid's top row.
+	 * @return a grayscale image of this grid
+	 */
+	public BufferedImage toImage()
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+		byte[] pixels = ((DataBufferByte)image.getRaster().getDataBuffer()).getData();
+
+		long max = getMaxCount();
+		if (max == 0)
+			return image;
+
+		//Every pixel with the same count maps to the same shade, so look small counts up rather than taking a log per pixel
+		double scale = 255 / Math.log1p(max);
+		int[] lookup = new int[(int)Math.min(max + 1, 4096)];
+		for (int c=0; c<lookup.length; c++)
+			lookup[c] = (int)Math.round(Math.log1p(c) * scale);
+
+		for (int row=0; row<height; row++)
+		{
+			int src = (height - 1 - row) * width;
+			int dst = row * width;
+			for (int col=0; col<width; col++)
+			{
+				long c = counts[src + col];
+				int shade = c < lookup.length ? lookup[(int)c] : (int)Math.round(Math.log1p(c) * scale);
+				pixels[dst + col] = (byte)shade;
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * A fork/join task that runs a range of walkers, each accumulating into a private grid borrowed from (and returned to) a shared pool of them
+	 */
+	private class GridTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final IFS ifs;
+		private final SplittableRandom[] streams;
+		private final Queue<DensityGrid> grids;
+		private final int firstWalker;
+		private final int lastWalker;
+		private final long iterations;
+
+		GridTask(IFS ifs, SplittableRandom[] streams, Queue<DensityGrid> grids, int firstWalker, int lastWalker, long iterations)
+		{
+			this.ifs = ifs;
+			this.streams = streams;
+			this.grids = grids;
+			this.firstWalker = firstWalker;
+			this.lastWalker = lastWalker;
+			this.iterations = iterations;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (lastWalker - firstWalker > 1)
+			{
+				int mid = (firstWalker + lastWalker) >>> 1;
+				invokeAll(new GridTask(ifs, streams, grids, firstWalker, mid, iterations),
+						new GridTask(ifs, streams, grids, mid, lastWalker, iterations));
+				return;
+			}
+
+			int numWalkers = streams.length;
+			long start = iterations / numWalkers * firstWalker + Math.min(firstWalker, iterations % numWalkers);
+			long end = iterations / numWalkers * lastWalker + Math.min(lastWalker, iterations % numWalkers);
+			SplittableRandom rng = streams[firstWalker];
+
+			//A walker never forks while it holds a grid, so a grid is only ever in use by one running walker
+			DensityGrid grid = grids.poll();
+			if (grid == null)
+				grid = new DensityGrid(DensityGrid.this);
+			double[] buffer = new double[2*CHUNK_POINTS];
+
+			double[] position = {rng.nextDouble(), rng.nextDouble()};
+			ifs.chaosGame(rng, position, IFS.BURN_IN, null, 0);
+			for (long remaining = end - start; remaining > 0; )
+			{
+				int n = (int)Math.min(remaining, CHUNK_POINTS);
+				ifs.chaosGame(rng, position, n, buffer, 0);
+				grid.accumulate(buffer, 0, n);
+				remaining -= n;
+			}
+			grids.offer(grid);
+		}
+	}
+}
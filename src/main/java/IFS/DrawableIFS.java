@@ -1,14 +1,16 @@
 package IFS;
 
-import java.util.ArrayList;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
-import javax.media.opengl.GL;
 import javax.media.opengl.GL2;
-import javax.media.opengl.fixedfunc.GLMatrixFunc;
 
+import reusable.graphicsPrimitives.Affine2;
 import reusable.graphicsPrimitives.Mat2;
 import reusable.graphicsPrimitives.Vec2;
+import reusable.rendering.GLRenderTarget;
+import reusable.rendering.RenderTarget;
 
 /**
  * An extension of the Iterated Function System class for storing and drawing results of iterations
@@ -18,29 +20,34 @@ import reusable.graphicsPrimitives.Vec2;
 public class DrawableIFS extends IFS
 {
 	/**
-	 * The coordinates that this IFS has iterated through
+	 * The coordinates that this IFS has iterated through, stored as a circular buffer of interleaved (x, y) pairs
 	 */
-	ArrayList<Vec2> coordinates = new ArrayList<Vec2>();
-	
+	double[] coordinates;
+
 	/**
-	 * The origin of this IFS in some other coordinate space
+	 * The index (in points, not doubles) of the oldest point stored in coordinates
 	 */
-	private Vec2 origin;
-	
+	private int head = 0;
+
 	/**
-	 * The amount to scale this IFS in the horizontal direction in some other coordinate space
+	 * The number of points currently stored in coordinates
 	 */
-	private double xScaling;
+	private int count = 0;
 	
 	/**
-	 * The amount to scale this IFS in the vertical direction in some other coordinate space
+	 * Places this IFS in some other coordinate space: scales it horizontally and vertically, then moves its origin
 	 */
-	private double yScaling;
+	private final Affine2 placement;
 	
 	/**
 	 * The maximum number of elements (to makes sure this doesn't continuously hog more resources
 	 */
-	private final int MAX_ELEMENTS = 1000000;
+	private static final int MAX_ELEMENTS = 1000000;
+
+	/**
+	 * The number of points fitTo samples when it can't compute a guaranteed bounding box
+	 */
+	private static final int FIT_SAMPLES = 100000;
 
 	/**
 	 * Prepares a Drawable iterated functions system with the IFS component being dictated by IFS(matrices, addends), the position for drawing being determined by origin, and the scaling factors for drawing being determined by xScaling and yScaling
@@ -52,44 +59,217 @@ public class DrawableIFS extends IFS
 	 */
 	public DrawableIFS(Vec2 origin, double xScaling, double yScaling, List<Mat2> matrices, List<Vec2> addends)
 	{
-		super(matrices, addends);
-		this.origin = origin;
-		this.xScaling = xScaling;
-		this.yScaling = yScaling;
+		this(origin, xScaling, yScaling, matrices, addends, null);
+	}
+
+	/**
+	 * Prepares a Drawable iterated functions system with the IFS component being dictated by IFS(matrices, addends, probabilities)
+	 * @param origin The position for drawing this IFS in some other coordinate space
+	 * @param xScaling The amount to scale the model matrix horizontally when drawing to a GL object
+	 * @param yScaling The amount to scale the model matrix vertically when drawing to a GL object
+	 * @param matrices The transformations to apply to currentPosition prior to translating by the corresponding addend when iterate() is called.
+	 * @param addends The translation transformations to apply to currentPosition after applying the corresponding matrix transformation when iterate() is called.
+	 * @param probabilities The relative probability of selecting each transformation, or null to select them uniformly.
+	 */
+	public DrawableIFS(Vec2 origin, double xScaling, double yScaling, List<Mat2> matrices, List<Vec2> addends, double[] probabilities)
+	{
+		super(matrices, addends, probabilities);
+		this.placement = new Affine2(xScaling, 0, 0, yScaling, origin.getX(), origin.getY());
+		this.coordinates = new double[MAX_ELEMENTS*2];
 	}
 
 	/**
-	 * Moves this IFS forward, calling super.iterate() and storing the result in coordinates
+	 * Prepares a Drawable iterated functions system with the IFS component being dictated by IFS(maps, probabilities), drawn through the given placement
+	 * @param placement The transformation from this IFS's coordinates into the coordinate space it's drawn into (copied)
+	 * @param maps The transformations to select from when iterate() is called.
+	 * @param probabilities The relative probability of selecting each transformation, or null to select them uniformly.
 	 */
-	public Vec2 iterate()
+	public DrawableIFS(Affine2 placement, List<Affine2> maps, double[] probabilities)
 	{
-		Vec2 returnVal = super.iterate();
-		coordinates.add(returnVal);
-		if (coordinates.size()>MAX_ELEMENTS)
-			coordinates.remove(0);
-		return returnVal.makeCopy();
+		super(maps, probabilities);
+		this.placement = new Affine2(placement);
+		this.coordinates = new double[MAX_ELEMENTS*2];
 	}
 
 	/**
-	 * Draws the coordinates this IFS has traveled through to the given GL2 object, translating by Origin and scaling by xScaling and yScaling
-	 * @param gl
+	 * Returns a copy of the transformation from this IFS's coordinates into the coordinate space it's drawn into
+	 * @return a copy of the placement
 	 */
-	public void draw(GL2 gl)
+	public Affine2 getPlacement()
 	{
-		gl.glMatrixMode(GLMatrixFunc.GL_MODELVIEW);
-		gl.glPushMatrix();
+		return new Affine2(placement);
+	}
 
-		gl.glTranslated(origin.getX(), origin.getY(), 0);
-		gl.glScaled(xScaling, yScaling, 1);
+	/**
+	 * Sets the transformation from this IFS's coordinates into the coordinate space it's drawn into
+	 * @param placement The new placement (copied)
+	 */
+	public void setPlacement(Affine2 placement)
+	{
+		this.placement.set(placement);
+	}
 
-		gl.glBegin(GL.GL_POINTS);
-		for (Vec2 coordinate : coordinates)
+	/**
+	 * Sets the placement (scaling factors and origin) so that the attractor of this IFS fills the given target rectangle.
+	 * Uses the guaranteed bounding box when every transformation is a contraction, and a sampled estimate otherwise.
+	 * @param target The rectangle, in the coordinate space this IFS is drawn into, to fit the attractor to
+	 * @param preserveAspect True to scale both directions equally (centering the attractor in the leftover space); false to stretch it to fill target
+	 */
+	public void fitTo(Rectangle2D target, boolean preserveAspect)
+	{
+		Rectangle2D bounds;
+		try
+		{
+			bounds = boundingBox();
+		}
+		catch (IllegalStateException notContractive)
 		{
-			gl.glVertex2d(coordinate.getX(), coordinate.getY());
+			bounds = estimateBoundingBox(FIT_SAMPLES);
 		}
-		gl.glEnd();
 
-		gl.glPopMatrix();
+		//Guard against degenerate (zero-width or zero-height) attractors
+		double width = Math.max(bounds.getWidth(), Double.MIN_NORMAL);
+		double height = Math.max(bounds.getHeight(), Double.MIN_NORMAL);
+
+		double xScaling = target.getWidth() / width;
+		double yScaling = target.getHeight() / height;
+		if (preserveAspect)
+			xScaling = yScaling = Math.min(xScaling, yScaling);
+
+		//Map the attractor's center onto the target's center
+		placement.set(xScaling, 0, 0, yScaling, target.getCenterX() - bounds.getCenterX()*xScaling, target.getCenterY() - bounds.getCenterY()*yScaling);
+	}
+
+	/**
+	 * Moves this IFS forward, calling super.iterate(out) and storing the result in coordinates (iterate() comes through here too)
+	 * @param out The vector to copy the new position into
+	 * @return out
+	 */
+	@Override
+	public Vec2 iterate(Vec2 out)
+	{
+		super.iterate(out);
+		store(out.getX(), out.getY());
+		return out;
+	}
+
+	/**
+	 * Moves this IFS forward n times, calling super.iterate(n, outXY, offset) and storing every visited point in coordinates
+	 * @param n The number of iterations to perform
+	 * @param outXY The array to write the visited positions into
+	 * @param offset The index in outXY at which to write the first x-coordinate
+	 */
+	@Override
+	public void iterate(int n, double[] outXY, int offset)
+	{
+		super.iterate(n, outXY, offset);
+		for (int i = offset, end = offset + 2*n; i < end; i+=2)
+			store(outXY[i], outXY[i+1]);
+	}
+
+	/**
+	 * Produces n points with independent parallel walkers (see IFS.iterateParallel) and stores every produced point in coordinates
+	 * @param n The total number of points to produce
+	 * @param outXY The array to write the produced points into
+	 * @param offset The index in outXY at which to write the first x-coordinate
+	 * @param numWalkers The number of independent walkers to run
+	 * @param pool The pool to run the walkers on
+	 */
+	@Override
+	public void iterateParallel(int n, double[] outXY, int offset, int numWalkers, ForkJoinPool pool)
+	{
+		super.iterateParallel(n, outXY, offset, numWalkers, pool);
+		for (int i = offset, end = offset + 2*n; i < end; i+=2)
+			store(outXY[i], outXY[i+1]);
+	}
+
+	/**
+	 * Stores the given point in coordinates, overwriting the oldest point once MAX_ELEMENTS points are held
+	 * @param x The x-coordinate of the point to store
+	 * @param y The y-coordinate of the point to store
+	 */
+	void store(double x, double y)
+	{
+		int slot = head + count;
+		if (slot >= MAX_ELEMENTS)
+			slot -= MAX_ELEMENTS;
+
+		coordinates[2*slot] = x;
+		coordinates[2*slot+1] = y;
+
+		if (count < MAX_ELEMENTS)
+			count++;
+		else if (++head == MAX_ELEMENTS)
+			head = 0;
+	}
+
+	/**
+	 * Returns the number of points currently stored by this IFS
+	 * @return the number of points currently stored by this IFS
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the x-coordinate of the i-th stored point, where 0 is the oldest point still held
+	 * @param i The logical index of the point
+	 * @return the x-coordinate of the i-th stored point
+	 */
+	public double getX(int i)
+	{
+		return coordinates[2*physicalIndex(i)];
+	}
+
+	/**
+	 * Returns the y-coordinate of the i-th stored point, where 0 is the oldest point still held
+	 * @param i The logical index of the point
+	 * @return the y-coordinate of the i-th stored point
+	 */
+	public double getY(int i)
+	{
+		return coordinates[2*physicalIndex(i)+1];
+	}
+
+	/**
+	 * Converts a logical index (0 being the oldest stored point) into an index into the circular buffer
+	 * @param i The logical index of the point
+	 * @return the position of the point in the circular buffer, in points
+	 */
+	private int physicalIndex(int i)
+	{
+		if (i < 0 || i >= count)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+		int slot = head + i;
+		return slot >= MAX_ELEMENTS ? slot - MAX_ELEMENTS : slot;
+	}
+
+	/**
+	 * Draws the coordinates this IFS has traveled through to the given GL2 object, through its placement
+	 * @param gl
+	 */
+	public void draw(GL2 gl)
+	{
+		draw(new GLRenderTarget(gl));
+	}
+
+	/**
+	 * Draws the coordinates this IFS has traveled through to the given target, through its placement
+	 * @param target The target to draw onto
+	 */
+	public void draw(RenderTarget target)
+	{
+		target.pushTransform();
+
+		target.transform(placement);
+
+		//Walk the circular buffer from the oldest point to the end of the array, then wrap around to the start
+		int firstRun = Math.min(count, MAX_ELEMENTS - head);
+		target.drawPoints(coordinates, 2*head, firstRun);
+		target.drawPoints(coordinates, 0, count - firstRun);
+
+		target.popTransform();
 	}
 
 }
@@ -1,59 +1,595 @@
 package IFS;
 
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import reusable.graphicsPrimitives.Affine2;
 import reusable.graphicsPrimitives.Mat2;
 import reusable.graphicsPrimitives.Vec2;
 
 /**
  * A class for holding information for an iterated function system with iterations of the form x2 = Ax1 + b
- * 
+ *
  * @author DEMcKnight
  */
 public class IFS
 {
+	/**
+	 * The number of doubles each transformation occupies in coefficients (a11, a12, a21, a22, b1, b2, as Affine2.copyTo lays them out)
+	 */
+	static final int STRIDE = Affine2.STRIDE;
+
+	/**
+	 * The number of iterations each independent walker discards before recording, so that it has settled onto the attractor
+	 */
+	public static final int BURN_IN = 64;
+
+	/**
+	 * When deriving probabilities from determinants, the smallest share of the total weight any one transformation may get.
+	 * Keeps degenerate (zero-area) transformations such as stems from never being selected.
+	 */
+	public static final double MIN_DETERMINANT_SHARE = 0.01;
+
+	/**
+	 * The seed used for sampled bounding box estimates, so that the same IFS is always framed the same way
+	 */
+	private static final long BOUNDS_SEED = 0x1F5B0A7DL;
+
+	/**
+	 * The most times boundingBox() will shrink its hull by applying the transformations to it
+	 */
+	private static final int MAX_BOUNDS_PASSES = 200;
+
+	/**
+	 * boundingBox() stops shrinking its hull once a pass would have to transform more than this many vertices
+	 */
+	private static final int MAX_BOUNDS_POINTS = 1 << 16;
+
+	/**
+	 * boundingBox() stops shrinking its hull once a pass moves no edge by more than this fraction of the box's size
+	 */
+	private static final double BOUNDS_TOLERANCE = 1e-9;
+
 	/**
 	 * Random number generator
 	 */
-	Random randy = new Random();
+	SplittableRandom randy = new SplittableRandom();
+	/**
+	 * The transformations, one of which is applied to currentPosition when iterate() is called (copies, so they can't change underneath us)
+	 */
+	final List<Affine2> maps;
+	/**
+	 * The transformations flattened into one array, STRIDE doubles per transformation, so iterating needs no object lookups
+	 */
+	final double[] coefficients;
 	/**
-	 * The matrix transformation to apply to currentPosition when iterate() is called prior to adding the addend
+	 * The number of transformations in this IFS
 	 */
-	List<Mat2> matrices;
+	final int numMaps;
 	/**
-	 * The translation transformation to apply to currentPosition when iterate() is called after applying the matrix transformation
+	 * The table used to select which transformation to apply at each iteration
 	 */
-	List<Vec2> addends;
+	final AliasTable selector;
 	/**
-	 * The current position of this IFS object. It will be transformed when iterate() is called.
+	 * The current position {x, y} of this IFS object. It will be transformed when iterate() is called.
 	 */
-	Vec2 currentPosition = new Vec2(0, 0);
+	final double[] currentPosition = new double[2];
 
 	/**
 	 * Constructs a new Iterated Function System that uses the given matrices and addends to transform the current coordinates each frame.
-	 * 
+	 *
 	 * @param matrices The transformations to apply prior to translating by the corresponding addend when iterate() is called.
 	 * @param addends The translation transformations to apply after applying the corresponding matrix transformation when iterate() is called.
 	 */
 	public IFS(List<Mat2> matrices, List<Vec2> addends)
 	{
-		this.matrices = matrices;
-		this.addends = addends;
+		this(matrices, addends, null);
+	}
+
+	/**
+	 * Constructs a new Iterated Function System whose transformations are selected with the given (relative) probabilities.
+	 *
+	 * @param matrices The transformations to apply prior to translating by the corresponding addend when iterate() is called.
+	 * @param addends The translation transformations to apply after applying the corresponding matrix transformation when iterate() is called.
+	 * @param probabilities The relative probability of selecting each transformation, or null to select them uniformly.
+	 * @see #determinantProbabilities(List)
+	 */
+	public IFS(List<Mat2> matrices, List<Vec2> addends, double[] probabilities)
+	{
+		this(toMaps(matrices, addends), probabilities);
+	}
+
+	/**
+	 * Constructs a new Iterated Function System that uses the given affine transformations to transform the current coordinates each frame.
+	 *
+	 * @param maps The transformations to select from when iterate() is called.
+	 */
+	public IFS(List<Affine2> maps)
+	{
+		this(maps, null);
+	}
+
+	/**
+	 * Constructs a new Iterated Function System whose affine transformations are selected with the given (relative) probabilities.
+	 *
+	 * @param maps The transformations to select from when iterate() is called.
+	 * @param probabilities The relative probability of selecting each transformation, or null to select them uniformly.
+	 * @see #areaProbabilities(List)
+	 */
+	public IFS(List<Affine2> maps, double[] probabilities)
+	{
+		numMaps = maps.size();
+		List<Affine2> copies = new ArrayList<Affine2>(numMaps);
+		coefficients = new double[numMaps*STRIDE];
+		for (int i=0; i<numMaps; i++)
+		{
+			copies.add(new Affine2(maps.get(i)));
+			maps.get(i).copyTo(coefficients, i*STRIDE);
+		}
+		this.maps = Collections.unmodifiableList(copies);
+
+		if (probabilities == null)
+		{
+			probabilities = new double[numMaps];
+			Arrays.fill(probabilities, 1);
+		}
+		else if (probabilities.length != numMaps)
+			throw new IllegalArgumentException("Each matrix needs a corresponding probability (" + numMaps + " matrices, " + probabilities.length + " probabilities)");
+		selector = new AliasTable(probabilities);
+	}
+
+	/**
+	 * Derives selection probabilities proportional to the area scaling |det(A)| of each transformation,
+	 * so each part of the attractor receives points in proportion to its size.
+	 * Each transformation receives at least MIN_DETERMINANT_SHARE of the total weight.
+	 *
+	 * @param matrices The linear parts of the transformations
+	 * @return the relative probability of selecting each transformation
+	 */
+	public static double[] determinantProbabilities(List<Mat2> matrices)
+	{
+		double[] weights = new double[matrices.size()];
+		for (int i=0; i<weights.length; i++)
+			weights[i] = Math.abs(matrices.get(i).determinant());
+		return flooredWeights(weights);
+	}
+
+	/**
+	 * Derives selection probabilities proportional to the area scaling |det(A)| of each affine transformation, like determinantProbabilities does
+	 *
+	 * @param maps The transformations
+	 * @return the relative probability of selecting each transformation
+	 */
+	public static double[] areaProbabilities(List<Affine2> maps)
+	{
+		double[] weights = new double[maps.size()];
+		for (int i=0; i<weights.length; i++)
+			weights[i] = Math.abs(maps.get(i).determinant());
+		return flooredWeights(weights);
+	}
+
+	/**
+	 * Raises every weight to at least MIN_DETERMINANT_SHARE of the total, in place
+	 * @param weights The weights to floor
+	 * @return weights
+	 */
+	private static double[] flooredWeights(double[] weights)
+	{
+		double total = 0;
+		for (double weight : weights)
+			total += weight;
+
+		//If every transformation is degenerate there's nothing to go off of, so fall back to uniform
+		double floor = total > 0 ? MIN_DETERMINANT_SHARE * total : 1;
+		for (int i=0; i<weights.length; i++)
+			weights[i] = Math.max(weights[i], floor);
+		return weights;
+	}
+
+	/**
+	 * Pairs up the given matrices and addends into affine transformations
+	 * @param matrices The linear parts
+	 * @param addends The translations
+	 * @return one transformation per matrix
+	 */
+	private static List<Affine2> toMaps(List<Mat2> matrices, List<Vec2> addends)
+	{
+		if (matrices.size() != addends.size())
+			throw new IllegalArgumentException("Each matrix needs a corresponding addend (" + matrices.size() + " matrices, " + addends.size() + " addends)");
+
+		List<Affine2> maps = new ArrayList<Affine2>(matrices.size());
+		for (int i=0; i<matrices.size(); i++)
+			maps.add(new Affine2(matrices.get(i), addends.get(i)));
+		return maps;
+	}
+
+	/**
+	 * Returns the transformations this IFS selects from
+	 *
+	 * @return an unmodifiable list of the transformations
+	 */
+	public List<Affine2> getMaps()
+	{
+		return maps;
+	}
+
+	/**
+	 * Restarts this IFS's random stream from the given seed, so that it visits the same points every time
+	 *
+	 * @param seed The seed for the random stream
+	 */
+	public void setSeed(long seed)
+	{
+		randy = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Iterates this IFS forward BURN_IN times without recording anything, so that the points visited afterwards lie on the attractor
+	 */
+	public void burnIn()
+	{
+		chaosGame(randy, currentPosition, BURN_IN, null, 0);
 	}
 
 	/**
 	 * Iterates this IFS forward, applying the transformation to currentPosition and returning a deep copy of it
-	 * 
+	 *
 	 * @return a copy of the updated currentPosition vector
+	 * @deprecated Allocates a new Vec2 every call; use iterate(Vec2) with a reused vector, or iterate(int, double[], int) for many points
 	 */
+	@Deprecated
 	public Vec2 iterate()
+	{
+		return iterate(new Vec2(0, 0));
+	}
+
+	/**
+	 * Iterates this IFS forward, applying the transformation to currentPosition and copying it into out instead of allocating
+	 *
+	 * @param out The vector to copy the updated currentPosition into
+	 * @return out
+	 */
+	public Vec2 iterate(Vec2 out)
 	{
 		//Select a transformation to apply
-		int i = randy.nextInt(matrices.size());
+		int c = selector.sample(randy)*STRIDE;
 		//Apply the transformation
-		currentPosition = matrices.get(i).multiply(currentPosition).add(addends.get(i));
-		//Return a copy of the current position
-		return currentPosition.makeCopy();
+		double x = currentPosition[0];
+		double y = currentPosition[1];
+		currentPosition[0] = coefficients[c] * x + coefficients[c+1] * y + coefficients[c+4];
+		currentPosition[1] = coefficients[c+2] * x + coefficients[c+3] * y + coefficients[c+5];
+		//Copy out the current position
+		return out.set(currentPosition[0], currentPosition[1]);
+	}
+
+	/**
+	 * Iterates this IFS forward n times, writing each visited position into outXY as interleaved (x, y) pairs.
+	 * Allocates nothing, so it is suitable for producing very large numbers of points.
+	 *
+	 * @param n The number of iterations to perform
+	 * @param outXY The array to write the visited positions into
+	 * @param offset The index in outXY at which to write the first x-coordinate
+	 */
+	public void iterate(int n, double[] outXY, int offset)
+	{
+		checkBounds(n, outXY, offset);
+		chaosGame(randy, currentPosition, n, outXY, offset);
+	}
+
+	/**
+	 * Produces n points of this IFS's attractor into outXY using numWalkers independent walkers running on the common ForkJoinPool.
+	 * Each walker has its own random stream split off of this IFS's generator and discards BURN_IN iterations before writing,
+	 * then fills its own contiguous slice of outXY, so no synchronization is needed between walkers.
+	 * This IFS's own current position is not advanced.
+	 *
+	 * @param n The total number of points to produce
+	 * @param outXY The array to write the produced points into as interleaved (x, y) pairs
+	 * @param offset The index in outXY at which to write the first x-coordinate
+	 * @param numWalkers The number of independent walkers to run (typically the number of available cores)
+	 */
+	public void iterateParallel(int n, double[] outXY, int offset, int numWalkers)
+	{
+		iterateParallel(n, outXY, offset, numWalkers, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Produces n points of this IFS's attractor into outXY using numWalkers independent walkers running on the given pool.
+	 *
+	 * @param n The total number of points to produce
+	 * @param outXY The array to write the produced points into as interleaved (x, y) pairs
+	 * @param offset The index in outXY at which to write the first x-coordinate
+	 * @param numWalkers The number of independent walkers to run
+	 * @param pool The pool to run the walkers on
+	 * @see #iterateParallel(int, double[], int, int)
+	 */
+	public void iterateParallel(int n, double[] outXY, int offset, int numWalkers, ForkJoinPool pool)
+	{
+		checkBounds(n, outXY, offset);
+		if (numWalkers < 1)
+			throw new IllegalArgumentException("At least one walker is required, got " + numWalkers);
+
+		//Split the random streams here, on the calling thread, since SplittableRandom isn't thread-safe
+		SplittableRandom[] streams = new SplittableRandom[numWalkers];
+		for (int i=0; i<numWalkers; i++)
+			streams[i] = randy.split();
+
+		pool.invoke(new WalkerTask(streams, 0, numWalkers, n, outXY, offset));
+	}
+
+	/**
+	 * Computes a box guaranteed to contain the attractor of this IFS, without iterating it.
+	 * Every transformation must be a contraction (have a spectral norm below 1).
+	 * <p>
+	 * A ball B(c, r) is mapped into itself by every transformation once r >= |w_i(c) - c| / (1 - s_i),
+	 * where s_i is the spectral norm of transformation i, so the attractor lies inside that ball.
+	 * That ball's square is then shrunk by repeatedly replacing it with the convex hull of its images under every transformation.
+	 * Each hull still contains the attractor (the attractor is the union of its own images), and the hulls converge on the attractor's
+	 * convex hull, so the final box is tight.
+	 *
+	 * @return a box containing every point of the attractor
+	 * @throws IllegalStateException if any of the transformations is not a contraction
+	 */
+	public Rectangle2D.Double boundingBox()
+	{
+		//Center the initial ball on the mean of the transformations' fixed points
+		double cx = 0;
+		double cy = 0;
+		double[] norms = new double[numMaps];
+		Vec2 point = new Vec2(0, 0);
+		for (int i=0; i<numMaps; i++)
+		{
+			norms[i] = maps.get(i).spectralNorm();
+			if (!(norms[i] < 1))
+				throw new IllegalStateException("Transformation " + i + " is not a contraction (spectral norm " + norms[i] + ")");
+
+			//A contraction always has exactly one fixed point
+			maps.get(i).fixedPoint(point);
+			cx += point.getX();
+			cy += point.getY();
+		}
+		cx /= numMaps;
+		cy /= numMaps;
+
+		double radius = 0;
+		for (int i=0; i<numMaps; i++)
+		{
+			maps.get(i).apply(cx, cy, point);
+			double dx = point.getX() - cx, dy = point.getY() - cy;
+			radius = Math.max(radius, Math.sqrt(dx*dx + dy*dy) / (1 - norms[i]));
+		}
+
+		//Start from the square around the ball and repeatedly replace it with the convex hull of its images
+		double[][] hull = {{cx - radius, cy - radius}, {cx + radius, cy - radius}, {cx + radius, cy + radius}, {cx - radius, cy + radius}};
+		Rectangle2D.Double box = boxOf(hull);
+		for (int pass=0; pass<MAX_BOUNDS_PASSES && hull.length*numMaps <= MAX_BOUNDS_POINTS; pass++)
+		{
+			double[][] images = new double[hull.length*numMaps][];
+			for (int i=0; i<numMaps; i++)
+			{
+				Affine2 map = maps.get(i);
+				for (int v=0; v<hull.length; v++)
+				{
+					map.apply(hull[v][0], hull[v][1], point);
+					images[i*hull.length + v] = new double[] {point.getX(), point.getY()};
+				}
+			}
+			hull = convexHull(images);
+
+			Rectangle2D.Double newBox = boxOf(hull);
+			double change = Math.max(Math.max(newBox.x - box.x, newBox.y - box.y), Math.max(box.getMaxX() - newBox.getMaxX(), box.getMaxY() - newBox.getMaxY()));
+			box = newBox;
+			if (change <= BOUNDS_TOLERANCE * Math.max(box.width, box.height))
+				break;
+		}
+
+		return box;
+	}
+
+	/**
+	 * Returns the bounding box of the given points
+	 * @param points The points, each an {x, y} pair
+	 * @return the bounding box of the given points
+	 */
+	private static Rectangle2D.Double boxOf(double[][] points)
+	{
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (double[] p : points)
+		{
+			minX = Math.min(minX, p[0]);
+			minY = Math.min(minY, p[1]);
+			maxX = Math.max(maxX, p[0]);
+			maxY = Math.max(maxY, p[1]);
+		}
+		return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * Computes the convex hull of the given points with Andrew's monotone chain algorithm
+	 * @param points The points, each an {x, y} pair. Sorted in place.
+	 * @return the vertices of the convex hull in counter-clockwise order
+	 */
+	private static double[][] convexHull(double[][] points)
+	{
+		Arrays.sort(points, (p, q) -> p[0] != q[0] ? Double.compare(p[0], q[0]) : Double.compare(p[1], q[1]));
+		if (points.length < 3)
+			return points;
+
+		double[][] hull = new double[2*points.length][];
+		int k = 0;
+		//Lower hull, then upper hull, popping any vertex that doesn't make a left turn
+		for (int i=0; i<points.length; i++)
+		{
+			while (k >= 2 && cross(hull[k-2], hull[k-1], points[i]) <= 0)
+				k--;
+			hull[k++] = points[i];
+		}
+		for (int i=points.length-2, lower=k+1; i>=0; i--)
+		{
+			while (k >= lower && cross(hull[k-2], hull[k-1], points[i]) <= 0)
+				k--;
+			hull[k++] = points[i];
+		}
+		return Arrays.copyOf(hull, k-1);
+	}
+
+	/**
+	 * Returns the z-component of (a - o) x (b - o), which is positive when o, a, b make a counter-clockwise turn
+	 */
+	private static double cross(double[] o, double[] a, double[] b)
+	{
+		return (a[0] - o[0]) * (b[1] - o[1]) - (a[1] - o[1]) * (b[0] - o[0]);
+	}
+
+	/**
+	 * Estimates the bounding box of the attractor of this IFS by sampling it, which also works for IFSs that aren't strictly contractive.
+	 * Uses a fixed seed, so the same IFS always produces the same estimate. This IFS's own state is not advanced.
+	 *
+	 * @param samples The number of attractor points to sample (after burning in)
+	 * @return the bounding box of the sampled points
+	 * @throws IllegalArgumentException if samples is less than 1
+	 */
+	public Rectangle2D.Double estimateBoundingBox(int samples)
+	{
+		if (samples < 1)
+			throw new IllegalArgumentException("At least one sample is required to estimate a bounding box, got " + samples);
+
+		SplittableRandom rng = new SplittableRandom(BOUNDS_SEED);
+		double[] position = {0, 0};
+		chaosGame(rng, position, BURN_IN, null, 0);
+
+		double[] buffer = new double[2*Math.min(samples, 4096)];
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int remaining = samples; remaining > 0; )
+		{
+			int n = Math.min(remaining, buffer.length/2);
+			chaosGame(rng, position, n, buffer, 0);
+			for (int i=0; i<2*n; i+=2)
+			{
+				minX = Math.min(minX, buffer[i]);
+				maxX = Math.max(maxX, buffer[i]);
+				minY = Math.min(minY, buffer[i+1]);
+				maxY = Math.max(maxY, buffer[i+1]);
+			}
+			remaining -= n;
+		}
+
+		return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * Runs the chaos game from the given position for n iterations using the given random stream, writing each visited position into outXY
+	 *
+	 * @param rng The random stream to select transformations with
+	 * @param position The starting position {x, y}; overwritten with the final position
+	 * @param n The number of iterations to perform
+	 * @param outXY The array to write the visited positions into, or null to discard them
+	 * @param offset The index in outXY at which to write the first x-coordinate
+	 */
+	void chaosGame(SplittableRandom rng, double[] position, int n, double[] outXY, int offset)
+	{
+		//Pull state into locals so the loop works entirely out of registers
+		final double[] coeffs = coefficients;
+		final double[] probability = selector.probability;
+		final int[] alias = selector.alias;
+		final int maps = numMaps;
+		double x = position[0];
+		double y = position[1];
+
+		if (outXY == null)
+		{
+			for (int i=0; i<n; i++)
+			{
+				//Inlined AliasTable.sample(rng)
+				double u = rng.nextDouble() * maps;
+				int k = (int)u;
+				int c = ((u - k) < probability[k] ? k : alias[k])*STRIDE;
+				double newX = coeffs[c] * x + coeffs[c+1] * y + coeffs[c+4];
+				y = coeffs[c+2] * x + coeffs[c+3] * y + coeffs[c+5];
+				x = newX;
+			}
+		}
+		else
+		{
+			for (int i = offset, end = offset + 2*n; i < end; i+=2)
+			{
+				//Inlined AliasTable.sample(rng)
+				double u = rng.nextDouble() * maps;
+				int k = (int)u;
+				int c = ((u - k) < probability[k] ? k : alias[k])*STRIDE;
+				double newX = coeffs[c] * x + coeffs[c+1] * y + coeffs[c+4];
+				y = coeffs[c+2] * x + coeffs[c+3] * y + coeffs[c+5];
+				x = newX;
+				outXY[i] = x;
+				outXY[i+1] = y;
+			}
+		}
+
+		position[0] = x;
+		position[1] = y;
+	}
+
+	/**
+	 * Throws an IndexOutOfBoundsException if n points cannot be written into outXY starting at offset
+	 */
+	private static void checkBounds(int n, double[] outXY, int offset)
+	{
+		if (n < 0 || offset < 0 || offset + 2L*n > outXY.length)
+			throw new IndexOutOfBoundsException("Cannot write " + n + " points at offset " + offset + " into an array of length " + outXY.length);
+	}
+
+	/**
+	 * A fork/join task that runs a range of independent chaos game walkers, splitting the range in half until one walker remains.
+	 * Walker w writes points [w*n/numWalkers, (w+1)*n/numWalkers) of the output.
+	 */
+	private class WalkerTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SplittableRandom[] streams;
+		private final int firstWalker;
+		private final int lastWalker;
+		private final int n;
+		private final double[] outXY;
+		private final int offset;
+
+		WalkerTask(SplittableRandom[] streams, int firstWalker, int lastWalker, int n, double[] outXY, int offset)
+		{
+			this.streams = streams;
+			this.firstWalker = firstWalker;
+			this.lastWalker = lastWalker;
+			this.n = n;
+			this.outXY = outXY;
+			this.offset = offset;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (lastWalker - firstWalker > 1)
+			{
+				int mid = (firstWalker + lastWalker) >>> 1;
+				invokeAll(new WalkerTask(streams, firstWalker, mid, n, outXY, offset),
+						new WalkerTask(streams, mid, lastWalker, n, outXY, offset));
+				return;
+			}
+
+			int numWalkers = streams.length;
+			int start = (int)((long)n * firstWalker / numWalkers);
+			int end = (int)((long)n * lastWalker / numWalkers);
+			SplittableRandom rng = streams[firstWalker];
+
+			//Start somewhere arbitrary and let the contractions pull the walker onto the attractor before recording
+			double[] position = {rng.nextDouble(), rng.nextDouble()};
+			chaosGame(rng, position, BURN_IN, null, 0);
+			chaosGame(rng, position, end - start, outXY, offset + 2*start);
+		}
 	}
 }
@@ -0,0 +1,123 @@
+package IFS;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the chaos game for an IFS on a background thread, feeding the points it produces into a lock-free PointQueue.
+ * The render thread then drains whatever points are ready into a DrawableIFS each frame, so producing points never eats into frame time.
+ * @author DEMcKnight
+ */
+public class IFSGenerator
+{
+	/**
+	 * The number of points the background thread produces at a time
+	 */
+	private static final int BATCH_POINTS = 1024;
+
+	/**
+	 * The IFS whose attractor is being generated
+	 */
+	private final IFS ifs;
+
+	/**
+	 * The queue the background thread produces into
+	 */
+	private final PointQueue queue;
+
+	/**
+	 * The background thread's own random stream, split off of the IFS's so the two never share state
+	 */
+	private final SplittableRandom rng;
+
+	/**
+	 * The background thread, or null if it hasn't been started
+	 */
+	private Thread thread;
+
+	/**
+	 * Set to false to ask the background thread to finish
+	 */
+	private volatile boolean running = false;
+
+	/**
+	 * Prepares a generator for the given IFS whose queue holds up to capacity points. Call start() to begin generating.
+	 * @param ifs The IFS whose attractor to generate. Its own position is not used or advanced.
+	 * @param capacity The number of points that can be waiting to be drained at once
+	 */
+	public IFSGenerator(IFS ifs, int capacity)
+	{
+		this.ifs = ifs;
+		this.queue = new PointQueue(capacity);
+		this.rng = ifs.randy.split();
+	}
+
+	/**
+	 * Starts generating points on a background (daemon) thread
+	 */
+	public synchronized void start()
+	{
+		if (thread != null)
+			throw new IllegalStateException("This generator has already been started");
+
+		running = true;
+		thread = new Thread(this::generate, "IFS generator");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the background thread and waits for it to finish
+	 */
+	public synchronized void stop()
+	{
+		if (thread == null)
+			return;
+
+		running = false;
+		LockSupport.unpark(thread);
+		try
+		{
+			thread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Moves up to maxPoints generated points into the given DrawableIFS. Must always be called from the same (consumer) thread.
+	 * @param target The DrawableIFS to store the points in
+	 * @param maxPoints The most points to move
+	 * @return the number of points moved
+	 */
+	public int drainTo(DrawableIFS target, int maxPoints)
+	{
+		return queue.drainTo(target, maxPoints);
+	}
+
+	/**
+	 * The background thread's loop: produce a batch, then push it into the queue.
+	 * Whenever the queue is full the thread parks until the consumer has made room for a whole batch, rather than polling.
+	 */
+	private void generate()
+	{
+		double[] batch = new double[2*BATCH_POINTS];
+		double[] position = {0, 0};
+		ifs.chaosGame(rng, position, IFS.BURN_IN, null, 0);
+
+		while (running)
+		{
+			ifs.chaosGame(rng, position, BATCH_POINTS, batch, 0);
+			int sent = 0;
+			while (running && sent < BATCH_POINTS)
+			{
+				int accepted = queue.offer(batch, 2*sent, BATCH_POINTS - sent);
+				sent += accepted;
+				if (accepted == 0)
+					queue.awaitSpace(BATCH_POINTS);
+			}
+		}
+	}
+}
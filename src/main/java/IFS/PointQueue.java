@@ -0,0 +1,204 @@
+package IFS;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, lock-free queue of (x, y) points for exactly one producer thread and one consumer thread.
+ * Points are stored interleaved in a primitive ring, so passing points through the queue allocates nothing.
+ * The producer only ever writes the tail and the consumer only ever writes the head; each publishes with an ordered (lazy) store
+ * and caches its last view of the other's index so that it rarely has to read the other thread's cache line.
+ * Each side's index and cached view live together in their own padded Index object, so the two threads never write to the same line.
+ * A producer that finds the queue full can park in awaitSpace until the consumer has drained enough to make it worth waking up.
+ * @author DEMcKnight
+ */
+public class PointQueue
+{
+	/**
+	 * The queued points as interleaved (x, y) pairs
+	 */
+	private final double[] buffer;
+
+	/**
+	 * capacity - 1, for wrapping sequence numbers into the ring (capacity is a power of two)
+	 */
+	private final int mask;
+
+	/**
+	 * Ordered (lazy) stores to an Index's sequence number
+	 */
+	private static final AtomicLongFieldUpdater<Index> SEQUENCE = AtomicLongFieldUpdater.newUpdater(Index.class, "sequence");
+
+	/**
+	 * The head: the sequence number of the next point the consumer will take, and the consumer's last view of the tail.
+	 * Written only by the consumer.
+	 */
+	private final Index consumer = new PaddedIndex();
+
+	/**
+	 * The tail: the sequence number of the next point the producer will add, and the producer's last view of the head.
+	 * Written only by the producer.
+	 */
+	private final Index producer = new PaddedIndex();
+
+	/**
+	 * The producer thread while it's parked in awaitSpace, or null
+	 */
+	private volatile Thread waitingProducer;
+
+	/**
+	 * The number of free slots the parked producer is waiting for (written before waitingProducer is published)
+	 */
+	private int wakeThreshold;
+
+	/**
+	 * Prepares an empty queue that can hold at least the given number of points
+	 * @param capacity The minimum number of points the queue must be able to hold (rounded up to a power of two)
+	 */
+	public PointQueue(int capacity)
+	{
+		if (capacity < 1 || capacity > (1 << 29))
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^29 points, got " + capacity);
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+		buffer = new double[2*size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Returns the number of points this queue can hold
+	 * @return the number of points this queue can hold
+	 */
+	public int capacity()
+	{
+		return mask + 1;
+	}
+
+	/**
+	 * Returns an estimate of the number of points currently queued. Exact only when neither thread is active.
+	 * @return an estimate of the number of points currently queued
+	 */
+	public int size()
+	{
+		return (int)(producer.sequence - consumer.sequence);
+	}
+
+	/**
+	 * Adds as many of the given points as there is room for. Must only be called from the producer thread.
+	 * @param xy The points to add, as interleaved (x, y) pairs
+	 * @param offset The index in xy of the first x-coordinate
+	 * @param n The number of points to add
+	 * @return the number of points actually added (possibly 0, if the queue is full)
+	 */
+	public int offer(double[] xy, int offset, int n)
+	{
+		long t = producer.sequence;
+		int free = (int)(capacity() - (t - producer.cachedOther));
+		if (free < n)
+		{
+			//Only look at the consumer's index when our cached view says there isn't enough room
+			producer.cachedOther = consumer.sequence;
+			free = (int)(capacity() - (t - producer.cachedOther));
+		}
+
+		int count = Math.min(n, free);
+		for (int i=0; i<count; i++)
+		{
+			int slot = 2*((int)(t + i) & mask);
+			buffer[slot] = xy[offset + 2*i];
+			buffer[slot+1] = xy[offset + 2*i + 1];
+		}
+
+		//Publish the points; the ordered store makes the buffer writes above visible before the new tail
+		if (count > 0)
+			SEQUENCE.lazySet(producer, t + count);
+		return count;
+	}
+
+	/**
+	 * Moves up to maxPoints queued points into the given DrawableIFS's stored coordinates. Must only be called from the consumer thread.
+	 * @param target The DrawableIFS to store the points in
+	 * @param maxPoints The most points to move
+	 * @return the number of points moved
+	 */
+	public int drainTo(DrawableIFS target, int maxPoints)
+	{
+		long h = consumer.sequence;
+		int available = (int)(consumer.cachedOther - h);
+		if (available < maxPoints)
+		{
+			consumer.cachedOther = producer.sequence;
+			available = (int)(consumer.cachedOther - h);
+		}
+
+		int count = Math.min(maxPoints, available);
+		for (int i=0; i<count; i++)
+		{
+			int slot = 2*((int)(h + i) & mask);
+			target.store(buffer[slot], buffer[slot+1]);
+		}
+
+		//Hand the slots back to the producer only after we're done reading them. This is a full (volatile) store rather than a lazy one
+		//so that it can't be reordered with the read of waitingProducer below, which would let a producer going to sleep miss its wakeup.
+		if (count > 0)
+		{
+			consumer.sequence = h + count;
+
+			Thread waiting = waitingProducer;
+			if (waiting != null && capacity() - (producer.sequence - (h + count)) >= wakeThreshold)
+				LockSupport.unpark(waiting);
+		}
+		return count;
+	}
+
+	/**
+	 * Parks the producer until the consumer has freed at least minFree slots (or the thread is unparked or interrupted for another reason,
+	 * so callers should check their own exit conditions and retry). Returns immediately if there's already enough room.
+	 * Must only be called from the producer thread.
+	 * @param minFree The number of free slots to wait for (capped at the capacity)
+	 */
+	public void awaitSpace(int minFree)
+	{
+		wakeThreshold = Math.min(minFree, capacity());
+		waitingProducer = Thread.currentThread();
+
+		//Check again after announcing ourselves: any drain that happens after this read is guaranteed to see waitingProducer
+		if (capacity() - (producer.sequence - consumer.sequence) < wakeThreshold)
+			LockSupport.park(this);
+
+		waitingProducer = null;
+	}
+
+	/**
+	 * A cache line's worth of padding ahead of an Index's fields (the JVM lays out superclass fields first)
+	 */
+	static class LeftPadding
+	{
+		long p1, p2, p3, p4, p5, p6, p7;
+	}
+
+	/**
+	 * One side's position in the ring: its own sequence number, which only it writes, and its last view of the other side's
+	 */
+	static class Index extends LeftPadding
+	{
+		/**
+		 * The sequence number of the next point this side will add or take
+		 */
+		volatile long sequence;
+
+		/**
+		 * This side's last view of the other side's sequence number
+		 */
+		long cachedOther;
+	}
+
+	/**
+	 * An Index with a cache line's worth of padding after its fields as well, so nothing written by the other thread can share its line
+	 */
+	static final class PaddedIndex extends Index
+	{
+		long q1, q2, q3, q4, q5, q6, q7;
+	}
+}
@@ -0,0 +1,79 @@
+import java.io.File;
+import java.io.IOException;
+
+import reusable.instrumentation.Instrumentation;
+import reusable.instrumentation.SpanTimer;
+import reusable.rendering.FrameSequenceWriter;
+import reusable.rendering.TiledRasterizer;
+
+/**
+ * Renders the winter scene headlessly (no window, no OpenGL) to a numbered sequence of image files, as fast as the machine allows.
+ * The scene is stepped with a fixed timestep from a fixed seed, so the same arguments always produce the same frames.
+ * Frames are rasterized in parallel (see TiledRasterizer) while earlier frames are encoded and written on a background thread.
+ * @author DEMcKnight
+ */
+public class OfflineRenderer
+{
+	/**
+	 * The simulated time between frames, in seconds (the same as the windowed application's 60 fps)
+	 */
+	public static final double TIMESTEP = 1/60.0;
+
+	/**
+	 * The number of rendered frames that can be waiting to be written before rendering waits for the disk
+	 */
+	private static final int WRITE_QUEUE_FRAMES = 8;
+
+	/**
+	 * Times stepping, drawing and handing off each frame
+	 */
+	private static final SpanTimer frameTimer = Instrumentation.timer("offline frame");
+
+	/**
+	 * Times finishing each frame's rasterization (the tiled rasterizer does most of its work here)
+	 */
+	private static final SpanTimer rasterizeTimer = Instrumentation.timer("rasterize");
+
+	/**
+	 * Times handing each frame to the writer, which includes waiting for it when the disk falls behind
+	 */
+	private static final SpanTimer writeTimer = Instrumentation.timer("frame write");
+
+	/**
+	 * Renders the given number of frames of the winter scene into the given directory
+	 * @param numFrames The number of frames to render
+	 * @param directory The directory to write the frames into (created if it doesn't exist)
+	 * @param format The format to write the frames in
+	 * @param width The width of each frame, in pixels
+	 * @param height The height of each frame, in pixels
+	 * @param seed The seed for every random choice the scene makes
+	 * @throws IOException if a frame couldn't be written
+	 * @throws InterruptedException if interrupted while waiting for the writer
+	 */
+	public static void render(int numFrames, File directory, FrameSequenceWriter.Format format, int width, int height, long seed)
+			throws IOException, InterruptedException
+	{
+		EventManager.initWinter(seed);
+		TiledRasterizer target = new TiledRasterizer(width, height);
+		EventManager.updateProjection(target);
+
+		try (FrameSequenceWriter writer = new FrameSequenceWriter(directory, format, width, height, WRITE_QUEUE_FRAMES))
+		{
+			for (int i=0; i<numFrames; i++)
+			{
+				//Same as a display() call: advance the scene, clear to black and draw it
+				long frameStart = frameTimer.start();
+				EventManager.stepWinter(TIMESTEP);
+				target.clear(0xFF000000);
+				EventManager.renderWinter(target);
+
+				long start = rasterizeTimer.start();
+				int[] pixels = target.getPixels();
+				start = rasterizeTimer.stop(start);
+				writer.write(pixels);
+				writeTimer.stop(start);
+				frameTimer.stop(frameStart);
+			}
+		}
+	}
+}
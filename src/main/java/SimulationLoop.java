@@ -0,0 +1,260 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import reusable.instrumentation.Counter;
+import reusable.instrumentation.Instrumentation;
+import reusable.instrumentation.SpanTimer;
+import snowflakes.FlurrySnapshot;
+import snowflakes.SnowFlurry;
+
+/**
+ * Steps a SnowFlurry with a fixed timestep on its own thread, independently of how often (or how slowly) frames are drawn.
+ * Elapsed wall-clock time is collected in an accumulator and paid out in whole steps, at most maxStepsPerWake at a time,
+ * so a stalled thread catches up quickly but a thread that can't keep up drops time instead of spiraling.
+ * After each batch of steps the flurry is copied into one of three FlurrySnapshots and handed to the render thread,
+ * which draws the newest one, blended between its last two steps by how far wall-clock time has moved past it.
+ * Only the simulation thread touches the flurry once start() has been called.
+ * @author DEMcKnight
+ */
+public class SimulationLoop
+{
+	/**
+	 * Set in the shared slot's index when it holds a snapshot the render thread hasn't picked up yet
+	 */
+	private static final int FRESH = 4;
+
+	/**
+	 * Masks the slot index out of the shared slot's value
+	 */
+	private static final int INDEX_MASK = 3;
+
+	/**
+	 * Times each step of the flurry (wherever it's stepped from)
+	 */
+	private static final SpanTimer flurryStepTimer = Instrumentation.timer("flurry step");
+
+	/**
+	 * Times copying the flurry into a snapshot
+	 */
+	private static final SpanTimer publishTimer = Instrumentation.timer("snapshot publish");
+
+	/**
+	 * Counts the steps dropped by every loop
+	 */
+	private static final Counter droppedStepsCounter = Instrumentation.counter("dropped steps");
+
+	/**
+	 * The flurry being simulated
+	 */
+	private final SnowFlurry flurry;
+
+	/**
+	 * The simulated time each step advances the flurry by, in seconds
+	 */
+	private final double timestep;
+
+	/**
+	 * The length of a step, in nanoseconds of wall-clock time
+	 */
+	private final long timestepNanos;
+
+	/**
+	 * The most steps taken in one go before the backlog is dropped
+	 */
+	private final int maxStepsPerWake;
+
+	/**
+	 * The three snapshots: one being drawn, one being filled, and one waiting to be swapped with either
+	 */
+	private final FlurrySnapshot[] snapshots = {new FlurrySnapshot(), new FlurrySnapshot(), new FlurrySnapshot()};
+
+	/**
+	 * The index of the waiting snapshot, plus FRESH if it's newer than the one being drawn
+	 */
+	private final AtomicInteger shared = new AtomicInteger(1);
+
+	/**
+	 * The index of the snapshot being filled (simulation thread only)
+	 */
+	private int back = 2;
+
+	/**
+	 * The index of the snapshot being drawn (render thread only)
+	 */
+	private int front = 0;
+
+	/**
+	 * The number of steps taken so far (simulation thread only)
+	 */
+	private long steps = 0;
+
+	/**
+	 * The wall-clock time (System.nanoTime) that corresponds to step 0. Moved forward whenever time is dropped,
+	 * so that step n always corresponds to epochNanos + n*timestepNanos.
+	 */
+	private volatile long epochNanos;
+
+	/**
+	 * The number of steps' worth of time dropped because the simulation couldn't keep up
+	 */
+	private volatile long droppedSteps = 0;
+
+	/**
+	 * The simulation thread, or null if it hasn't been started
+	 */
+	private Thread thread;
+
+	/**
+	 * Set to false to ask the simulation thread to finish
+	 */
+	private volatile boolean running = false;
+
+	/**
+	 * Prepares a loop for the given flurry. Call start() to begin stepping it.
+	 * @param flurry The flurry to simulate. It must not be used by any other thread once the loop has started.
+	 * @param timestep The simulated time each step advances the flurry by, in seconds
+	 * @param maxStepsPerWake The most steps to take at once when catching up; any more time than that is dropped
+	 */
+	public SimulationLoop(SnowFlurry flurry, double timestep, int maxStepsPerWake)
+	{
+		if (!(timestep > 0))
+			throw new IllegalArgumentException("The timestep must be positive, got " + timestep);
+		if (maxStepsPerWake < 1)
+			throw new IllegalArgumentException("At least one step must be allowed per wake, got " + maxStepsPerWake);
+
+		this.flurry = flurry;
+		this.timestep = timestep;
+		this.timestepNanos = Math.max(1, Math.round(timestep*1e9));
+		this.maxStepsPerWake = maxStepsPerWake;
+
+		//Give the render thread something to draw before the first step
+		snapshots[front].capture(flurry, steps);
+	}
+
+	/**
+	 * Starts stepping the flurry on a background (daemon) thread
+	 */
+	public synchronized void start()
+	{
+		if (thread != null)
+			throw new IllegalStateException("This loop has already been started");
+
+		running = true;
+		epochNanos = System.nanoTime();
+		thread = new Thread(this::run, "Simulation");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the simulation thread and waits for it to finish
+	 */
+	public synchronized void stop()
+	{
+		if (thread == null)
+			return;
+
+		running = false;
+		LockSupport.unpark(thread);
+		try
+		{
+			thread.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the newest snapshot of the flurry. The snapshot stays untouched until the next call to acquire().
+	 * Must always be called from the same (render) thread.
+	 * @return the newest snapshot of the flurry
+	 */
+	public FlurrySnapshot acquire()
+	{
+		if ((shared.get() & FRESH) != 0)
+			front = shared.getAndSet(front) & INDEX_MASK;
+		return snapshots[front];
+	}
+
+	/**
+	 * Returns how far to blend the given snapshot's flakes from their previous step (0) to their captured step (1) to show them as of
+	 * the given time. Drawing one step behind the simulation like this means there's always a later step to blend towards.
+	 * @param snapshot A snapshot returned by acquire()
+	 * @param nowNanos The time to draw the flakes as of (from System.nanoTime)
+	 * @return the blend factor for the snapshot, in [0, 1]
+	 */
+	public double getAlpha(FlurrySnapshot snapshot, long nowNanos)
+	{
+		double alpha = (double)(nowNanos - epochNanos)/timestepNanos - snapshot.getStep();
+		return Math.max(0, Math.min(1, alpha));
+	}
+
+	/**
+	 * Returns the simulated time each step advances the flurry by
+	 * @return the timestep, in seconds
+	 */
+	public double getTimestep()
+	{
+		return timestep;
+	}
+
+	/**
+	 * Returns the number of steps' worth of time dropped so far because the simulation couldn't keep up with the clock
+	 * @return the number of steps dropped
+	 */
+	public long getDroppedSteps()
+	{
+		return droppedSteps;
+	}
+
+	/**
+	 * The simulation thread's loop: pay out the time that's passed in fixed steps, publish a snapshot, then sleep until the next step is due
+	 */
+	private void run()
+	{
+		while (running)
+		{
+			//Time owed to the simulation, measured from where the last step left off
+			long owed = System.nanoTime() - (epochNanos + steps*timestepNanos);
+
+			int taken = 0;
+			while (owed >= timestepNanos && taken < maxStepsPerWake)
+			{
+				long start = flurryStepTimer.start();
+				flurry.iterate(timestep);
+				flurryStepTimer.stop(start);
+				steps++;
+				taken++;
+				owed -= timestepNanos;
+			}
+
+			//Out of budget: forget the rest of the backlog rather than falling further behind every wake
+			if (owed >= timestepNanos)
+			{
+				long dropped = owed/timestepNanos;
+				epochNanos += dropped*timestepNanos;
+				droppedSteps += dropped;
+				droppedStepsCounter.add(dropped);
+				owed -= dropped*timestepNanos;
+			}
+
+			if (taken > 0)
+				publish();
+
+			LockSupport.parkNanos(this, timestepNanos - owed);
+		}
+	}
+
+	/**
+	 * Copies the flurry into the back snapshot and swaps it into the shared slot for the render thread to pick up
+	 */
+	private void publish()
+	{
+		long start = publishTimer.start();
+		snapshots[back].capture(flurry, steps);
+		back = shared.getAndSet(back | FRESH) & INDEX_MASK;
+		publishTimer.stop(start);
+	}
+}
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.Comparator;
 
 import reusable.graphicsPrimitives.Vec2;
+import reusable.graphicsPrimitives.Vec2Buffer;
 
 public class IntersectionOps
 {
@@ -121,6 +122,31 @@ public class IntersectionOps
 		return intersectionPoints;
 	}
 
+	/**
+	 * Finds the intersection between the line spanned by the given two points and the polygon represented by the vertices in the given buffer
+	 * @param l1p1 a point on the line 
+	 * @param l1p2 a point on the line, different than l1p1
+	 * @param poly the vertices of the polygon 
+	 * @return An ArrayList of the points of intersection of the given line and the boundaries of the polygon represented by the given vertices.
+	 */
+	public static ArrayList<Vec2> getIntersection(Vec2 l1p1, Vec2 l1p2, Vec2Buffer poly)
+	{
+		ArrayList<Vec2> intersectionPoints = new ArrayList<Vec2>();
+		Vec2 corner = new Vec2(0, 0);
+		Vec2 nextCorner = new Vec2(0, 0);
+		for (int i = 0; i < poly.size(); i++)
+		{
+
+			int next = (i + 1 == poly.size()) ? 0 : i + 1;
+
+			Vec2 intersectionPoint = getIntersectionPoint(l1p1, l1p2, poly.get(i, corner), poly.get(next, nextCorner));
+
+			if (intersectionPoint != null)
+				intersectionPoints.add(intersectionPoint);
+		}
+		return intersectionPoints;
+	}
+
 	/**
 	 * Returns true if the given point is inside the polygon represented by the given vertices; false, otherwise.
 	 * @param test the point to test for its in-ness with regard to the given polygon
@@ -144,6 +170,29 @@ public class IntersectionOps
 		return result;
 	}
 
+	/**
+	 * Returns true if the given point is inside the polygon represented by the given vertices; false, otherwise.
+	 * @param test the point to test for its in-ness with regard to the given polygon
+	 * @param poly the vertices of the polygon in which to check for the presence of the given point 
+	 * @return true if the given point is inside the polygon represented by the given vertices; false, otherwise.
+	 */
+	public static boolean isPointInsidePoly(Vec2 test, Vec2Buffer poly)
+	{
+		double testX = test.getX();
+		double testY = test.getY();
+		boolean result = false;
+		for (int i = 0, j = poly.size() - 1; i < poly.size(); j = i++)
+		{
+			double iX = poly.getX(i), iY = poly.getY(i);
+			double jX = poly.getX(j), jY = poly.getY(j);
+			if ((iY > testY) != (jY > testY) && (testX < (jX - iX) * (testY - iY) / (jY - iY) + iX))
+			{
+				result = !result;
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Returns a list of points that mark the intersection between poly1 and poly2. For use with Extra Credit 4
 	 * @param poly1
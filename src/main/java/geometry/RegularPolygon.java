@@ -4,7 +4,9 @@ import java.util.ArrayList;
 
 import javax.media.opengl.GL;
 
+import reusable.graphicsPrimitives.DoubleVec2Buffer;
 import reusable.graphicsPrimitives.Vec2;
+import reusable.graphicsPrimitives.Vec2Buffer;
 import reusable.Helpers;
 
 /**
@@ -18,6 +20,11 @@ public class RegularPolygon
 	 * The vertices of this regular polygon (not offset by center)
 	 */
 	public ArrayList<Vec2> boundaryPoints;
+
+	/**
+	 * The same vertices packed into one array, for drawing and hit-testing without touching a Vec2 per vertex
+	 */
+	private final Vec2Buffer packedBoundaryPoints;
 	
 	/**
 	 * The circumradius of this regular polygon
@@ -39,16 +46,28 @@ public class RegularPolygon
 	public RegularPolygon(Vec2 center, double angle, double circumRadius, int numSides)
 	{
 		this.center = center;
-		boundaryPoints = new ArrayList<Vec2>(numSides);
+		packedBoundaryPoints = new DoubleVec2Buffer(numSides);
 		for (int i=0; i<numSides; i++)
 		{
-			boundaryPoints.add(center.add((new Vec2(Math.cos(angle + i*2*Math.PI/numSides), Math.sin(angle + i*2*Math.PI/numSides)).multiplyAssignment(circumRadius))));		
+			double theta = angle + i*2*Math.PI/numSides;
+			packedBoundaryPoints.add(center.getX() + Math.cos(theta)*circumRadius, center.getY() + Math.sin(theta)*circumRadius);
 		}
+		boundaryPoints = packedBoundaryPoints.toList();
+	}
+
+	/**
+	 * Returns the vertices of this regular polygon packed into a Vec2Buffer. They're computed once, when the polygon is created,
+	 * so changes made to boundaryPoints afterwards aren't reflected here.
+	 * @return the vertices of this regular polygon (not offset by center), packed
+	 */
+	public Vec2Buffer getPackedBoundaryPoints()
+	{
+		return packedBoundaryPoints;
 	}
 	
 	public void draw(GL gl)
 	{
-		Helpers.drawPolygon(gl, boundaryPoints);
+		Helpers.drawPolygon(gl, packedBoundaryPoints);
 	}
 
 }
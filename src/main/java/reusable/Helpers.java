@@ -5,8 +5,11 @@ import java.util.ArrayList;
 
 import javax.media.opengl.GL;
 import javax.media.opengl.GL2;
+import javax.media.opengl.fixedfunc.GLPointerFunc;
 
+import reusable.graphicsPrimitives.DirectVec2Buffer;
 import reusable.graphicsPrimitives.Vec2;
+import reusable.graphicsPrimitives.Vec2Buffer;
 
 /**
  * Class containing static methods to help draw and fill things with JOGL
@@ -49,6 +52,71 @@ public class Helpers
 	}
 	
 	
+	//Uses OpenGL to draw a polygon specified by a buffer of points to the screen
+	public static void drawPolygon(GL gl, Vec2Buffer polygon)
+	{
+		drawVertices(gl, GL2.GL_POLYGON, polygon);
+	}
+
+
+	//Uses OpenGL to draw the triangle strip specified by a buffer of points to the screen
+	public static void drawTriangleStrip(GL gl, Vec2Buffer triangleStrip)
+	{
+		drawVertices(gl, GL2.GL_TRIANGLE_STRIP, triangleStrip);
+	}
+
+
+	//Uses OpenGL to draw the line loop specified by a buffer of points to the screen
+	public static void drawLineLoop(GL gl, Vec2Buffer lineLoop)
+	{
+		drawVertices(gl, GL2.GL_LINE_LOOP, lineLoop);
+	}
+
+
+	//Draws the buffer's points as primitives of the given mode. Off-heap buffers are already laid out as a GL_FLOAT vertex array,
+	//so they're handed to OpenGL as one without copying; the others are sent a vertex at a time in immediate mode.
+	private static void drawVertices(GL gl, int mode, Vec2Buffer points)
+	{
+		GL2 gl2=gl.getGL2();
+		if (points instanceof DirectVec2Buffer)
+		{
+			gl2.glEnableClientState(GLPointerFunc.GL_VERTEX_ARRAY);
+			gl2.glVertexPointer(2, GL.GL_FLOAT, 0, ((DirectVec2Buffer)points).getBuffer());
+			gl2.glDrawArrays(mode, 0, points.size());
+			gl2.glDisableClientState(GLPointerFunc.GL_VERTEX_ARRAY);
+		}
+		else
+		{
+			gl2.glBegin(mode);
+			for(int i=0; i<points.size(); i++)
+				gl2.glVertex2d(points.getX(i), points.getY(i));
+			gl2.glEnd();
+		}
+	}
+
+
+	//Uses OpenGL to draw the indexed triangles over interleaved (x, y) vertices to the screen, scaling every vertex by scale
+	public static void drawTriangles(GL gl, double[] vertices, int[] triangles, double scale)
+	{
+		GL2 gl2=gl.getGL2();
+		gl2.glBegin(GL.GL_TRIANGLES);
+		for(int index:triangles)
+			gl2.glVertex2d(vertices[2*index]*scale, vertices[2*index+1]*scale);
+		gl2.glEnd();
+	}
+
+
+	//Uses OpenGL to draw the line loop through the first numVertices interleaved (x, y) vertices to the screen, scaling every vertex by scale
+	public static void drawLineLoop(GL gl, double[] vertices, int numVertices, double scale)
+	{
+		GL2 gl2=gl.getGL2();
+		gl2.glBegin(GL2.GL_LINE_LOOP);
+		for(int i=0; i<numVertices; i++)
+			gl2.glVertex2d(vertices[2*i]*scale, vertices[2*i+1]*scale);
+		gl2.glEnd();
+	}
+
+
 	//Sets the color OpenGL is using for drawing things.
 	public static void setColor(GL gl, Color color)
 	{
@@ -0,0 +1,379 @@
+package reusable.graphicsPrimitives;
+
+/**
+ * A 2D affine transformation x -> Ax + b: a 2x2 linear part A (as in Mat2) followed by a translation b (a 3x2 matrix).
+ * Every operation that produces a transformation or a point has a version that writes into an existing object,
+ * and apply(double[], int, double[], int, int) transforms a whole array of interleaved (x, y) pairs in one tight loop.
+ * @author DEMcKnight
+ */
+public class Affine2
+{
+	/**The number of doubles copyTo writes: a11, a12, a21, a22, b1, b2*/
+	public static final int STRIDE = 6;
+
+	/**The top-left element of the linear part*/
+	double a11;
+	/**The top-right element of the linear part*/
+	double a12;
+	/**The bottom-left element of the linear part*/
+	double a21;
+	/**The bottom-right element of the linear part*/
+	double a22;
+	/**The x-component of the translation*/
+	double b1;
+	/**The y-component of the translation*/
+	double b2;
+
+	/**
+	 * Instantiates the transformation (x, y) -> (a11*x + a12*y + b1, a21*x + a22*y + b2)
+	 * @param a11 The top-left element of the linear part
+	 * @param a12 The top-right element of the linear part
+	 * @param a21 The bottom-left element of the linear part
+	 * @param a22 The bottom-right element of the linear part
+	 * @param b1 The x-component of the translation
+	 * @param b2 The y-component of the translation
+	 */
+	public Affine2(double a11, double a12, double a21, double a22, double b1, double b2)
+	{
+		set(a11, a12, a21, a22, b1, b2);
+	}
+
+	/**
+	 * Instantiates the transformation x -> linear*x + translation
+	 * @param linear The linear part, applied first
+	 * @param translation The translation, applied after the linear part
+	 */
+	public Affine2(Mat2 linear, Vec2 translation)
+	{
+		this(linear.a11, linear.a12, linear.a21, linear.a22, translation.x, translation.y);
+	}
+
+	/**
+	 * Instantiates a copy of the given transformation
+	 * @param other The transformation to copy
+	 */
+	public Affine2(Affine2 other)
+	{
+		this(other.a11, other.a12, other.a21, other.a22, other.b1, other.b2);
+	}
+
+	/**
+	 * Returns a new identity transformation
+	 * @return the transformation that leaves every point where it is
+	 */
+	public static Affine2 identity()
+	{
+		return new Affine2(1, 0, 0, 1, 0, 0);
+	}
+
+	/**
+	 * Returns a new transformation that scales about the origin, then rotates about the origin, then translates,
+	 * i.e. what glTranslated(x, y, 0), glRotated(angle, 0, 0, 1) and glScaled(scale, scale, 1) do to the vertices drawn after them
+	 * @param scale The amount to scale by
+	 * @param radians The angle to rotate by, counterclockwise
+	 * @param x The x-component of the translation
+	 * @param y The y-component of the translation
+	 * @return the placement transformation
+	 */
+	public static Affine2 placement(double scale, double radians, double x, double y)
+	{
+		return identity().setPlacement(scale, radians, x, y);
+	}
+
+	//Getters
+
+	/**
+	 * Getter for the top-left element of the linear part
+	 * @return a11
+	 */
+	public double getA11()
+	{
+		return a11;
+	}
+
+	/**
+	 * Getter for the top-right element of the linear part
+	 * @return a12
+	 */
+	public double getA12()
+	{
+		return a12;
+	}
+
+	/**
+	 * Getter for the bottom-left element of the linear part
+	 * @return a21
+	 */
+	public double getA21()
+	{
+		return a21;
+	}
+
+	/**
+	 * Getter for the bottom-right element of the linear part
+	 * @return a22
+	 */
+	public double getA22()
+	{
+		return a22;
+	}
+
+	/**
+	 * Getter for the x-component of the translation
+	 * @return b1
+	 */
+	public double getB1()
+	{
+		return b1;
+	}
+
+	/**
+	 * Getter for the y-component of the translation
+	 * @return b2
+	 */
+	public double getB2()
+	{
+		return b2;
+	}
+
+	/**
+	 * Returns a copy of the linear part of this transformation
+	 * @return a new Mat2 holding the linear part
+	 */
+	public Mat2 getLinear()
+	{
+		return new Mat2(a11, a12, a21, a22);
+	}
+
+	/**
+	 * Returns a copy of the translation of this transformation
+	 * @return a new Vec2 holding the translation
+	 */
+	public Vec2 getTranslation()
+	{
+		return new Vec2(b1, b2);
+	}
+
+	//Setters
+
+	/**
+	 * Sets all six elements of this transformation at once
+	 * @param a11 The top-left element of the linear part
+	 * @param a12 The top-right element of the linear part
+	 * @param a21 The bottom-left element of the linear part
+	 * @param a22 The bottom-right element of the linear part
+	 * @param b1 The x-component of the translation
+	 * @param b2 The y-component of the translation
+	 * @return A reference to this transformation
+	 */
+	public Affine2 set(double a11, double a12, double a21, double a22, double b1, double b2)
+	{
+		this.a11=a11;
+		this.a12=a12;
+		this.a21=a21;
+		this.a22=a22;
+		this.b1=b1;
+		this.b2=b2;
+		return this;
+	}
+
+	/**
+	 * Makes this transformation a copy of the given one
+	 * @param other The transformation to copy
+	 * @return A reference to this transformation
+	 */
+	public Affine2 set(Affine2 other)
+	{
+		return set(other.a11, other.a12, other.a21, other.a22, other.b1, other.b2);
+	}
+
+	/**
+	 * Makes this transformation the placement described by placement(scale, radians, x, y), without allocating
+	 * @param scale The amount to scale by
+	 * @param radians The angle to rotate by, counterclockwise
+	 * @param x The x-component of the translation
+	 * @param y The y-component of the translation
+	 * @return A reference to this transformation
+	 */
+	public Affine2 setPlacement(double scale, double radians, double x, double y)
+	{
+		double cos = Math.cos(radians)*scale;
+		double sin = Math.sin(radians)*scale;
+		return set(cos, -sin, sin, cos, x, y);
+	}
+
+	//Properties
+
+	/**
+	 * Returns the determinant of the linear part, the factor this transformation scales areas by (negative if it mirrors)
+	 * @return a11*a22 - a12*a21
+	 */
+	public double determinant()
+	{
+		return a11*a22 - a12*a21;
+	}
+
+	/**
+	 * Returns the spectral norm of the linear part: the most this transformation stretches any distance by.
+	 * The transformation is a contraction when this is below 1.
+	 * @return the largest singular value of the linear part
+	 */
+	public double spectralNorm()
+	{
+		//The square root of the largest eigenvalue of the Gram matrix A^T A
+		double frobenius = a11*a11 + a12*a12 + a21*a21 + a22*a22;
+		double det = determinant();
+		return Math.sqrt((frobenius + Math.sqrt(Math.max(0, frobenius*frobenius - 4*det*det))) / 2);
+	}
+
+	/**
+	 * Finds the point this transformation leaves where it is, by solving (I - A)p = b, and writes it into out
+	 * @param out The vector to write the fixed point into
+	 * @return out
+	 * @throws IllegalStateException if I - A is singular (the transformation has no single fixed point)
+	 */
+	public Vec2 fixedPoint(Vec2 out)
+	{
+		double m11 = 1 - a11, m12 = -a12, m21 = -a21, m22 = 1 - a22;
+		double det = m11*m22 - m12*m21;
+		if (det == 0)
+			throw new IllegalStateException("The transformation " + this + " has no single fixed point");
+		return out.set((m22*b1 - m12*b2) / det, (m11*b2 - m21*b1) / det);
+	}
+
+	//Composition and inversion
+
+	/**
+	 * Composes this transformation with the given one
+	 * @param inner The transformation to apply first
+	 * @return a new transformation that applies inner and then this transformation
+	 */
+	public Affine2 compose(Affine2 inner)
+	{
+		return compose(this, inner, new Affine2(this));
+	}
+
+	/**
+	 * Composes the two given transformations, writing the result into out (which may be either of them) instead of allocating
+	 * @param outer The transformation to apply second
+	 * @param inner The transformation to apply first
+	 * @param out The transformation to write the composition into
+	 * @return out, which now applies inner and then outer
+	 */
+	public static Affine2 compose(Affine2 outer, Affine2 inner, Affine2 out)
+	{
+		double a11 = outer.a11 * inner.a11 + outer.a12 * inner.a21;
+		double a12 = outer.a11 * inner.a12 + outer.a12 * inner.a22;
+		double a21 = outer.a21 * inner.a11 + outer.a22 * inner.a21;
+		double a22 = outer.a21 * inner.a12 + outer.a22 * inner.a22;
+		double b1 = outer.a11 * inner.b1 + outer.a12 * inner.b2 + outer.b1;
+		double b2 = outer.a21 * inner.b1 + outer.a22 * inner.b2 + outer.b2;
+		return out.set(a11, a12, a21, a22, b1, b2);
+	}
+
+	/**
+	 * Returns the inverse of this transformation
+	 * @return a new transformation that undoes this one
+	 * @throws IllegalStateException if the linear part is singular
+	 */
+	public Affine2 invert()
+	{
+		return invert(new Affine2(this));
+	}
+
+	/**
+	 * Writes the inverse of this transformation into out (which may be this transformation) instead of allocating
+	 * @param out The transformation to write the inverse into
+	 * @return out
+	 * @throws IllegalStateException if the linear part is singular
+	 */
+	public Affine2 invert(Affine2 out)
+	{
+		double det = determinant();
+		if (det == 0)
+			throw new IllegalStateException("The transformation " + this + " is singular and can't be inverted");
+		double i11 = a22/det, i12 = -a12/det, i21 = -a21/det, i22 = a11/det;
+		return out.set(i11, i12, i21, i22, -(i11*b1 + i12*b2), -(i21*b1 + i22*b2));
+	}
+
+	//Application
+
+	/**
+	 * Applies this transformation to the given point, writing the result into out (which may be the point) instead of allocating
+	 * @param point The point to transform
+	 * @param out The vector to write the transformed point into
+	 * @return out
+	 */
+	public Vec2 apply(Vec2 point, Vec2 out)
+	{
+		return apply(point.x, point.y, out);
+	}
+
+	/**
+	 * Applies this transformation to the point (x, y), writing the result into out
+	 * @param x The x-coordinate of the point to transform
+	 * @param y The y-coordinate of the point to transform
+	 * @param out The vector to write the transformed point into
+	 * @return out
+	 */
+	public Vec2 apply(double x, double y, Vec2 out)
+	{
+		return out.set(a11 * x + a12 * y + b1, a21 * x + a22 * y + b2);
+	}
+
+	/**
+	 * Applies this transformation to the first n interleaved (x, y) pairs of src, writing the results into dst (which may be src)
+	 * @param src The points to transform, as interleaved (x, y) pairs
+	 * @param dst The array to write the transformed points into
+	 * @param n The number of points to transform
+	 */
+	public void apply(double[] src, double[] dst, int n)
+	{
+		apply(src, 0, dst, 0, n);
+	}
+
+	/**
+	 * Applies this transformation to n interleaved (x, y) pairs of src, writing the results into dst (which may be src, at the same offset).
+	 * The loop touches only local copies of the six elements and the two arrays, so the JIT keeps everything in registers and unrolls it.
+	 * @param src The points to transform, as interleaved (x, y) pairs
+	 * @param srcOffset The index in src of the first point's x-coordinate
+	 * @param dst The array to write the transformed points into
+	 * @param dstOffset The index in dst to write the first point's x-coordinate at
+	 * @param n The number of points to transform
+	 */
+	public void apply(double[] src, int srcOffset, double[] dst, int dstOffset, int n)
+	{
+		if (n < 0 || srcOffset < 0 || dstOffset < 0 || srcOffset + 2L*n > src.length || dstOffset + 2L*n > dst.length)
+			throw new IndexOutOfBoundsException("Cannot transform " + n + " points from offset " + srcOffset + " of an array of length " + src.length
+					+ " to offset " + dstOffset + " of an array of length " + dst.length);
+
+		final double m11 = a11, m12 = a12, m21 = a21, m22 = a22, t1 = b1, t2 = b2;
+		for (int i=0; i<2*n; i+=2)
+		{
+			double x = src[srcOffset + i];
+			double y = src[srcOffset + i+1];
+			dst[dstOffset + i] = m11 * x + m12 * y + t1;
+			dst[dstOffset + i+1] = m21 * x + m22 * y + t2;
+		}
+	}
+
+	/**
+	 * Copies the six elements into the given array in the order a11, a12, a21, a22, b1, b2 (STRIDE doubles)
+	 * @param dest The array to copy into
+	 * @param offset The index in dest to write a11 at
+	 */
+	public void copyTo(double[] dest, int offset)
+	{
+		dest[offset] = a11;
+		dest[offset+1] = a12;
+		dest[offset+2] = a21;
+		dest[offset+3] = a22;
+		dest[offset+4] = b1;
+		dest[offset+5] = b2;
+	}
+
+	public String toString()
+	{
+		return "[[" + a11 + ", " + a12 + ", " + b1 + "], [" + a21 + ", " + a22 + ", " + b2 + "]]";
+	}
+}
@@ -0,0 +1,97 @@
+package reusable.graphicsPrimitives;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * A Vec2Buffer backed by direct (off-heap), native-ordered floats. The buffer is laid out exactly as OpenGL expects a
+ * tightly packed 2-component GL_FLOAT vertex array, so getBuffer() can be passed straight to glVertexPointer or glBufferData
+ * without copying (see Helpers.drawPolygon). Reading and writing single points is slower than with the array-backed storages,
+ * so prefer it for geometry that's built once and drawn many times.
+ * @author DEMcKnight
+ */
+public class DirectVec2Buffer extends Vec2Buffer
+{
+	/**
+	 * The points, as interleaved (x, y) pairs; only the first 2*size floats are meaningful. Accessed by absolute index only.
+	 */
+	private FloatBuffer data;
+
+	/**
+	 * A view of data handed out by getBuffer, so callers can move its position and limit without disturbing data
+	 */
+	private FloatBuffer view;
+
+	/**
+	 * Creates an empty buffer with room for 16 points
+	 */
+	public DirectVec2Buffer()
+	{
+		this(16);
+	}
+
+	/**
+	 * Creates an empty buffer with room for the given number of points
+	 * @param initialCapacity The number of points to make room for
+	 */
+	public DirectVec2Buffer(int initialCapacity)
+	{
+		data = allocate(Math.max(1, initialCapacity));
+		view = data.duplicate();
+	}
+
+	/**
+	 * Returns the points as a direct, native-ordered FloatBuffer positioned at the first x-coordinate and limited to 2*size() floats.
+	 * The buffer shares storage with this one (it's replaced when this buffer grows).
+	 * @return the points, ready to hand to OpenGL
+	 */
+	public FloatBuffer getBuffer()
+	{
+		view.limit(2*size).position(0);
+		return view;
+	}
+
+	@Override
+	public int capacity()
+	{
+		return data.capacity()/2;
+	}
+
+	@Override
+	public double getX(int index)
+	{
+		return data.get(2*index);
+	}
+
+	@Override
+	public double getY(int index)
+	{
+		return data.get(2*index+1);
+	}
+
+	@Override
+	protected void store(int index, double x, double y)
+	{
+		data.put(2*index, (float)x);
+		data.put(2*index+1, (float)y);
+	}
+
+	@Override
+	protected void grow(int minCapacity)
+	{
+		FloatBuffer grown = allocate(minCapacity);
+		view.limit(2*size).position(0);
+		grown.put(view).clear();
+		data = grown;
+		view = data.duplicate();
+	}
+
+	/**
+	 * Returns a direct, native-ordered FloatBuffer with room for the given number of points
+	 */
+	private static FloatBuffer allocate(int points)
+	{
+		return ByteBuffer.allocateDirect(2*points*4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+}
@@ -0,0 +1,113 @@
+package reusable.graphicsPrimitives;
+
+import java.util.Arrays;
+
+/**
+ * A Vec2Buffer backed by a double[] of interleaved (x, y) pairs, keeping the full precision of Vec2
+ * @author DEMcKnight
+ */
+public class DoubleVec2Buffer extends Vec2Buffer
+{
+	/**
+	 * The points, as interleaved (x, y) pairs; only the first 2*size elements are meaningful
+	 */
+	private double[] data;
+
+	/**
+	 * Creates an empty buffer with room for 16 points
+	 */
+	public DoubleVec2Buffer()
+	{
+		this(16);
+	}
+
+	/**
+	 * Creates an empty buffer with room for the given number of points
+	 * @param initialCapacity The number of points to make room for
+	 */
+	public DoubleVec2Buffer(int initialCapacity)
+	{
+		data = new double[2*Math.max(1, initialCapacity)];
+	}
+
+	/**
+	 * Creates a buffer holding the first n interleaved (x, y) pairs of the given array (copied)
+	 * @param xy The points, as interleaved (x, y) pairs
+	 * @param n The number of points to take
+	 */
+	public DoubleVec2Buffer(double[] xy, int n)
+	{
+		data = Arrays.copyOf(xy, 2*Math.max(1, n));
+		size = n;
+	}
+
+	/**
+	 * Returns the backing array. It's replaced when the buffer grows, and only its first 2*size() elements are meaningful.
+	 * @return the backing array of interleaved (x, y) pairs
+	 */
+	public double[] getData()
+	{
+		return data;
+	}
+
+	@Override
+	public int capacity()
+	{
+		return data.length/2;
+	}
+
+	@Override
+	public double getX(int index)
+	{
+		return data[2*index];
+	}
+
+	@Override
+	public double getY(int index)
+	{
+		return data[2*index+1];
+	}
+
+	@Override
+	protected void store(int index, double x, double y)
+	{
+		data[2*index] = x;
+		data[2*index+1] = y;
+	}
+
+	@Override
+	protected void grow(int minCapacity)
+	{
+		data = Arrays.copyOf(data, 2*minCapacity);
+	}
+
+	@Override
+	public Vec2Buffer transform(Affine2 transform)
+	{
+		transform.apply(data, data, size);
+		return this;
+	}
+
+	@Override
+	public Vec2Buffer translate(double dx, double dy)
+	{
+		for (int i=0, end=2*size; i<end; i+=2)
+		{
+			data[i] += dx;
+			data[i+1] += dy;
+		}
+		return this;
+	}
+
+	@Override
+	public void copyTo(double[] dest, int offset)
+	{
+		System.arraycopy(data, 0, dest, offset, 2*size);
+	}
+
+	@Override
+	public double[] asDoubleArray()
+	{
+		return data;
+	}
+}
@@ -0,0 +1,73 @@
+package reusable.graphicsPrimitives;
+
+import java.util.Arrays;
+
+/**
+ * A Vec2Buffer backed by a float[] of interleaved (x, y) pairs: half the memory of a DoubleVec2Buffer,
+ * at single precision (plenty for screen-space geometry, which OpenGL draws as floats anyway)
+ * @author DEMcKnight
+ */
+public class FloatVec2Buffer extends Vec2Buffer
+{
+	/**
+	 * The points, as interleaved (x, y) pairs; only the first 2*size elements are meaningful
+	 */
+	private float[] data;
+
+	/**
+	 * Creates an empty buffer with room for 16 points
+	 */
+	public FloatVec2Buffer()
+	{
+		this(16);
+	}
+
+	/**
+	 * Creates an empty buffer with room for the given number of points
+	 * @param initialCapacity The number of points to make room for
+	 */
+	public FloatVec2Buffer(int initialCapacity)
+	{
+		data = new float[2*Math.max(1, initialCapacity)];
+	}
+
+	/**
+	 * Returns the backing array. It's replaced when the buffer grows, and only its first 2*size() elements are meaningful.
+	 * @return the backing array of interleaved (x, y) pairs
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	@Override
+	public int capacity()
+	{
+		return data.length/2;
+	}
+
+	@Override
+	public double getX(int index)
+	{
+		return data[2*index];
+	}
+
+	@Override
+	public double getY(int index)
+	{
+		return data[2*index+1];
+	}
+
+	@Override
+	protected void store(int index, double x, double y)
+	{
+		data[2*index] = (float)x;
+		data[2*index+1] = (float)y;
+	}
+
+	@Override
+	protected void grow(int minCapacity)
+	{
+		data = Arrays.copyOf(data, 2*minCapacity);
+	}
+}
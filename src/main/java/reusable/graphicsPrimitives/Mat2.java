@@ -29,7 +29,69 @@ public class Mat2
 		this.a21=a21;
 		this.a22=a22;
 	}
+
+	/**
+	 * Getter for the top-left element of the matrix
+	 * @return a11
+	 */
+	public double getA11()
+	{
+		return a11;
+	}
+
+	/**
+	 * Getter for the top-right element of the matrix
+	 * @return a12
+	 */
+	public double getA12()
+	{
+		return a12;
+	}
+
+	/**
+	 * Getter for the bottom-left element of the matrix
+	 * @return a21
+	 */
+	public double getA21()
+	{
+		return a21;
+	}
+
+	/**
+	 * Getter for the bottom-right element of the matrix
+	 * @return a22
+	 */
+	public double getA22()
+	{
+		return a22;
+	}
 	
+	/**
+	 * Sets all four elements of this matrix at once
+	 * @param a11 The top-left element of the matrix
+	 * @param a12 The top-right element of the matrix
+	 * @param a21 The bottom-left element of the matrix
+	 * @param a22 The bottom-right element of the matrix
+	 * @return A reference to this matrix
+	 */
+	public Mat2 set(double a11, double a12, double a21, double a22)
+	{
+		this.a11=a11;
+		this.a12=a12;
+		this.a21=a21;
+		this.a22=a22;
+		return this;
+	}
+
+	/**
+	 * Returns the determinant of this matrix
+	 * @return a11*a22 - a12*a21
+	 */
+	public double determinant()
+	{
+		return a11*a22 - a12*a21;
+	}
+
 	/**
 	 * Multiplies this 2x2 matrix by the given vector
 	 * @param Multiplicand the vector to multiply this matrix by
@@ -43,6 +105,29 @@ public class Mat2
 	}
 	
 
+	/**
+	 * Multiplies this 2x2 matrix by the given vector, writing the product into out (which may be the multiplicand) instead of allocating
+	 * @param multiplicand the vector to multiply this matrix by
+	 * @param out The vector to write the product into
+	 * @return out
+	 */
+	public Vec2 multiply(Vec2 multiplicand, Vec2 out)
+	{
+		return transform(multiplicand.x, multiplicand.y, out);
+	}
+
+	/**
+	 * Multiplies this 2x2 matrix by the vector (x, y), writing the product into out
+	 * @param x The x-coordinate of the vector to multiply this matrix by
+	 * @param y The y-coordinate of the vector to multiply this matrix by
+	 * @param out The vector to write the product into
+	 * @return out
+	 */
+	public Vec2 transform(double x, double y, Vec2 out)
+	{
+		return out.set(a11 * x + a12 * y, a21 * x + a22 * y);
+	}
+
 	/**
 	 * Multiplies the given matrix by the given vector
 	 * @param multiplier The matrix to multiply by the given multiplicand vector
@@ -70,6 +155,22 @@ public class Mat2
 		double a22 = multiplier.a21 * multiplicand.a12 + multiplier.a22 * multiplicand.a22;
 		return new Mat2(a11, a12, a21, a22);
 	}
+
+	/**
+	 * Matrix-multiplies the two given factors together, writing the product into out (which may be either factor) instead of allocating
+	 * @param multiplier The first factor
+	 * @param multiplicand The second factor
+	 * @param out The matrix to write the product into
+	 * @return out
+	 */
+	public static Mat2 multiply(Mat2 multiplier, Mat2 multiplicand, Mat2 out)
+	{
+		double a11 = multiplier.a11 * multiplicand.a11 + multiplier.a12 * multiplicand.a21;
+		double a12 = multiplier.a11 * multiplicand.a12 + multiplier.a12 * multiplicand.a22;
+		double a21 = multiplier.a21 * multiplicand.a11 + multiplier.a22 * multiplicand.a21;
+		double a22 = multiplier.a21 * multiplicand.a12 + multiplier.a22 * multiplicand.a22;
+		return out.set(a11, a12, a21, a22);
+	}
 	
 	public String toString()
 	{
@@ -97,6 +97,19 @@ public class Vec2
 		this.y=y;
 	}
 	
+	/**
+	 * Sets both of this vector's values at once
+	 * @param x the value to set this vector's x-value to
+	 * @param y the value to set this vector's y-value to
+	 * @return A reference to this vector.
+	 */
+	public Vec2 set(double x, double y)
+	{
+		this.x=x;
+		this.y=y;
+		return this;
+	}
+	
 	/**
 	 * Copies the contents of otherVec into this vector, overwriting values already here
 	 * @param otherVec The vector to copy contents from.
@@ -173,6 +186,19 @@ public class Vec2
 		return this;
 	}
 
+	/**
+	 * Addition assignment by components. Adds the given amounts to this vector's x and y values.
+	 * @param dx The amount to add to x
+	 * @param dy The amount to add to y
+	 * @return A reference to this vector.
+	 */
+	public Vec2 addAssignment (double dx, double dy)
+	{
+		x += dx;
+		y += dy;
+		return this;
+	}
+
 	//Subtraction operators
 
 	/**
@@ -307,7 +333,7 @@ public class Vec2
 	 */
 	public Vec2 elementwiseMult(Vec2 multiplicand)
 	{
-		return new Vec2(multiplicand.getX(), multiplicand.getY());
+		return new Vec2(x * multiplicand.x, y * multiplicand.y);
 	}
 
 	/**
@@ -318,7 +344,7 @@ public class Vec2
 	 */	
 	public Vec2 elementwiseDiv(Vec2 divisor)
 	{
-		return new Vec2(divisor.getX(), divisor.getY());
+		return new Vec2(x / divisor.x, y / divisor.y);
 	}
 
 	/**
@@ -345,8 +371,7 @@ public class Vec2
 	 */
 	public Vec2 normalize()
 	{
-		copy(this.normalized());
-		return this;
+		return divideAssignment(magnitude());
 	}
 
 	/**
@@ -356,7 +381,9 @@ public class Vec2
 	 */
 	public double distanceTo(Vec2 otherVec)
 	{
-		return (this.subtract(otherVec)).magnitude();
+		double dx = x - otherVec.x;
+		double dy = y - otherVec.y;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 	
 	/**
@@ -367,10 +394,10 @@ public class Vec2
 	 */
 	public double distanceToLine(Vec2 point1, Vec2 point2)
 	{
-		Vec2 p12 = point2.subtract(point1);
-		Vec2 p01 = point1.subtract(this);
-		double det = p12.getX()*p01.getY() - p12.getY() * p01.getX();
-		det/=p12.getX();
+		double p12x = point2.x - point1.x, p12y = point2.y - point1.y;
+		double p01x = point1.x - x, p01y = point1.y - y;
+		double det = p12x*p01y - p12y * p01x;
+		det/=p12x;
 		return det<0? - det : det;
 	}
 
@@ -476,21 +503,7 @@ public class Vec2
 	 */
 	public static Vec2 closestPointOnLine(Vec2 point, Vec2 l1, Vec2 l2)
 	{
-		
-		//vector from l1 to l2
-		Vec2 lineVector = l2.subtract(l1);
-		
-		//vector from l1 to point
-		Vec2 segEndToPoint = point.subtract(l1);
-		
-		//get scalar projection amount
-		double scalProj = Vec2.dot(segEndToPoint, lineVector)/lineVector.magnitude();
-		
-		//get ortho projection vector
-		Vec2 orthogonalProj = lineVector.normalized().multiply(scalProj);
-		
-		//add projection vector to original point
-		return l1.add(orthogonalProj);
+		return closestPointOnLine(point, l1, l2, new Vec2(0, 0));
 	}
 	
 	
@@ -560,4 +573,123 @@ public class Vec2
 		}
 		return closestPoint;
 	}
-}
\ No newline at end of file
+	
+	//Out-parameter versions of the operators above. These write their result into out (which may be one of the operands)
+	//and return it, so they never allocate. Prefer them in code that runs per flake or per point every frame.
+
+	/**
+	 * Vector addition into out. Sets out to the sum of the given augend and addend.
+	 * @param augend
+	 * @param addend
+	 * @param out The vector to write the sum into
+	 * @return out
+	 */
+	public static Vec2 add(Vec2 augend, Vec2 addend, Vec2 out)
+	{
+		return out.set(augend.x + addend.x, augend.y + addend.y);
+	}
+
+	/**
+	 * Vector subtraction into out. Sets out to the difference of the given minuend and subtrahend.
+	 * @param minuend
+	 * @param subtrahend
+	 * @param out The vector to write the difference into
+	 * @return out
+	 */
+	public static Vec2 subtract(Vec2 minuend, Vec2 subtrahend, Vec2 out)
+	{
+		return out.set(minuend.x - subtrahend.x, minuend.y - subtrahend.y);
+	}
+
+	/**
+	 * Scalar multiplication into out. Sets out to the product of the given vector and scalar.
+	 * @param multiplier
+	 * @param scalar
+	 * @param out The vector to write the product into
+	 * @return out
+	 */
+	public static Vec2 multiply(Vec2 multiplier, double scalar, Vec2 out)
+	{
+		return out.set(multiplier.x * scalar, multiplier.y * scalar);
+	}
+
+	/**
+	 * Scaled addition into out. Sets out to augend + addend*scalar (e.g., position + direction*distance) without a temporary.
+	 * @param augend
+	 * @param addend
+	 * @param scalar The amount to scale addend by before adding it
+	 * @param out The vector to write the result into
+	 * @return out
+	 */
+	public static Vec2 scaleAdd(Vec2 augend, Vec2 addend, double scalar, Vec2 out)
+	{
+		return out.set(augend.x + addend.x * scalar, augend.y + addend.y * scalar);
+	}
+
+	/**
+	 * Element-wise multiplication into out. Sets out to the element-wise product of the given multiplier and multiplicand.
+	 * @param multiplier
+	 * @param multiplicand
+	 * @param out The vector to write the product into
+	 * @return out
+	 */
+	public static Vec2 elementwiseMult(Vec2 multiplier, Vec2 multiplicand, Vec2 out)
+	{
+		return out.set(multiplier.x * multiplicand.x, multiplier.y * multiplicand.y);
+	}
+
+	/**
+	 * Rotation into out. Sets out to the given vector rotated counterclockwise by the given angle.
+	 * @param vector
+	 * @param radians The angle to rotate by, in radians
+	 * @param out The vector to write the rotated vector into
+	 * @return out
+	 */
+	public static Vec2 rotate(Vec2 vector, double radians, Vec2 out)
+	{
+		double cos = Math.cos(radians);
+		double sin = Math.sin(radians);
+		return out.set(cos*vector.x - sin*vector.y, sin*vector.x + cos*vector.y);
+	}
+
+	/**
+	 * Normalization into out. Sets out to the unit vector pointing the same way as the given vector.
+	 * @param vector
+	 * @param out The vector to write the normalized vector into
+	 * @return out
+	 */
+	public static Vec2 normalize(Vec2 vector, Vec2 out)
+	{
+		double magnitude = vector.magnitude();
+		return out.set(vector.x / magnitude, vector.y / magnitude);
+	}
+
+	/**
+	 * Linear interpolation into out. Sets out to the point the given fraction of the way from one vector to another.
+	 * @param from The vector at fraction 0
+	 * @param to The vector at fraction 1
+	 * @param fraction How far from from to to to go
+	 * @param out The vector to write the interpolated vector into
+	 * @return out
+	 */
+	public static Vec2 lerp(Vec2 from, Vec2 to, double fraction, Vec2 out)
+	{
+		return out.set(from.x + (to.x - from.x) * fraction, from.y + (to.y - from.y) * fraction);
+	}
+
+	/**
+	 * Closest point on a line into out (see closestPointOnLine)
+	 * @param point the point to which we're finding the closest point on the line
+	 * @param l1 one end of the line segment
+	 * @param l2 the other end of the line segment
+	 * @param out The vector to write the closest point into
+	 * @return out
+	 */
+	public static Vec2 closestPointOnLine(Vec2 point, Vec2 l1, Vec2 l2, Vec2 out)
+	{
+		//Project l1->point onto l1->l2
+		double lineX = l2.x - l1.x, lineY = l2.y - l1.y;
+		double fraction = ((point.x - l1.x) * lineX + (point.y - l1.y) * lineY) / (lineX * lineX + lineY * lineY);
+		return out.set(l1.x + lineX * fraction, l1.y + lineY * fraction);
+	}
+}
@@ -0,0 +1,406 @@
+package reusable.graphicsPrimitives;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable list of 2D points packed as interleaved (x, y) pairs in a single primitive array, instead of one Vec2 object per point.
+ * A Vec2 costs a 16-byte object header and a 4-8 byte reference on top of its 16 bytes of coordinates, so packing the coordinates
+ * more than halves the memory a list of points takes (and keeps them contiguous for the cache).
+ * <p>
+ * Three storages are available: DoubleVec2Buffer (a double[], the same precision as Vec2), FloatVec2Buffer (a float[], half again)
+ * and DirectVec2Buffer (native-ordered off-heap floats, which can be handed to OpenGL as a vertex array without copying).
+ * <p>
+ * Not thread-safe.
+ * @author DEMcKnight
+ */
+public abstract class Vec2Buffer implements Iterable<Vec2>
+{
+	/**
+	 * The number of points in the buffer
+	 */
+	protected int size = 0;
+
+	/**
+	 * Receives the points of a buffer one at a time (see forEach)
+	 */
+	@FunctionalInterface
+	public interface PointConsumer
+	{
+		/**
+		 * Receives one point
+		 * @param index The point's index in the buffer
+		 * @param x The point's x-coordinate
+		 * @param y The point's y-coordinate
+		 */
+		void accept(int index, double x, double y);
+	}
+
+	//Storage
+
+	/**
+	 * Returns the number of points the buffer can hold before it has to grow
+	 * @return the capacity of the buffer, in points
+	 */
+	public abstract int capacity();
+
+	/**
+	 * Returns the x-coordinate of the given point
+	 * @param index The index of the point, in [0, size())
+	 * @return the x-coordinate of the point
+	 */
+	public abstract double getX(int index);
+
+	/**
+	 * Returns the y-coordinate of the given point
+	 * @param index The index of the point, in [0, size())
+	 * @return the y-coordinate of the point
+	 */
+	public abstract double getY(int index);
+
+	/**
+	 * Writes the given coordinates into the storage at the given index (which is already checked against the capacity)
+	 */
+	protected abstract void store(int index, double x, double y);
+
+	/**
+	 * Grows the storage to hold at least the given number of points, keeping the first size points
+	 */
+	protected abstract void grow(int minCapacity);
+
+	//Size
+
+	/**
+	 * Returns the number of points in the buffer
+	 * @return the number of points in the buffer
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns true if the buffer holds no points
+	 * @return true if the buffer holds no points; false, otherwise
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Removes every point, keeping the storage for reuse
+	 * @return this buffer
+	 */
+	public Vec2Buffer clear()
+	{
+		size = 0;
+		return this;
+	}
+
+	/**
+	 * Makes sure the buffer can hold the given number of points without growing again
+	 * @param minCapacity The number of points to make room for
+	 * @return this buffer
+	 */
+	public Vec2Buffer ensureCapacity(int minCapacity)
+	{
+		if (minCapacity > capacity())
+			grow(Math.max(minCapacity, 2*capacity()));
+		return this;
+	}
+
+	//Element access
+
+	/**
+	 * Copies the given point into out
+	 * @param index The index of the point, in [0, size())
+	 * @param out The vector to store the point in
+	 * @return out
+	 */
+	public Vec2 get(int index, Vec2 out)
+	{
+		checkIndex(index);
+		return out.set(getX(index), getY(index));
+	}
+
+	/**
+	 * Overwrites the given point
+	 * @param index The index of the point, in [0, size())
+	 * @param x The new x-coordinate
+	 * @param y The new y-coordinate
+	 * @return this buffer
+	 */
+	public Vec2Buffer set(int index, double x, double y)
+	{
+		checkIndex(index);
+		store(index, x, y);
+		return this;
+	}
+
+	/**
+	 * Appends a point, growing the buffer if it's full
+	 * @param x The x-coordinate of the point
+	 * @param y The y-coordinate of the point
+	 * @return this buffer
+	 */
+	public Vec2Buffer add(double x, double y)
+	{
+		ensureCapacity(size + 1);
+		store(size++, x, y);
+		return this;
+	}
+
+	/**
+	 * Appends a copy of the given point, growing the buffer if it's full
+	 * @param point The point to append
+	 * @return this buffer
+	 */
+	public Vec2Buffer add(Vec2 point)
+	{
+		return add(point.getX(), point.getY());
+	}
+
+	/**
+	 * Appends a copy of every given point
+	 * @param points The points to append
+	 * @return this buffer
+	 */
+	public Vec2Buffer addAll(List<Vec2> points)
+	{
+		ensureCapacity(size + points.size());
+		for (int i=0; i<points.size(); i++)
+			store(size++, points.get(i).getX(), points.get(i).getY());
+		return this;
+	}
+
+	//Bulk transforms
+
+	/**
+	 * Replaces every point p with m*p + (dx, dy)
+	 * @param m The linear part of the transform
+	 * @param dx The horizontal offset applied after m
+	 * @param dy The vertical offset applied after m
+	 * @return this buffer
+	 */
+	public Vec2Buffer transform(Mat2 m, double dx, double dy)
+	{
+		double a11 = m.getA11(), a12 = m.getA12(), a21 = m.getA21(), a22 = m.getA22();
+		for (int i=0; i<size; i++)
+		{
+			double x = getX(i), y = getY(i);
+			store(i, a11*x + a12*y + dx, a21*x + a22*y + dy);
+		}
+		return this;
+	}
+
+	/**
+	 * Replaces every point p with the given affine transformation of it
+	 * @param transform The transformation to apply
+	 * @return this buffer
+	 */
+	public Vec2Buffer transform(Affine2 transform)
+	{
+		double a11 = transform.getA11(), a12 = transform.getA12(), a21 = transform.getA21(), a22 = transform.getA22();
+		double b1 = transform.getB1(), b2 = transform.getB2();
+		for (int i=0; i<size; i++)
+		{
+			double x = getX(i), y = getY(i);
+			store(i, a11*x + a12*y + b1, a21*x + a22*y + b2);
+		}
+		return this;
+	}
+
+	/**
+	 * Moves every point by (dx, dy)
+	 * @param dx The horizontal offset
+	 * @param dy The vertical offset
+	 * @return this buffer
+	 */
+	public Vec2Buffer translate(double dx, double dy)
+	{
+		for (int i=0; i<size; i++)
+			store(i, getX(i) + dx, getY(i) + dy);
+		return this;
+	}
+
+	/**
+	 * Scales every point about the origin
+	 * @param sx The horizontal scale factor
+	 * @param sy The vertical scale factor
+	 * @return this buffer
+	 */
+	public Vec2Buffer scale(double sx, double sy)
+	{
+		for (int i=0; i<size; i++)
+			store(i, getX(i)*sx, getY(i)*sy);
+		return this;
+	}
+
+	/**
+	 * Rotates every point counterclockwise about the given center
+	 * @param radians The angle to rotate by
+	 * @param centerX The x-coordinate of the center of rotation
+	 * @param centerY The y-coordinate of the center of rotation
+	 * @return this buffer
+	 */
+	public Vec2Buffer rotate(double radians, double centerX, double centerY)
+	{
+		double cos = Math.cos(radians), sin = Math.sin(radians);
+		for (int i=0; i<size; i++)
+		{
+			double x = getX(i) - centerX, y = getY(i) - centerY;
+			store(i, cos*x - sin*y + centerX, sin*x + cos*y + centerY);
+		}
+		return this;
+	}
+
+	//Queries
+
+	/**
+	 * Stores the smallest axis-aligned rectangle containing every point in out (an empty rectangle at the origin if there are none)
+	 * @param out The rectangle to store the bounds in
+	 * @return out
+	 */
+	public Rectangle2D getBounds(Rectangle2D out)
+	{
+		if (size == 0)
+		{
+			out.setRect(0, 0, 0, 0);
+			return out;
+		}
+
+		double minX = getX(0), maxX = minX, minY = getY(0), maxY = minY;
+		for (int i=1; i<size; i++)
+		{
+			double x = getX(i), y = getY(i);
+			if (x < minX)
+				minX = x;
+			else if (x > maxX)
+				maxX = x;
+			if (y < minY)
+				minY = y;
+			else if (y > maxY)
+				maxY = y;
+		}
+		out.setRect(minX, minY, maxX - minX, maxY - minY);
+		return out;
+	}
+
+	/**
+	 * Stores the mean of the points in out (the origin if there are none)
+	 * @param out The vector to store the centroid in
+	 * @return out
+	 */
+	public Vec2 getCentroid(Vec2 out)
+	{
+		double sumX = 0, sumY = 0;
+		for (int i=0; i<size; i++)
+		{
+			sumX += getX(i);
+			sumY += getY(i);
+		}
+		return size == 0 ? out.set(0, 0) : out.set(sumX/size, sumY/size);
+	}
+
+	//Iteration and copying
+
+	/**
+	 * Hands every point, in order, to the given consumer without creating any Vec2s
+	 * @param action The consumer to hand the points to
+	 */
+	public void forEach(PointConsumer action)
+	{
+		for (int i=0; i<size; i++)
+			action.accept(i, getX(i), getY(i));
+	}
+
+	/**
+	 * Returns an iterator over the points. To avoid allocating per point, the iterator hands back the same Vec2 every time,
+	 * overwritten with the next point; copy it (makeCopy) to keep a point past the next call to next().
+	 */
+	@Override
+	public Iterator<Vec2> iterator()
+	{
+		return new Iterator<Vec2>()
+		{
+			private final Vec2 cursor = new Vec2(0, 0);
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < size;
+			}
+
+			@Override
+			public Vec2 next()
+			{
+				if (next >= size)
+					throw new NoSuchElementException();
+				cursor.set(getX(next), getY(next));
+				next++;
+				return cursor;
+			}
+		};
+	}
+
+	/**
+	 * Copies the points into the given array as interleaved (x, y) pairs
+	 * @param dest The array to copy into
+	 * @param offset The index in dest to store the first point's x-coordinate at
+	 */
+	public void copyTo(double[] dest, int offset)
+	{
+		for (int i=0; i<size; i++)
+		{
+			dest[offset + 2*i] = getX(i);
+			dest[offset + 2*i+1] = getY(i);
+		}
+	}
+
+	/**
+	 * Returns the points as interleaved (x, y) pairs in a double[] of at least 2*size() elements, for the drawing methods that take one.
+	 * Storages backed by a double[] return it directly (so it's only valid until the buffer next grows); the others return a copy.
+	 * @return the points as interleaved (x, y) pairs
+	 */
+	public double[] asDoubleArray()
+	{
+		double[] xy = new double[2*size];
+		copyTo(xy, 0);
+		return xy;
+	}
+
+	/**
+	 * Returns a new list holding a Vec2 for every point, for the methods that still take an ArrayList
+	 * @return the points as a list of new Vec2s
+	 */
+	public ArrayList<Vec2> toList()
+	{
+		ArrayList<Vec2> points = new ArrayList<Vec2>(size);
+		for (int i=0; i<size; i++)
+			points.add(new Vec2(getX(i), getY(i)));
+		return points;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder s = new StringBuilder("[");
+		for (int i=0; i<size; i++)
+			s.append(i == 0 ? "" : ", ").append('(').append(getX(i)).append(", ").append(getY(i)).append(')');
+		return s.append(']').toString();
+	}
+
+	/**
+	 * Throws an IndexOutOfBoundsException if the given index isn't that of a point in the buffer
+	 */
+	protected void checkIndex(int index)
+	{
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + size + " points");
+	}
+}
@@ -0,0 +1,66 @@
+package reusable.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A named number reported alongside the span timers: either a running total (e.g. vertices submitted) that's added to,
+ * or a level (e.g. flakes alive) that's set. Safe to update from any thread.
+ * @author DEMcKnight
+ */
+public final class Counter
+{
+	/**
+	 * The name this counter is reported under
+	 */
+	private final String name;
+
+	/**
+	 * The counter's value
+	 */
+	private final AtomicLong value = new AtomicLong();
+
+	/**
+	 * Prepares a counter. Use Instrumentation.counter to get one that's reported.
+	 * @param name The name to report this counter under
+	 */
+	Counter(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name this counter is reported under
+	 * @return the name this counter is reported under
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Adds to this counter
+	 * @param delta The amount to add
+	 */
+	public void add(long delta)
+	{
+		value.addAndGet(delta);
+	}
+
+	/**
+	 * Replaces this counter's value
+	 * @param newValue The new value
+	 */
+	public void set(long newValue)
+	{
+		value.set(newValue);
+	}
+
+	/**
+	 * Returns this counter's value
+	 * @return this counter's value
+	 */
+	public long get()
+	{
+		return value.get();
+	}
+}
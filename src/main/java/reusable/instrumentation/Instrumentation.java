@@ -0,0 +1,212 @@
+package reusable.instrumentation;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The registry of every SpanTimer and Counter in the program, and the ways of getting at them from outside:
+ * a JMX MXBean (registerMBean) and a text report (report), optionally printed periodically (startPeriodicDump).
+ * Timers and counters are always on; classes look theirs up once, by name, and keep them in static fields.
+ * @author DEMcKnight
+ */
+public final class Instrumentation
+{
+	/**
+	 * The name the MXBean is registered under
+	 */
+	public static final String OBJECT_NAME = "winter:type=Instrumentation";
+
+	/**
+	 * Every timer, by name
+	 */
+	private static final Map<String, SpanTimer> timers = new ConcurrentSkipListMap<String, SpanTimer>();
+
+	/**
+	 * Every counter, by name
+	 */
+	private static final Map<String, Counter> counters = new ConcurrentSkipListMap<String, Counter>();
+
+	/**
+	 * Prints the report periodically, or null if it isn't being printed
+	 */
+	private static ScheduledExecutorService dumper;
+
+	private Instrumentation()
+	{
+	}
+
+	/**
+	 * Returns the timer with the given name, creating it if it doesn't exist yet
+	 * @param name The name of the timer
+	 * @return the timer with the given name
+	 */
+	public static SpanTimer timer(String name)
+	{
+		return timers.computeIfAbsent(name, SpanTimer::new);
+	}
+
+	/**
+	 * Returns the counter with the given name, creating it if it doesn't exist yet
+	 * @param name The name of the counter
+	 * @return the counter with the given name
+	 */
+	public static Counter counter(String name)
+	{
+		return counters.computeIfAbsent(name, Counter::new);
+	}
+
+	/**
+	 * Returns a table of the span count and duration statistics of every timer that has recorded anything, followed by every counter's value
+	 * @return a text report of the timers and counters
+	 */
+	public static String report()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append(String.format(Locale.ROOT, "%-20s %10s %10s %10s %10s %10s%n", "span", "count", "mean ms", "p50 ms", "p99 ms", "max ms"));
+		for (SpanTimer timer : timers.values())
+		{
+			LatencyHistogram h = timer.getHistogram();
+			if (h.getCount() == 0)
+				continue;
+			report.append(String.format(Locale.ROOT, "%-20s %10d %10.3f %10.3f %10.3f %10.3f%n", timer.getName(), h.getCount(),
+					h.getMean()/1e6, h.getValueAtPercentile(50)/1e6, h.getValueAtPercentile(99)/1e6, h.getMax()/1e6));
+		}
+		for (Counter counter : counters.values())
+			report.append(String.format(Locale.ROOT, "%-20s %10d%n", counter.getName(), counter.get()));
+		return report.toString();
+	}
+
+	/**
+	 * Registers the MXBean with the platform MBean server (under OBJECT_NAME), if it isn't already registered.
+	 * Instrumentation is never worth failing over, so this reports failure (e.g. a restricted MBean server) instead of throwing.
+	 * @param err The stream to print a warning to if registration fails
+	 * @return true if the MXBean is registered once this returns; false, otherwise
+	 */
+	public static synchronized boolean registerMBean(PrintStream err)
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(new MXBean(), name);
+			return true;
+		}
+		catch (JMException | SecurityException e)
+		{
+			err.println("Could not register " + OBJECT_NAME + ", continuing without JMX statistics: " + e);
+			return false;
+		}
+	}
+
+	/**
+	 * Prints the report to the given stream every period, on a background (daemon) thread, replacing any earlier periodic dump
+	 * @param period The time between reports
+	 * @param unit The unit of period
+	 * @param out The stream to print the reports to
+	 */
+	public static synchronized void startPeriodicDump(long period, TimeUnit unit, PrintStream out)
+	{
+		stopPeriodicDump();
+		dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "Instrumentation dump");
+			thread.setDaemon(true);
+			return thread;
+		});
+		dumper.scheduleAtFixedRate(() -> out.print(report()), period, period, unit);
+	}
+
+	/**
+	 * Stops printing the report periodically, if it's being printed
+	 */
+	public static synchronized void stopPeriodicDump()
+	{
+		if (dumper != null)
+			dumper.shutdownNow();
+		dumper = null;
+	}
+
+	/**
+	 * Applies the given statistic to every timer, keyed by the timer's name
+	 */
+	private static Map<String, Double> timerStatistic(ToDoubleFunction<LatencyHistogram> statistic)
+	{
+		Map<String, Double> values = new TreeMap<String, Double>();
+		for (SpanTimer timer : timers.values())
+			values.put(timer.getName(), statistic.applyAsDouble(timer.getHistogram()));
+		return values;
+	}
+
+	/**
+	 * The MXBean, reading straight from the registry
+	 */
+	private static final class MXBean implements InstrumentationMXBean
+	{
+		@Override
+		public Map<String, Long> getSpanCounts()
+		{
+			Map<String, Long> values = new TreeMap<String, Long>();
+			for (SpanTimer timer : timers.values())
+				values.put(timer.getName(), timer.getHistogram().getCount());
+			return values;
+		}
+
+		@Override
+		public Map<String, Double> getMeanMillis()
+		{
+			return timerStatistic(h -> h.getMean()/1e6);
+		}
+
+		@Override
+		public Map<String, Double> getP50Millis()
+		{
+			return timerStatistic(h -> h.getValueAtPercentile(50)/1e6);
+		}
+
+		@Override
+		public Map<String, Double> getP99Millis()
+		{
+			return timerStatistic(h -> h.getValueAtPercentile(99)/1e6);
+		}
+
+		@Override
+		public Map<String, Double> getMaxMillis()
+		{
+			return timerStatistic(h -> h.getMax()/1e6);
+		}
+
+		@Override
+		public Map<String, Long> getCounters()
+		{
+			Map<String, Long> values = new TreeMap<String, Long>();
+			for (Counter counter : counters.values())
+				values.put(counter.getName(), counter.get());
+			return values;
+		}
+
+		@Override
+		public String getReport()
+		{
+			return report();
+		}
+
+		@Override
+		public void resetTimers()
+		{
+			for (SpanTimer timer : timers.values())
+				timer.reset();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package reusable.instrumentation;
+
+import java.util.Map;
+
+/**
+ * The JMX view of every SpanTimer and Counter (see Instrumentation.registerMBean), keyed by name.
+ * Times are in milliseconds.
+ * @author DEMcKnight
+ */
+public interface InstrumentationMXBean
+{
+	/**
+	 * Returns the number of spans each timer has recorded
+	 * @return the number of spans each timer has recorded
+	 */
+	Map<String, Long> getSpanCounts();
+
+	/**
+	 * Returns each timer's mean span duration
+	 * @return each timer's mean span duration, in milliseconds
+	 */
+	Map<String, Double> getMeanMillis();
+
+	/**
+	 * Returns each timer's median span duration
+	 * @return each timer's median span duration, in milliseconds
+	 */
+	Map<String, Double> getP50Millis();
+
+	/**
+	 * Returns each timer's 99th percentile span duration
+	 * @return each timer's 99th percentile span duration, in milliseconds
+	 */
+	Map<String, Double> getP99Millis();
+
+	/**
+	 * Returns each timer's longest span
+	 * @return each timer's longest span, in milliseconds
+	 */
+	Map<String, Double> getMaxMillis();
+
+	/**
+	 * Returns each counter's value
+	 * @return each counter's value
+	 */
+	Map<String, Long> getCounters();
+
+	/**
+	 * Returns the same text report as the periodic dump
+	 * @return a text report of every timer and counter
+	 */
+	String getReport();
+
+	/**
+	 * Forgets every timer's spans (the counters are left alone)
+	 */
+	void resetTimers();
+}
@@ -0,0 +1,163 @@
+package reusable.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size histogram of non-negative durations (in nanoseconds) with log-linear buckets: every power of two is split into
+ * SUB_BUCKETS equal buckets, so any recorded value is known to within about 6% from a nanosecond up to centuries,
+ * without allocating or resizing. Recording is lock-free and safe from any number of threads.
+ * @author DEMcKnight
+ */
+public final class LatencyHistogram
+{
+	/**
+	 * log2 of the number of buckets each power of two is split into
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+
+	/**
+	 * The number of buckets each power of two is split into. Values below this get a bucket each.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The number of buckets needed to cover every non-negative long
+	 */
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS)*SUB_BUCKETS;
+
+	/**
+	 * The number of values recorded in each bucket
+	 */
+	private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+
+	/**
+	 * The number of values recorded
+	 */
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * The sum of the values recorded
+	 */
+	private final AtomicLong total = new AtomicLong();
+
+	/**
+	 * The largest value recorded
+	 */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a value, treating negative values as 0
+	 * @param value The value to record, in nanoseconds
+	 */
+	public void record(long value)
+	{
+		if (value < 0)
+			value = 0;
+
+		counts.incrementAndGet(bucketOf(value));
+		count.incrementAndGet();
+		total.addAndGet(value);
+
+		//Only contend on max when there's a new maximum, which quickly becomes rare
+		long m = max.get();
+		while (value > m && !max.compareAndSet(m, value))
+			m = max.get();
+	}
+
+	/**
+	 * Returns the number of values recorded
+	 * @return the number of values recorded
+	 */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * Returns the largest value recorded (exactly)
+	 * @return the largest value recorded, or 0 if none have been
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Returns the mean of the values recorded (exactly, barring concurrent recording)
+	 * @return the mean of the values recorded, or 0 if none have been
+	 */
+	public double getMean()
+	{
+		long n = count.get();
+		return n == 0 ? 0 : (double)total.get()/n;
+	}
+
+	/**
+	 * Returns a value that at least the given percentage of the recorded values are less than or equal to.
+	 * The result is the top of the bucket that value falls in, so it overestimates by at most one bucket's width (about 6%).
+	 * @param percentile The percentage of values to cover, in [0, 100]
+	 * @return the value at the given percentile, or 0 if nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile)
+	{
+		if (percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("The percentile must be between 0 and 100, got " + percentile);
+
+		//Add the buckets up rather than trusting count, which may have moved on since
+		long n = 0;
+		for (int i=0; i<NUM_BUCKETS; i++)
+			n += counts.get(i);
+		if (n == 0)
+			return 0;
+
+		long rank = Math.max(1, (long)Math.ceil(percentile/100*n));
+		long seen = 0;
+		for (int i=0; i<NUM_BUCKETS; i++)
+		{
+			seen += counts.get(i);
+			if (seen >= rank)
+				return Math.min(highestValueIn(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Forgets every recorded value. Values recorded while resetting may be partially forgotten.
+	 */
+	public void reset()
+	{
+		for (int i=0; i<NUM_BUCKETS; i++)
+			counts.set(i, 0);
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Returns the bucket the given non-negative value is counted in
+	 */
+	static int bucketOf(long value)
+	{
+		if (value < SUB_BUCKETS)
+			return (int)value;
+
+		//The highest set bit picks the power of two; the SUB_BUCKET_BITS bits below it pick the bucket within it
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1)*SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Returns the largest value counted in the given bucket
+	 */
+	static long highestValueIn(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int shift = bucket/SUB_BUCKETS - 1;
+		long lowest = (long)(SUB_BUCKETS + bucket%SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,148 @@
+package reusable.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Times one named stretch of code (a span), e.g. one frame or one subsystem's share of a frame.
+ * Every span goes into a LatencyHistogram, and the most recent RING_SIZE spans' start times and durations are kept in a
+ * preallocated ring buffer, so an individual spike can be found and lined up against other spans after the fact.
+ * Timing a span costs two System.nanoTime() calls and a few uncontended atomic updates, and never allocates.
+ * <p>
+ * Usage: {@code long start = timer.start(); ...; timer.stop(start);}
+ * <p>
+ * A timer's spans should be recorded by one thread at a time; concurrent recorders keep the histogram exact but may overwrite
+ * each other's ring entries.
+ * @author DEMcKnight
+ */
+public final class SpanTimer
+{
+	/**
+	 * The number of recent spans kept (a power of two)
+	 */
+	public static final int RING_SIZE = 1024;
+
+	/**
+	 * The name this timer is reported under
+	 */
+	private final String name;
+
+	/**
+	 * Every span's duration
+	 */
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * The start times (System.nanoTime) of the most recent spans, indexed by span number mod RING_SIZE
+	 */
+	private final long[] ringStarts = new long[RING_SIZE];
+
+	/**
+	 * The durations of the most recent spans, in nanoseconds, indexed like ringStarts
+	 */
+	private final long[] ringDurations = new long[RING_SIZE];
+
+	/**
+	 * The number of spans recorded. Published after the span's ring entry is written.
+	 */
+	private final AtomicLong recorded = new AtomicLong();
+
+	/**
+	 * Prepares a timer. Use Instrumentation.timer to get one that's reported.
+	 * @param name The name to report this timer under
+	 */
+	SpanTimer(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Returns the name this timer is reported under
+	 * @return the name this timer is reported under
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Begins a span
+	 * @return the span's start time, to pass to stop
+	 */
+	public long start()
+	{
+		return System.nanoTime();
+	}
+
+	/**
+	 * Ends a span begun by start
+	 * @param startNanos The value start returned
+	 * @return the span's end time, which can be used as the start of a following span
+	 */
+	public long stop(long startNanos)
+	{
+		long end = System.nanoTime();
+		record(startNanos, end - startNanos);
+		return end;
+	}
+
+	/**
+	 * Records a span that was timed elsewhere
+	 * @param startNanos When the span started (System.nanoTime)
+	 * @param durationNanos How long the span took, in nanoseconds
+	 */
+	public void record(long startNanos, long durationNanos)
+	{
+		long n = recorded.get();
+		int slot = (int)n & (RING_SIZE - 1);
+		ringStarts[slot] = startNanos;
+		ringDurations[slot] = durationNanos;
+		recorded.lazySet(n + 1);
+		histogram.record(durationNanos);
+	}
+
+	/**
+	 * Returns the number of spans recorded since this timer was created (reset doesn't affect it)
+	 * @return the number of spans recorded
+	 */
+	public long getCount()
+	{
+		return recorded.get();
+	}
+
+	/**
+	 * Returns the histogram of every span's duration
+	 * @return the histogram of every span's duration, in nanoseconds
+	 */
+	public LatencyHistogram getHistogram()
+	{
+		return histogram;
+	}
+
+	/**
+	 * Copies the most recent spans (up to the arrays' length or RING_SIZE, oldest first) into the given arrays.
+	 * Spans recorded during the copy may show up torn, so treat the result as a diagnostic sample.
+	 * @param starts The array to copy the spans' start times (System.nanoTime) into
+	 * @param durations The array to copy the spans' durations (in nanoseconds) into
+	 * @return the number of spans copied
+	 */
+	public int copyRecent(long[] starts, long[] durations)
+	{
+		long n = recorded.get();
+		int copied = (int)Math.min(Math.min(n, RING_SIZE), Math.min(starts.length, durations.length));
+		for (int i=0; i<copied; i++)
+		{
+			int slot = (int)(n - copied + i) & (RING_SIZE - 1);
+			starts[i] = ringStarts[slot];
+			durations[i] = ringDurations[slot];
+		}
+		return copied;
+	}
+
+	/**
+	 * Forgets every span recorded so far from the histogram (the ring buffer keeps rolling over as usual)
+	 */
+	public void reset()
+	{
+		histogram.reset();
+	}
+}
@@ -0,0 +1,94 @@
+package reusable.rendering;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2;
+import javax.media.opengl.fixedfunc.GLPointerFunc;
+
+/**
+ * Draws VertexBatches with OpenGL, one draw call per batch.
+ * Each batch is streamed into a single vertex buffer object that's re-specified every draw (GL_STREAM_DRAW),
+ * so the driver can hand back fresh storage instead of waiting for the previous frame's draw to finish with it.
+ * Owns GL resources: create it and use it on the thread the GL context is current on, and call dispose when done.
+ * @author DEMcKnight
+ */
+public class BatchRenderer
+{
+	/**
+	 * The name of the vertex buffer object, or 0 if it hasn't been created yet
+	 */
+	private int vbo = 0;
+
+	/**
+	 * Direct (native-ordered) staging memory the batches are copied through on their way to the vertex buffer
+	 */
+	private FloatBuffer staging = newFloatBuffer(1024*VertexBatch.FLOATS_PER_VERTEX);
+
+	/**
+	 * Draws the given batch's vertices as primitives of the given mode, using each vertex's own color
+	 * @param gl
+	 * @param batch The batch to draw
+	 * @param mode The kind of primitive to draw the vertices as (e.g., GL.GL_TRIANGLES or GL.GL_LINES)
+	 */
+	public void draw(GL gl, VertexBatch batch, int mode)
+	{
+		int count = batch.getVertexCount();
+		if (count == 0)
+			return;
+
+		GL2 gl2 = gl.getGL2();
+		if (vbo == 0)
+		{
+			int[] names = new int[1];
+			gl2.glGenBuffers(1, names, 0);
+			vbo = names[0];
+		}
+
+		int floats = count*VertexBatch.FLOATS_PER_VERTEX;
+		if (staging.capacity() < floats)
+			staging = newFloatBuffer(Math.max(floats, 2*staging.capacity()));
+		staging.clear();
+		batch.copyTo(staging);
+		staging.flip();
+
+		//Upload this frame's vertices, then point the fixed-function position and color arrays into the interleaved buffer
+		gl2.glBindBuffer(GL.GL_ARRAY_BUFFER, vbo);
+		gl2.glBufferData(GL.GL_ARRAY_BUFFER, (long)floats*4, staging, GL2.GL_STREAM_DRAW);
+		gl2.glEnableClientState(GLPointerFunc.GL_VERTEX_ARRAY);
+		gl2.glEnableClientState(GLPointerFunc.GL_COLOR_ARRAY);
+		gl2.glVertexPointer(2, GL.GL_FLOAT, VertexBatch.STRIDE_BYTES, 0);
+		gl2.glColorPointer(4, GL.GL_FLOAT, VertexBatch.STRIDE_BYTES, VertexBatch.COLOR_OFFSET_BYTES);
+
+		//Colors may be translucent, so blend like Helpers.setColor does
+		gl2.glEnable(GL.GL_BLEND);
+		gl2.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+		gl2.glDrawArrays(mode, 0, count);
+
+		gl2.glDisableClientState(GLPointerFunc.GL_COLOR_ARRAY);
+		gl2.glDisableClientState(GLPointerFunc.GL_VERTEX_ARRAY);
+		gl2.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Releases the vertex buffer object. The renderer can still be used afterwards; it'll create a new one.
+	 * @param gl
+	 */
+	public void dispose(GL gl)
+	{
+		if (vbo == 0)
+			return;
+		gl.glDeleteBuffers(1, new int[]{vbo}, 0);
+		vbo = 0;
+	}
+
+	/**
+	 * Returns a direct, native-ordered FloatBuffer with room for the given number of floats
+	 */
+	private static FloatBuffer newFloatBuffer(int floats)
+	{
+		return ByteBuffer.allocateDirect(floats*4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+	}
+}
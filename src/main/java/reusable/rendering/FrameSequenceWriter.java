@@ -0,0 +1,286 @@
+package reusable.rendering;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Writes a numbered sequence of frames (frame_000000.png, frame_000001.png, ...) to a directory on a background thread.
+ * write() copies the frame into one of a fixed set of buffers and hands it to the writer thread through a bounded queue,
+ * so encoding and disk I/O overlap with producing the next frame, and a producer that outpaces the disk simply waits
+ * for a buffer instead of piling up frames in memory.
+ * @author DEMcKnight
+ */
+public class FrameSequenceWriter implements AutoCloseable
+{
+	/**
+	 * The file formats frames can be written in
+	 */
+	public enum Format
+	{
+		/**
+		 * A PNG image with an alpha channel
+		 */
+		PNG("png"),
+
+		/**
+		 * Raw pixels, row by row from the top, 4 bytes each in R, G, B, A order (no header)
+		 */
+		RGBA("rgba");
+
+		/**
+		 * The file extension frames in this format are written with
+		 */
+		public final String extension;
+
+		Format(String extension)
+		{
+			this.extension = extension;
+		}
+	}
+
+	/**
+	 * The width and height of every frame, in pixels
+	 */
+	private final int width, height;
+
+	/**
+	 * The directory frames are written into
+	 */
+	private final File directory;
+
+	/**
+	 * The format frames are written in
+	 */
+	private final Format format;
+
+	/**
+	 * Frames waiting to be written, in order
+	 */
+	private final BlockingQueue<Frame> pending;
+
+	/**
+	 * Buffers the writer thread has finished with, ready to be filled again
+	 */
+	private final BlockingQueue<Frame> free;
+
+	/**
+	 * The background thread that writes frames
+	 */
+	private final Thread thread;
+
+	/**
+	 * The first error the writer thread ran into (not necessarily an IOException: encoders can throw unchecked exceptions too), or null
+	 */
+	private volatile Throwable error;
+
+	/**
+	 * The number of the next frame write() will be given
+	 */
+	private int nextFrame = 0;
+
+	/**
+	 * True once close() has been called
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Prepares a writer for frames of the given size and starts its background thread
+	 * @param directory The directory to write frames into (created if it doesn't exist)
+	 * @param format The format to write frames in
+	 * @param width The width of every frame, in pixels
+	 * @param height The height of every frame, in pixels
+	 * @param capacity The number of frames that can be waiting to be written before write() blocks
+	 * @throws IOException if the directory doesn't exist and can't be created
+	 */
+	public FrameSequenceWriter(File directory, Format format, int width, int height, int capacity) throws IOException
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException("At least one frame must be able to wait, got a capacity of " + capacity);
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create the directory " + directory);
+
+		this.directory = directory;
+		this.format = format;
+		this.width = width;
+		this.height = height;
+
+		//One buffer per queue slot plus the one being written, and room in pending for the end marker too
+		pending = new ArrayBlockingQueue<Frame>(capacity + 2);
+		free = new ArrayBlockingQueue<Frame>(capacity + 1);
+		for (int i=0; i<capacity + 1; i++)
+			free.add(new Frame(new int[width*height]));
+
+		thread = new Thread(this::writeFrames, "Frame writer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Queues a copy of the given frame to be written as the next file in the sequence, waiting for room if the writer has fallen behind
+	 * @param pixels The frame's ARGB pixels, row by row from the top (width*height of them)
+	 * @throws IOException if writing an earlier frame failed
+	 * @throws InterruptedException if interrupted while waiting for room
+	 */
+	public void write(int[] pixels) throws IOException, InterruptedException
+	{
+		if (closed)
+			throw new IllegalStateException("This writer has been closed");
+		if (pixels.length < width*height)
+			throw new IllegalArgumentException("Expected " + width*height + " pixels, got " + pixels.length);
+		checkError();
+
+		Frame frame = free.take();
+		System.arraycopy(pixels, 0, frame.pixels, 0, width*height);
+		frame.number = nextFrame++;
+		pending.put(frame);
+	}
+
+	/**
+	 * Returns the number of frames given to write() so far
+	 * @return the number of frames given to write() so far
+	 */
+	public int getFrameCount()
+	{
+		return nextFrame;
+	}
+
+	/**
+	 * Waits for every queued frame to be written, then stops the background thread
+	 * @throws IOException if writing any frame failed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (closed)
+			return;
+		closed = true;
+
+		boolean interrupted = false;
+		while (true)
+		{
+			try
+			{
+				pending.put(Frame.END);
+				thread.join();
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		checkError();
+	}
+
+	/**
+	 * Rethrows the writer thread's error, if it ran into one
+	 */
+	private void checkError() throws IOException
+	{
+		Throwable e = error;
+		if (e != null)
+			throw new IOException("Writing a frame failed", e);
+	}
+
+	/**
+	 * The background thread's loop: write frames until the end marker arrives, handing each buffer back once it's written.
+	 * After an error of any kind, or an interrupt, frames are just discarded (and write() reports the error) so the producer never blocks forever.
+	 */
+	private void writeFrames()
+	{
+		BufferedImage image = format == Format.PNG ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB) : null;
+		byte[] bytes = format == Format.RGBA ? new byte[4*width*height] : null;
+		while (true)
+		{
+			Frame frame;
+			try
+			{
+				frame = pending.take();
+			}
+			catch (InterruptedException e)
+			{
+				//Stop writing, but keep draining the queue: the producer and close() are still waiting on it
+				if (error == null)
+					error = new InterruptedIOException("The frame writer was interrupted");
+				continue;
+			}
+			if (frame == Frame.END)
+				return;
+
+			try
+			{
+				if (error == null)
+				{
+					File file = new File(directory, String.format(Locale.ROOT, "frame_%06d.%s", frame.number, format.extension));
+					if (format == Format.PNG)
+					{
+						image.setRGB(0, 0, width, height, frame.pixels, 0, width);
+						if (!ImageIO.write(image, "png", file))
+							throw new IOException("No PNG encoder is available");
+					}
+					else
+						writeRGBA(frame.pixels, bytes, file);
+				}
+			}
+			catch (Throwable e)
+			{
+				//Whatever went wrong, this thread has to survive to hand buffers back, or write() and close() would wait forever
+				error = e;
+			}
+			finally
+			{
+				free.add(frame);
+			}
+		}
+	}
+
+	/**
+	 * Writes the given ARGB pixels to a file as raw RGBA bytes
+	 */
+	private static void writeRGBA(int[] pixels, byte[] bytes, File file) throws IOException
+	{
+		for (int i=0; i<bytes.length/4; i++)
+		{
+			int argb = pixels[i];
+			bytes[4*i] = (byte)(argb >> 16);
+			bytes[4*i+1] = (byte)(argb >> 8);
+			bytes[4*i+2] = (byte)argb;
+			bytes[4*i+3] = (byte)(argb >>> 24);
+		}
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file)))
+		{
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * A frame buffer passed between the producer and the writer thread
+	 */
+	private static final class Frame
+	{
+		/**
+		 * Marks the end of the sequence
+		 */
+		static final Frame END = new Frame(new int[0]);
+
+		final int[] pixels;
+		int number;
+
+		Frame(int[] pixels)
+		{
+			this.pixels = pixels;
+		}
+	}
+}
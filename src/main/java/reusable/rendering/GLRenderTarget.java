@@ -0,0 +1,217 @@
+package reusable.rendering;
+
+import java.awt.Color;
+
+import javax.media.opengl.GL;
+import javax.media.opengl.GL2;
+import javax.media.opengl.fixedfunc.GLMatrixFunc;
+
+import reusable.Helpers;
+import reusable.graphicsPrimitives.Affine2;
+import reusable.instrumentation.Counter;
+import reusable.instrumentation.Instrumentation;
+import reusable.instrumentation.SpanTimer;
+
+/**
+ * A RenderTarget that draws with a live OpenGL context, the way the project always has (immediate mode and the modelview stack)
+ * @author DEMcKnight
+ */
+public class GLRenderTarget implements RenderTarget
+{
+	/**
+	 * Times the bulk submissions (points and vertex batches). These measure the CPU side only; the GPU may finish the work later.
+	 */
+	private static final SpanTimer submitTimer = Instrumentation.timer("gl submit");
+
+	/**
+	 * Counts every vertex handed to OpenGL
+	 */
+	private static final Counter verticesSubmitted = Instrumentation.counter("vertices submitted");
+
+	/**
+	 * The context to draw with
+	 */
+	private final GL2 gl;
+
+	/**
+	 * The renderer to draw vertex batches with, or null to draw them in immediate mode
+	 */
+	private final BatchRenderer batchRenderer;
+
+	/**
+	 * The column-major 4x4 matrix transform() hands to glMultMatrixd, reused between calls (only the affine elements change)
+	 */
+	private final double[] matrix = {1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1};
+
+	/**
+	 * Prepares a target that draws with the given context, drawing vertex batches in immediate mode
+	 * @param gl The context to draw with
+	 */
+	public GLRenderTarget(GL2 gl)
+	{
+		this(gl, null);
+	}
+
+	/**
+	 * Prepares a target that draws with the given context, drawing vertex batches with the given renderer
+	 * @param gl The context to draw with
+	 * @param batchRenderer The renderer to draw vertex batches with, or null to draw them in immediate mode
+	 */
+	public GLRenderTarget(GL2 gl, BatchRenderer batchRenderer)
+	{
+		this.gl = gl;
+		this.batchRenderer = batchRenderer;
+		gl.glMatrixMode(GLMatrixFunc.GL_MODELVIEW);
+	}
+
+	@Override
+	public void setColor(Color color)
+	{
+		Helpers.setColor(gl, color);
+	}
+
+	@Override
+	public void pushTransform()
+	{
+		gl.glPushMatrix();
+	}
+
+	@Override
+	public void popTransform()
+	{
+		gl.glPopMatrix();
+	}
+
+	@Override
+	public void translate(double x, double y)
+	{
+		gl.glTranslated(x, y, 0);
+	}
+
+	@Override
+	public void rotate(double degrees)
+	{
+		gl.glRotated(degrees, 0, 0, 1);
+	}
+
+	@Override
+	public void scale(double x, double y)
+	{
+		gl.glScaled(x, y, 1);
+	}
+
+	@Override
+	public void transform(Affine2 transform)
+	{
+		matrix[0] = transform.getA11();
+		matrix[1] = transform.getA21();
+		matrix[4] = transform.getA12();
+		matrix[5] = transform.getA22();
+		matrix[12] = transform.getB1();
+		matrix[13] = transform.getB2();
+		gl.glMultMatrixd(matrix, 0);
+	}
+
+	@Override
+	public void fillPolygon(double[] xy, int n)
+	{
+		gl.glBegin(GL2.GL_POLYGON);
+		for (int i=0; i<n; i++)
+			gl.glVertex2d(xy[2*i], xy[2*i+1]);
+		gl.glEnd();
+		verticesSubmitted.add(n);
+	}
+
+	@Override
+	public void fillTriangles(double[] vertices, int[] triangles)
+	{
+		Helpers.drawTriangles(gl, vertices, triangles, 1);
+		verticesSubmitted.add(triangles.length);
+	}
+
+	@Override
+	public void drawLineLoop(double[] xy, int n)
+	{
+		Helpers.drawLineLoop(gl, xy, n, 1);
+		verticesSubmitted.add(n);
+	}
+
+	@Override
+	public void drawPoints(double[] xy, int offset, int n)
+	{
+		long start = submitTimer.start();
+		gl.glBegin(GL.GL_POINTS);
+		for (int i = offset, end = offset + 2*n; i < end; i+=2)
+			gl.glVertex2d(xy[i], xy[i+1]);
+		gl.glEnd();
+		submitTimer.stop(start);
+		verticesSubmitted.add(n);
+	}
+
+	@Override
+	public void fillVerticalGradient(double leftX, double rightX, double bottomY, double topY, Color bottomColor, Color topColor)
+	{
+		gl.glEnable(GL.GL_BLEND);
+		gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+		gl.glBegin(GL2.GL_QUADS);
+		color(bottomColor);
+		gl.glVertex2d(leftX, bottomY);
+		gl.glVertex2d(rightX, bottomY);
+		color(topColor);
+		gl.glVertex2d(rightX, topY);
+		gl.glVertex2d(leftX, topY);
+		gl.glEnd();
+		verticesSubmitted.add(4);
+	}
+
+	@Override
+	public void drawTriangles(VertexBatch batch)
+	{
+		drawBatch(batch, GL.GL_TRIANGLES);
+	}
+
+	@Override
+	public void drawLines(VertexBatch batch)
+	{
+		drawBatch(batch, GL.GL_LINES);
+	}
+
+	/**
+	 * Draws the given batch as primitives of the given mode, with the batch renderer if there is one
+	 */
+	private void drawBatch(VertexBatch batch, int mode)
+	{
+		long start = submitTimer.start();
+		verticesSubmitted.add(batch.getVertexCount());
+		if (batchRenderer != null)
+			batchRenderer.draw(gl, batch, mode);
+		else
+			drawImmediate(batch, mode);
+		submitTimer.stop(start);
+	}
+
+	/**
+	 * Draws the given batch as primitives of the given mode in immediate mode
+	 */
+	private void drawImmediate(VertexBatch batch, int mode)
+	{
+		float[] data = batch.getData();
+		gl.glEnable(GL.GL_BLEND);
+		gl.glBlendFunc(GL.GL_SRC_ALPHA, GL.GL_ONE_MINUS_SRC_ALPHA);
+		gl.glBegin(mode);
+		for (int i = 0, end = batch.getVertexCount()*VertexBatch.FLOATS_PER_VERTEX; i < end; i += VertexBatch.FLOATS_PER_VERTEX)
+		{
+			gl.glColor4d(data[i+2], data[i+3], data[i+4], data[i+5]);
+			gl.glVertex2d(data[i], data[i+1]);
+		}
+		gl.glEnd();
+	}
+
+	/**
+	 * Sets the current vertex color without touching the blending state (which can't be changed between glBegin and glEnd)
+	 */
+	private void color(Color color)
+	{
+		gl.glColor4d(color.getRed()/255.0, color.getGreen()/255.0, color.getBlue()/255.0, color.getAlpha()/255.0);
+	}
+}
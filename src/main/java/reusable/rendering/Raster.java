@@ -0,0 +1,288 @@
+package reusable.rendering;
+
+/**
+ * The pixel-level drawing routines shared by the software renderers: triangles (flat or shaded), lines and points,
+ * given in device coordinates (pixels, y pointing down, pixel (x, y) covering [x, x+1) by [y, y+1)) and alpha-blended into
+ * an int[] ARGB framebuffer. Every routine only touches pixels inside the clip rectangle, so separate Rasters with disjoint
+ * clip rectangles can draw into the same framebuffer at once.
+ * Coverage follows OpenGL's rules closely enough that triangles sharing an edge never both blend a pixel along it:
+ * a pixel center exactly on an edge belongs to the triangle the edge is a top or left edge of (the top-left rule GPUs use).
+ * @author DEMcKnight
+ */
+final class Raster
+{
+	/**
+	 * The number of fractional bits triangle corners are snapped to
+	 */
+	private static final int SUBPIXEL_BITS = 8;
+
+	/**
+	 * The farthest from the origin (in pixels) a triangle corner can be before it's clamped
+	 */
+	private static final double MAX_COORDINATE = 1 << 21;
+
+	/**
+	 * The framebuffer's pixels, row by row from the top
+	 */
+	private final int[] pixels;
+
+	/**
+	 * The width of the framebuffer, in pixels
+	 */
+	private final int width;
+
+	//The clip rectangle: [clipX0, clipX1) by [clipY0, clipY1), in pixels
+	private int clipX0, clipY0, clipX1, clipY1;
+
+	/**
+	 * Prepares a Raster drawing into the given framebuffer, clipped to the whole framebuffer
+	 * @param pixels The framebuffer's pixels, row by row from the top
+	 * @param width The width of the framebuffer, in pixels
+	 * @param height The height of the framebuffer, in pixels
+	 */
+	Raster(int[] pixels, int width, int height)
+	{
+		this.pixels = pixels;
+		this.width = width;
+		setClip(0, 0, width, height);
+	}
+
+	/**
+	 * Restricts drawing to the pixels in [x0, x1) by [y0, y1)
+	 */
+	void setClip(int x0, int y0, int x1, int y1)
+	{
+		clipX0 = x0;
+		clipY0 = y0;
+		clipX1 = x1;
+		clipY1 = y1;
+	}
+
+	/**
+	 * Fills the triangle with corners (x0, y0), (x1, y1), (x2, y2) in a single color.
+	 * A pixel is covered if its center is inside the triangle; centers exactly on an edge go to just one of the triangles sharing it.
+	 */
+	void fillTriangle(double x0, double y0, double x1, double y1, double x2, double y2, int argb)
+	{
+		fillTriangle(x0, y0, x1, y1, x2, y2, argb, argb, argb);
+	}
+
+	/**
+	 * Fills the triangle with corners (x0, y0), (x1, y1), (x2, y2), interpolating the corners' colors across it (like GL_SMOOTH)
+	 */
+	void fillTriangle(double x0, double y0, double x1, double y1, double x2, double y2, int argb0, int argb1, int argb2)
+	{
+		//Snap the corners to fixed point so the edge functions are exact, and neighbors agree on who owns their shared edge
+		long ax = snap(x0), ay = snap(y0), bx = snap(x1), by = snap(y1), cx = snap(x2), cy = snap(y2);
+		long area = (bx - ax)*(cy - ay) - (by - ay)*(cx - ax);
+		if (area == 0)
+			return;
+
+		//Walk the corners in the order that makes the area positive, so "inside" means every edge function is positive
+		if (area < 0)
+		{
+			long tx = bx, ty = by;
+			bx = cx; by = cy;
+			cx = tx; cy = ty;
+			int tc = argb1;
+			argb1 = argb2;
+			argb2 = tc;
+			area = -area;
+		}
+
+		//The pixels whose centers could be inside, clipped
+		int minX = Math.max(clipX0, centerCeil(Math.min(ax, Math.min(bx, cx))));
+		int maxX = Math.min(clipX1 - 1, centerFloor(Math.max(ax, Math.max(bx, cx))));
+		int minY = Math.max(clipY0, centerCeil(Math.min(ay, Math.min(by, cy))));
+		int maxY = Math.min(clipY1 - 1, centerFloor(Math.max(ay, Math.max(by, cy))));
+		if (minX > maxX || minY > maxY)
+			return;
+
+		//Each edge function is the (doubled) signed area of the edge and a point; w0 is opposite corner 0, and so on.
+		//Pixels on an edge count as inside only for the triangle that owns it, which is folded in as a bias of 1
+		long bias0 = ownsEdge(bx, by, cx, cy) ? 0 : 1, bias1 = ownsEdge(cx, cy, ax, ay) ? 0 : 1, bias2 = ownsEdge(ax, ay, bx, by) ? 0 : 1;
+		long step0 = (cy - by) << SUBPIXEL_BITS, step1 = (ay - cy) << SUBPIXEL_BITS, step2 = (by - ay) << SUBPIXEL_BITS;
+		boolean flat = argb0 == argb1 && argb1 == argb2;
+		double inverseArea = 1.0/area;
+
+		for (int py = minY; py <= maxY; py++)
+		{
+			long pcx = center(minX), pcy = center(py);
+			long w0 = (cx - bx)*(pcy - by) - (cy - by)*(pcx - bx) - bias0;
+			long w1 = (ax - cx)*(pcy - cy) - (ay - cy)*(pcx - cx) - bias1;
+			long w2 = (bx - ax)*(pcy - ay) - (by - ay)*(pcx - ax) - bias2;
+			int row = py*width;
+			for (int px = minX; px <= maxX; px++)
+			{
+				if ((w0 | w1 | w2) >= 0)
+				{
+					int src = flat ? argb0 : mix(argb0, argb1, argb2, (w0 + bias0)*inverseArea, (w1 + bias1)*inverseArea, (w2 + bias2)*inverseArea);
+					pixels[row + px] = blend(pixels[row + px], src);
+				}
+				w0 -= step0;
+				w1 -= step1;
+				w2 -= step2;
+			}
+		}
+	}
+
+	/**
+	 * Draws a one-pixel-wide line from (x0, y0) to (x1, y1), stepping one pixel at a time along its major axis.
+	 * The pixel at the end point isn't drawn, so the segments of a line loop don't blend their shared corners twice.
+	 */
+	void drawLine(double x0, double y0, double x1, double y1, int argb)
+	{
+		double dx = x1 - x0, dy = y1 - y0;
+		if (Math.abs(dx) >= Math.abs(dy))
+		{
+			if (dx == 0)
+				return;
+			//Visit the columns whose centers lie in [x0, x1) (or (x1, x0] going left), clipped
+			int from, to;
+			if (dx > 0)
+			{
+				from = Math.max(clipX0, (int)Math.ceil(x0 - 0.5));
+				to = Math.min(clipX1 - 1, (int)Math.ceil(x1 - 0.5) - 1);
+			}
+			else
+			{
+				from = Math.max(clipX0, (int)Math.floor(x1 - 0.5) + 1);
+				to = Math.min(clipX1 - 1, (int)Math.floor(x0 - 0.5));
+			}
+			double slope = dy/dx;
+			for (int px = from; px <= to; px++)
+			{
+				int py = (int)Math.floor(y0 + (px + 0.5 - x0)*slope);
+				if (py >= clipY0 && py < clipY1)
+					pixels[py*width + px] = blend(pixels[py*width + px], argb);
+			}
+		}
+		else
+		{
+			int from, to;
+			if (dy > 0)
+			{
+				from = Math.max(clipY0, (int)Math.ceil(y0 - 0.5));
+				to = Math.min(clipY1 - 1, (int)Math.ceil(y1 - 0.5) - 1);
+			}
+			else
+			{
+				from = Math.max(clipY0, (int)Math.floor(y1 - 0.5) + 1);
+				to = Math.min(clipY1 - 1, (int)Math.floor(y0 - 0.5));
+			}
+			double slope = dx/dy;
+			for (int py = from; py <= to; py++)
+			{
+				int px = (int)Math.floor(x0 + (py + 0.5 - y0)*slope);
+				if (px >= clipX0 && px < clipX1)
+					pixels[py*width + px] = blend(pixels[py*width + px], argb);
+			}
+		}
+	}
+
+	/**
+	 * Blends the pixel containing (x, y) with the given color
+	 */
+	void plot(double x, double y, int argb)
+	{
+		if (!(x >= clipX0 && x < clipX1 && y >= clipY0 && y < clipY1))
+			return;
+		int i = (int)y*width + (int)x;
+		pixels[i] = blend(pixels[i], argb);
+	}
+
+	/**
+	 * True if a pixel center lying exactly on the edge from (ax, ay) to (bx, by) belongs to the triangle on this edge's inside,
+	 * i.e. if it's a left edge (the triangle's corners are walked so that left edges go up the screen) or a horizontal top edge (going right).
+	 * The neighboring triangle walks the same edge the other way and gets the opposite answer, so exactly one of them draws the pixel.
+	 */
+	private static boolean ownsEdge(long ax, long ay, long bx, long by)
+	{
+		return by < ay || (by == ay && bx > ax);
+	}
+
+	/**
+	 * Converts a device coordinate into fixed point, clamping it to within 2^21 pixels of the origin so edge functions can't overflow
+	 */
+	private static long snap(double v)
+	{
+		if (!(v > -MAX_COORDINATE))
+			v = -MAX_COORDINATE;
+		else if (v > MAX_COORDINATE)
+			v = MAX_COORDINATE;
+		return Math.round(v*(1 << SUBPIXEL_BITS));
+	}
+
+	/**
+	 * Returns the fixed-point coordinate of the center of pixel row or column p
+	 */
+	private static long center(int p)
+	{
+		return ((long)p << SUBPIXEL_BITS) + (1 << (SUBPIXEL_BITS - 1));
+	}
+
+	/**
+	 * Returns the first pixel whose center is at or after the fixed-point coordinate v
+	 */
+	private static int centerCeil(long v)
+	{
+		return (int)-Math.floorDiv(-(v - (1 << (SUBPIXEL_BITS - 1))), 1 << SUBPIXEL_BITS);
+	}
+
+	/**
+	 * Returns the last pixel whose center is at or before the fixed-point coordinate v
+	 */
+	private static int centerFloor(long v)
+	{
+		return (int)Math.floorDiv(v - (1 << (SUBPIXEL_BITS - 1)), 1 << SUBPIXEL_BITS);
+	}
+
+	/**
+	 * Returns the color with weights w0, w1 and w2 (summing to 1) of the three given colors
+	 */
+	private static int mix(int c0, int c1, int c2, double w0, double w1, double w2)
+	{
+		int a = channel(c0 >>> 24, c1 >>> 24, c2 >>> 24, w0, w1, w2);
+		int r = channel((c0 >> 16) & 255, (c1 >> 16) & 255, (c2 >> 16) & 255, w0, w1, w2);
+		int g = channel((c0 >> 8) & 255, (c1 >> 8) & 255, (c2 >> 8) & 255, w0, w1, w2);
+		int b = channel(c0 & 255, c1 & 255, c2 & 255, w0, w1, w2);
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	private static int channel(int v0, int v1, int v2, double w0, double w1, double w2)
+	{
+		int v = (int)(v0*w0 + v1*w1 + v2*w2 + 0.5);
+		return v < 0 ? 0 : v > 255 ? 255 : v;
+	}
+
+	/**
+	 * Blends src over dst the way glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA) does, for every channel including alpha
+	 */
+	static int blend(int dst, int src)
+	{
+		int a = src >>> 24;
+		if (a == 255)
+			return src;
+		if (a == 0)
+			return dst;
+		int ia = 255 - a;
+		int outA = (a*a + (dst >>> 24)*ia + 127)/255;
+		int outR = (((src >> 16) & 255)*a + ((dst >> 16) & 255)*ia + 127)/255;
+		int outG = (((src >> 8) & 255)*a + ((dst >> 8) & 255)*ia + 127)/255;
+		int outB = ((src & 255)*a + (dst & 255)*ia + 127)/255;
+		return (outA << 24) | (outR << 16) | (outG << 8) | outB;
+	}
+
+	/**
+	 * Packs a color with components in [0, 1] into an int ARGB pixel
+	 */
+	static int argb(double red, double green, double blue, double alpha)
+	{
+		return (unit(alpha) << 24) | (unit(red) << 16) | (unit(green) << 8) | unit(blue);
+	}
+
+	private static int unit(double v)
+	{
+		return v <= 0 ? 0 : v >= 1 ? 255 : (int)(v*255 + 0.5);
+	}
+}
@@ -0,0 +1,145 @@
+package reusable.rendering;
+
+import java.awt.Color;
+import java.util.List;
+
+import reusable.graphicsPrimitives.Affine2;
+import reusable.graphicsPrimitives.Vec2;
+import reusable.graphicsPrimitives.Vec2Buffer;
+
+/**
+ * Something the scene can be drawn onto: an OpenGL context (GLRenderTarget) or a plain framebuffer in memory (SoftwareRasterizer).
+ * Mirrors the small slice of fixed-function OpenGL the project uses: a current color, a modelview transform stack,
+ * and filled polygons, triangles, line loops and points in world coordinates, alpha-blended over what's already there.
+ * @author DEMcKnight
+ */
+public interface RenderTarget
+{
+	/**
+	 * Sets the color the shapes drawn after this call are drawn in (its alpha is used for blending)
+	 * @param color The color to draw in
+	 */
+	public void setColor(Color color);
+
+	/**
+	 * Saves the current transform, to be restored by popTransform (like glPushMatrix)
+	 */
+	public void pushTransform();
+
+	/**
+	 * Restores the transform saved by the matching pushTransform (like glPopMatrix)
+	 */
+	public void popTransform();
+
+	/**
+	 * Translates everything drawn afterwards by (x, y) (like glTranslated)
+	 * @param x The horizontal offset
+	 * @param y The vertical offset
+	 */
+	public void translate(double x, double y);
+
+	/**
+	 * Rotates everything drawn afterwards about the origin (like glRotated about the z-axis)
+	 * @param degrees The angle to rotate by, in degrees counterclockwise
+	 */
+	public void rotate(double degrees);
+
+	/**
+	 * Scales everything drawn afterwards about the origin (like glScaled)
+	 * @param x The horizontal scale factor
+	 * @param y The vertical scale factor
+	 */
+	public void scale(double x, double y);
+
+	/**
+	 * Applies the given affine transformation to everything drawn afterwards (like glMultMatrixd)
+	 * @param transform The transformation to apply, before the current transform
+	 */
+	public void transform(Affine2 transform);
+
+	/**
+	 * Fills the convex polygon through the first n interleaved (x, y) vertices in the current color (like GL_POLYGON)
+	 * @param xy The vertices of the polygon, as interleaved (x, y) pairs
+	 * @param n The number of vertices in the polygon
+	 */
+	public void fillPolygon(double[] xy, int n);
+
+	/**
+	 * Fills the given convex polygon in the current color (like Helpers.drawPolygon)
+	 * @param polygon The vertices of the polygon
+	 */
+	public default void fillPolygon(List<Vec2> polygon)
+	{
+		double[] xy = new double[2*polygon.size()];
+		for (int i=0; i<polygon.size(); i++)
+		{
+			xy[2*i] = polygon.get(i).getX();
+			xy[2*i+1] = polygon.get(i).getY();
+		}
+		fillPolygon(xy, polygon.size());
+	}
+
+	/**
+	 * Fills the given convex polygon in the current color (like Helpers.drawPolygon). Doesn't copy a DoubleVec2Buffer's points.
+	 * @param polygon The vertices of the polygon
+	 */
+	public default void fillPolygon(Vec2Buffer polygon)
+	{
+		fillPolygon(polygon.asDoubleArray(), polygon.size());
+	}
+
+	/**
+	 * Fills the indexed triangles over interleaved (x, y) vertices in the current color (like GL_TRIANGLES)
+	 * @param vertices The vertices, as interleaved (x, y) pairs
+	 * @param triangles Triples of indices into vertices
+	 */
+	public void fillTriangles(double[] vertices, int[] triangles);
+
+	/**
+	 * Draws the closed outline through the first n interleaved (x, y) vertices in the current color (like GL_LINE_LOOP)
+	 * @param xy The vertices of the outline, as interleaved (x, y) pairs
+	 * @param n The number of vertices in the outline
+	 */
+	public void drawLineLoop(double[] xy, int n);
+
+	/**
+	 * Draws the closed outline through the given points in the current color (like Helpers.drawLineLoop). Doesn't copy a DoubleVec2Buffer's points.
+	 * @param lineLoop The vertices of the outline
+	 */
+	public default void drawLineLoop(Vec2Buffer lineLoop)
+	{
+		drawLineLoop(lineLoop.asDoubleArray(), lineLoop.size());
+	}
+
+	/**
+	 * Draws n single-pixel points in the current color (like GL_POINTS)
+	 * @param xy The points, as interleaved (x, y) pairs
+	 * @param offset The index in xy of the first point's x-coordinate
+	 * @param n The number of points to draw
+	 */
+	public void drawPoints(double[] xy, int offset, int n);
+
+	/**
+	 * Fills the given rectangle with a vertical gradient, blending from bottomColor along its bottom edge to topColor along its top edge
+	 * (like the GL_QUADS Drawers draws its backdrops with). Leaves the current color alone.
+	 * @param leftX The x-coordinate of the rectangle's left edge
+	 * @param rightX The x-coordinate of the rectangle's right edge
+	 * @param bottomY The y-coordinate of the rectangle's bottom edge
+	 * @param topY The y-coordinate of the rectangle's top edge
+	 * @param bottomColor The color along the bottom edge
+	 * @param topColor The color along the top edge
+	 */
+	public void fillVerticalGradient(double leftX, double rightX, double bottomY, double topY, Color bottomColor, Color topColor);
+
+	/**
+	 * Fills every triangle in the given batch (each consecutive three vertices), interpolating the vertices' own colors
+	 * @param batch The batch of triangles to draw
+	 */
+	public void drawTriangles(VertexBatch batch);
+
+	/**
+	 * Draws every line segment in the given batch (each consecutive two vertices), in the vertices' own colors
+	 * @param batch The batch of line segments to draw
+	 */
+	public void drawLines(VertexBatch batch);
+}
@@ -0,0 +1,378 @@
+package reusable.rendering;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import reusable.graphicsPrimitives.Affine2;
+
+/**
+ * A RenderTarget that draws into an int[] ARGB framebuffer in plain Java, so frames can be produced without OpenGL (or a GPU).
+ * World coordinates are mapped to pixels by an orthographic projection like glOrtho's followed by a modelview transform stack,
+ * and everything is alpha-blended the way glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA) blends.
+ * Row 0 of the framebuffer is the top of the picture, as in a BufferedImage (OpenGL's rows start from the bottom).
+ * @author DEMcKnight
+ */
+public class SoftwareRasterizer implements RenderTarget
+{
+	/**
+	 * The width of the framebuffer, in pixels
+	 */
+	private final int width;
+
+	/**
+	 * The height of the framebuffer, in pixels
+	 */
+	private final int height;
+
+	/**
+	 * The framebuffer's pixels, row by row from the top
+	 */
+	private final int[] pixels;
+
+	/**
+	 * Draws into pixels, clipped to the whole framebuffer
+	 */
+	private final Raster raster;
+
+	/**
+	 * The current color, as an ARGB pixel
+	 */
+	private int color = 0xFFFFFFFF;
+
+	//The current transform from world coordinates to pixels (projection and modelview combined):
+	//pixelX = a*x + c*y + e, pixelY = b*x + d*y + f
+	private double a, b, c, d, e, f;
+
+	/**
+	 * The transforms saved by pushTransform, six doubles each
+	 */
+	private double[] stack = new double[6*8];
+
+	/**
+	 * The number of transforms saved on stack
+	 */
+	private int depth = 0;
+
+	/**
+	 * Prepares a transparent black framebuffer of the given size whose projection maps [0, width] by [0, height] onto it
+	 * @param width The width of the framebuffer, in pixels
+	 * @param height The height of the framebuffer, in pixels
+	 */
+	public SoftwareRasterizer(int width, int height)
+	{
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("The framebuffer must be at least 1x1, got " + width + "x" + height);
+		this.width = width;
+		this.height = height;
+		this.pixels = new int[width*height];
+		this.raster = new Raster(pixels, width, height);
+		setProjection(0, width, 0, height);
+	}
+
+	/**
+	 * Maps world coordinates [left, right] by [bottom, top] onto the whole framebuffer (like glOrtho), resetting the modelview transform
+	 * and discarding any saved transforms
+	 * @param left The world x-coordinate of the framebuffer's left edge
+	 * @param right The world x-coordinate of the framebuffer's right edge
+	 * @param bottom The world y-coordinate of the framebuffer's bottom edge
+	 * @param top The world y-coordinate of the framebuffer's top edge
+	 */
+	public void setProjection(double left, double right, double bottom, double top)
+	{
+		a = width/(right - left);
+		b = 0;
+		c = 0;
+		d = -height/(top - bottom);
+		e = -left*a;
+		f = -top*d;
+		depth = 0;
+	}
+
+	/**
+	 * Fills the whole framebuffer with the given color, without blending
+	 * @param argb The color to fill with, as an ARGB pixel
+	 */
+	public void clear(int argb)
+	{
+		Arrays.fill(pixels, argb);
+	}
+
+	/**
+	 * Returns the width of the framebuffer
+	 * @return the width of the framebuffer, in pixels
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Returns the height of the framebuffer
+	 * @return the height of the framebuffer, in pixels
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns the framebuffer itself (not a copy): ARGB pixels, row by row from the top
+	 * @return the framebuffer's pixels
+	 */
+	public int[] getPixels()
+	{
+		return pixels;
+	}
+
+	/**
+	 * Returns a copy of the framebuffer as an image
+	 * @return a TYPE_INT_ARGB image of the framebuffer
+	 */
+	public BufferedImage toImage()
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, width, height, pixels, 0, width);
+		return image;
+	}
+
+	@Override
+	public void setColor(Color color)
+	{
+		this.color = color.getRGB();
+	}
+
+	@Override
+	public void pushTransform()
+	{
+		if (6*(depth + 1) > stack.length)
+			stack = Arrays.copyOf(stack, 2*stack.length);
+		int i = 6*depth++;
+		stack[i] = a;
+		stack[i+1] = b;
+		stack[i+2] = c;
+		stack[i+3] = d;
+		stack[i+4] = e;
+		stack[i+5] = f;
+	}
+
+	@Override
+	public void popTransform()
+	{
+		if (depth == 0)
+			throw new IllegalStateException("popTransform called without a matching pushTransform");
+		int i = 6*--depth;
+		a = stack[i];
+		b = stack[i+1];
+		c = stack[i+2];
+		d = stack[i+3];
+		e = stack[i+4];
+		f = stack[i+5];
+	}
+
+	@Override
+	public void translate(double x, double y)
+	{
+		e += a*x + c*y;
+		f += b*x + d*y;
+	}
+
+	@Override
+	public void rotate(double degrees)
+	{
+		double radians = Math.toRadians(degrees);
+		double cos = Math.cos(radians), sin = Math.sin(radians);
+		double na = a*cos + c*sin, nb = b*cos + d*sin;
+		c = c*cos - a*sin;
+		d = d*cos - b*sin;
+		a = na;
+		b = nb;
+	}
+
+	@Override
+	public void scale(double x, double y)
+	{
+		a *= x;
+		b *= x;
+		c *= y;
+		d *= y;
+	}
+
+	@Override
+	public void transform(Affine2 t)
+	{
+		e += a*t.getB1() + c*t.getB2();
+		f += b*t.getB1() + d*t.getB2();
+		double na = a*t.getA11() + c*t.getA21(), nb = b*t.getA11() + d*t.getA21();
+		c = a*t.getA12() + c*t.getA22();
+		d = b*t.getA12() + d*t.getA22();
+		a = na;
+		b = nb;
+	}
+
+	@Override
+	public void fillPolygon(double[] xy, int n)
+	{
+		//GL_POLYGON only promises to draw convex polygons, which a fan around the first vertex covers exactly
+		if (n < 3)
+			return;
+		double x0 = pixelX(xy[0], xy[1]), y0 = pixelY(xy[0], xy[1]);
+		double x1 = pixelX(xy[2], xy[3]), y1 = pixelY(xy[2], xy[3]);
+		for (int i=2; i<n; i++)
+		{
+			double x2 = pixelX(xy[2*i], xy[2*i+1]), y2 = pixelY(xy[2*i], xy[2*i+1]);
+			emitTriangle(x0, y0, x1, y1, x2, y2, color, color, color);
+			x1 = x2;
+			y1 = y2;
+		}
+	}
+
+	@Override
+	public void fillTriangles(double[] vertices, int[] triangles)
+	{
+		for (int i=0; i+2<triangles.length; i+=3)
+		{
+			int p = 2*triangles[i], q = 2*triangles[i+1], r = 2*triangles[i+2];
+			emitTriangle(pixelX(vertices[p], vertices[p+1]), pixelY(vertices[p], vertices[p+1]),
+					pixelX(vertices[q], vertices[q+1]), pixelY(vertices[q], vertices[q+1]),
+					pixelX(vertices[r], vertices[r+1]), pixelY(vertices[r], vertices[r+1]), color, color, color);
+		}
+	}
+
+	@Override
+	public void drawLineLoop(double[] xy, int n)
+	{
+		if (n < 2)
+			return;
+		double firstX = pixelX(xy[0], xy[1]), firstY = pixelY(xy[0], xy[1]);
+		double x0 = firstX, y0 = firstY;
+		for (int i=1; i<n; i++)
+		{
+			double x1 = pixelX(xy[2*i], xy[2*i+1]), y1 = pixelY(xy[2*i], xy[2*i+1]);
+			emitLine(x0, y0, x1, y1, color);
+			x0 = x1;
+			y0 = y1;
+		}
+		emitLine(x0, y0, firstX, firstY, color);
+	}
+
+	@Override
+	public void drawPoints(double[] xy, int offset, int n)
+	{
+		for (int i = offset, end = offset + 2*n; i < end; i+=2)
+			emitPoint(pixelX(xy[i], xy[i+1]), pixelY(xy[i], xy[i+1]), color);
+	}
+
+	@Override
+	public void fillVerticalGradient(double leftX, double rightX, double bottomY, double topY, Color bottomColor, Color topColor)
+	{
+		int bottom = bottomColor.getRGB(), top = topColor.getRGB();
+		double blX = pixelX(leftX, bottomY), blY = pixelY(leftX, bottomY);
+		double brX = pixelX(rightX, bottomY), brY = pixelY(rightX, bottomY);
+		double trX = pixelX(rightX, topY), trY = pixelY(rightX, topY);
+		double tlX = pixelX(leftX, topY), tlY = pixelY(leftX, topY);
+
+		//Split the quad the way OpenGL does, into (v0, v1, v2) and (v0, v2, v3)
+		emitTriangle(blX, blY, brX, brY, trX, trY, bottom, bottom, top);
+		emitTriangle(blX, blY, trX, trY, tlX, tlY, bottom, top, top);
+	}
+
+	@Override
+	public void drawTriangles(VertexBatch batch)
+	{
+		float[] data = batch.getData();
+		int stride = VertexBatch.FLOATS_PER_VERTEX;
+		for (int i = 0, end = (batch.getVertexCount()/3)*3*stride; i < end; i += 3*stride)
+		{
+			int p = i, q = i + stride, r = i + 2*stride;
+			emitTriangle(pixelX(data[p], data[p+1]), pixelY(data[p], data[p+1]),
+					pixelX(data[q], data[q+1]), pixelY(data[q], data[q+1]),
+					pixelX(data[r], data[r+1]), pixelY(data[r], data[r+1]),
+					vertexColor(data, p), vertexColor(data, q), vertexColor(data, r));
+		}
+	}
+
+	@Override
+	public void drawLines(VertexBatch batch)
+	{
+		//Each segment takes its first vertex's color; every segment the project batches is a single color anyway
+		float[] data = batch.getData();
+		int stride = VertexBatch.FLOATS_PER_VERTEX;
+		for (int i = 0, end = (batch.getVertexCount()/2)*2*stride; i < end; i += 2*stride)
+		{
+			int p = i, q = i + stride;
+			emitLine(pixelX(data[p], data[p+1]), pixelY(data[p], data[p+1]),
+					pixelX(data[q], data[q+1]), pixelY(data[q], data[q+1]), vertexColor(data, p));
+		}
+	}
+
+	/**
+	 * Draws a triangle given in pixels. Subclasses may defer or redirect drawing by overriding this and the other emit methods.
+	 */
+	void emitTriangle(double x0, double y0, double x1, double y1, double x2, double y2, int argb0, int argb1, int argb2)
+	{
+		raster.fillTriangle(x0, y0, x1, y1, x2, y2, argb0, argb1, argb2);
+	}
+
+	/**
+	 * Draws a line segment given in pixels
+	 */
+	void emitLine(double x0, double y0, double x1, double y1, int argb)
+	{
+		raster.drawLine(x0, y0, x1, y1, argb);
+	}
+
+	/**
+	 * Draws a point given in pixels
+	 */
+	void emitPoint(double x, double y, int argb)
+	{
+		raster.plot(x, y, argb);
+	}
+
+	/**
+	 * Returns the current color, as an ARGB pixel
+	 */
+	int currentColor()
+	{
+		return color;
+	}
+
+	/**
+	 * Copies the current transform from world coordinates to pixels into out[offset, offset+6), as {a, b, c, d, e, f} where
+	 * pixelX = a*x + c*y + e and pixelY = b*x + d*y + f
+	 */
+	void currentTransform(double[] out, int offset)
+	{
+		out[offset] = a;
+		out[offset+1] = b;
+		out[offset+2] = c;
+		out[offset+3] = d;
+		out[offset+4] = e;
+		out[offset+5] = f;
+	}
+
+	/**
+	 * Returns the horizontal pixel coordinate world point (x, y) lands on under the current transform
+	 */
+	private double pixelX(double x, double y)
+	{
+		return a*x + c*y + e;
+	}
+
+	/**
+	 * Returns the vertical pixel coordinate world point (x, y) lands on under the current transform
+	 */
+	private double pixelY(double x, double y)
+	{
+		return b*x + d*y + f;
+	}
+
+	/**
+	 * Returns the color of the batch vertex starting at index i of data, as an ARGB pixel
+	 */
+	private static int vertexColor(float[] data, int i)
+	{
+		return Raster.argb(data[i+2], data[i+3], data[i+4], data[i+5]);
+	}
+}
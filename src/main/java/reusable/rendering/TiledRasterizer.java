@@ -0,0 +1,479 @@
+package reusable.rendering;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * A SoftwareRasterizer that spreads rasterization over a fork/join pool.
+ * Primitives are recorded instead of drawn, each into the list of every 64x64-pixel screen tile its bounding box touches;
+ * finish() then rasterizes every tile on its own task. Each tile only ever writes its own pixels, and replays its primitives
+ * in the order they were drawn, so there are no locks on the framebuffer and the picture is exactly the one SoftwareRasterizer
+ * would produce.
+ * Points (which an IFS draws by the million) are handled in bulk: each drawPoints call is recorded as one run, and finish()
+ * transforms and sorts the runs' points into tiles in parallel too.
+ * The framebuffer is only up to date after finish(); getPixels() and toImage() call it for you.
+ * @author DEMcKnight
+ */
+public class TiledRasterizer extends SoftwareRasterizer
+{
+	/**
+	 * The width and height of a tile, in pixels
+	 */
+	public static final int TILE_SIZE = 64;
+
+	/**
+	 * The number of points each point-sorting task handles
+	 */
+	private static final int CHUNK_POINTS = 65536;
+
+	/**
+	 * The pool tiles are rasterized on
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * True if the pool can only run one task at a time, in which case recording would only add overhead and everything is drawn immediately
+	 */
+	private final boolean direct;
+
+	/**
+	 * The number of columns and rows of tiles covering the framebuffer
+	 */
+	private final int tilesX, tilesY;
+
+	/**
+	 * One Raster per tile (row by row from the top), clipped to that tile
+	 */
+	private final Raster[] tiles;
+
+	/**
+	 * Each tile's recorded commands, in drawing order: the index of a recorded triangle or line, or ~r for point run r
+	 */
+	private final int[][] tileCommands;
+	private final int[] tileCommandCounts;
+
+	//Recorded triangles and lines: whether each is a line, where its pixel coordinates (6 for a triangle, 4 for a line) start in coords,
+	//and where its colors (3 for a triangle, 1 for a line) start in colors
+	private int shapeCount = 0;
+	private boolean[] isLine = new boolean[256];
+	private int[] coordStarts = new int[256], colorStarts = new int[256];
+	private double[] coords = new double[1024];
+	private int[] colors = new int[512];
+	private int coordCount = 0, colorCount = 0;
+
+	//Recorded point runs: each run's points are copied (in world coordinates) into runPoints, starting at runStarts[r]/2,
+	//and are drawn in runColors[r] with the transform held in runTransforms[6r, 6r+6)
+	private int runCount = 0;
+	private int[] runStarts = new int[9];
+	private int[] runColors = new int[8];
+	private double[] runTransforms = new double[6*8];
+	private double[] runPoints = new double[0];
+	private int pointCount = 0;
+
+	//Scratch for sorting points into tiles: each point's pixel index (or -1 if it's off the framebuffer) and tile,
+	//the points' pixel indices grouped by tile and then run, and where run r's points start within tile t's group (tileRunStarts[t*(runCount+1) + r])
+	private int[] pointPixels = new int[0];
+	private int[] pointTiles = new int[0];
+	private int[] sortedPixels = new int[0];
+	private int[] tileRunStarts = new int[0];
+
+	/**
+	 * Prepares a framebuffer of the given size that rasterizes on the common ForkJoinPool
+	 * @param width The width of the framebuffer, in pixels
+	 * @param height The height of the framebuffer, in pixels
+	 */
+	public TiledRasterizer(int width, int height)
+	{
+		this(width, height, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Prepares a framebuffer of the given size that rasterizes on the given pool
+	 * @param width The width of the framebuffer, in pixels
+	 * @param height The height of the framebuffer, in pixels
+	 * @param pool The pool to rasterize tiles on
+	 */
+	public TiledRasterizer(int width, int height, ForkJoinPool pool)
+	{
+		super(width, height);
+		this.pool = pool;
+		this.direct = pool.getParallelism() <= 1;
+		tilesX = (width + TILE_SIZE - 1)/TILE_SIZE;
+		tilesY = (height + TILE_SIZE - 1)/TILE_SIZE;
+		tiles = new Raster[tilesX*tilesY];
+		tileCommands = new int[tiles.length][];
+		tileCommandCounts = new int[tiles.length];
+		int[] pixels = super.getPixels();
+		for (int ty=0; ty<tilesY; ty++)
+		{
+			for (int tx=0; tx<tilesX; tx++)
+			{
+				int t = ty*tilesX + tx;
+				tiles[t] = new Raster(pixels, width, height);
+				tiles[t].setClip(tx*TILE_SIZE, ty*TILE_SIZE, Math.min(width, (tx+1)*TILE_SIZE), Math.min(height, (ty+1)*TILE_SIZE));
+				tileCommands[t] = new int[16];
+			}
+		}
+	}
+
+	/**
+	 * Draws everything recorded since the last call into the framebuffer, in parallel by tile, and forgets it
+	 */
+	public void finish()
+	{
+		if (shapeCount == 0 && runCount == 0)
+			return;
+
+		if (runCount > 0)
+			sortPoints();
+		pool.invoke(new RangeTask(0, tiles.length, this::drawTile));
+		reset();
+	}
+
+	/**
+	 * Fills the whole framebuffer with the given color, without blending. Anything recorded before this is discarded,
+	 * since it'd be covered anyway.
+	 * @param argb The color to fill with, as an ARGB pixel
+	 */
+	@Override
+	public void clear(int argb)
+	{
+		reset();
+		super.clear(argb);
+	}
+
+	/**
+	 * Finishes drawing, then returns the framebuffer itself (not a copy): ARGB pixels, row by row from the top
+	 * @return the framebuffer's pixels
+	 */
+	@Override
+	public int[] getPixels()
+	{
+		finish();
+		return super.getPixels();
+	}
+
+	/**
+	 * Finishes drawing, then returns a copy of the framebuffer as an image
+	 * @return a TYPE_INT_ARGB image of the framebuffer
+	 */
+	@Override
+	public BufferedImage toImage()
+	{
+		finish();
+		return super.toImage();
+	}
+
+	@Override
+	public void drawPoints(double[] xy, int offset, int n)
+	{
+		if (direct)
+		{
+			super.drawPoints(xy, offset, n);
+			return;
+		}
+		if (n <= 0)
+			return;
+
+		if (runCount == runColors.length)
+		{
+			runStarts = Arrays.copyOf(runStarts, 2*runCount + 1);
+			runColors = Arrays.copyOf(runColors, 2*runCount);
+			runTransforms = Arrays.copyOf(runTransforms, 12*runCount);
+		}
+		if (2*(pointCount + n) > runPoints.length)
+			runPoints = Arrays.copyOf(runPoints, Math.max(2*(pointCount + n), 2*runPoints.length));
+
+		//Copy the points, since the caller is free to change them before finish()
+		int r = runCount++;
+		System.arraycopy(xy, offset, runPoints, 2*pointCount, 2*n);
+		runStarts[r] = 2*pointCount;
+		runColors[r] = currentColor();
+		currentTransform(runTransforms, 6*r);
+		pointCount += n;
+		runStarts[runCount] = 2*pointCount;
+
+		//Whether or not the run has points in a tile, every tile replays it at this point in its commands
+		for (int t=0; t<tiles.length; t++)
+			addCommand(t, ~r);
+	}
+
+	@Override
+	void emitTriangle(double x0, double y0, double x1, double y1, double x2, double y2, int argb0, int argb1, int argb2)
+	{
+		if (direct)
+		{
+			super.emitTriangle(x0, y0, x1, y1, x2, y2, argb0, argb1, argb2);
+			return;
+		}
+		double minX = Math.min(x0, Math.min(x1, x2)), maxX = Math.max(x0, Math.max(x1, x2));
+		double minY = Math.min(y0, Math.min(y1, y2)), maxY = Math.max(y0, Math.max(y1, y2));
+		if (!onScreen(minX, minY, maxX, maxY))
+			return;
+
+		int s = recordShape(false, 6, 3);
+		double[] coords = this.coords;
+		int c = coordStarts[s];
+		coords[c] = x0;
+		coords[c+1] = y0;
+		coords[c+2] = x1;
+		coords[c+3] = y1;
+		coords[c+4] = x2;
+		coords[c+5] = y2;
+		int k = colorStarts[s];
+		colors[k] = argb0;
+		colors[k+1] = argb1;
+		colors[k+2] = argb2;
+		addToTiles(s, minX, minY, maxX, maxY);
+	}
+
+	@Override
+	void emitLine(double x0, double y0, double x1, double y1, int argb)
+	{
+		if (direct)
+		{
+			super.emitLine(x0, y0, x1, y1, argb);
+			return;
+		}
+		double minX = Math.min(x0, x1), maxX = Math.max(x0, x1);
+		double minY = Math.min(y0, y1), maxY = Math.max(y0, y1);
+		if (!onScreen(minX, minY, maxX, maxY))
+			return;
+
+		int s = recordShape(true, 4, 1);
+		int c = coordStarts[s];
+		coords[c] = x0;
+		coords[c+1] = y0;
+		coords[c+2] = x1;
+		coords[c+3] = y1;
+		colors[colorStarts[s]] = argb;
+		addToTiles(s, minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Records a triangle or line, making room for its coordinates and colors, and returns its index
+	 */
+	private int recordShape(boolean line, int numCoords, int numColors)
+	{
+		if (shapeCount == isLine.length)
+		{
+			isLine = Arrays.copyOf(isLine, 2*shapeCount);
+			coordStarts = Arrays.copyOf(coordStarts, 2*shapeCount);
+			colorStarts = Arrays.copyOf(colorStarts, 2*shapeCount);
+		}
+		if (coordCount + numCoords > coords.length)
+			coords = Arrays.copyOf(coords, 2*coords.length);
+		if (colorCount + numColors > colors.length)
+			colors = Arrays.copyOf(colors, 2*colors.length);
+
+		int s = shapeCount++;
+		isLine[s] = line;
+		coordStarts[s] = coordCount;
+		colorStarts[s] = colorCount;
+		coordCount += numCoords;
+		colorCount += numColors;
+		return s;
+	}
+
+	/**
+	 * True if a shape with the given bounding box (in pixels) could touch the framebuffer. Written so that NaN coordinates fail.
+	 */
+	private boolean onScreen(double minX, double minY, double maxX, double maxY)
+	{
+		return maxX >= 0 && minX < getWidth() && maxY >= 0 && minY < getHeight();
+	}
+
+	/**
+	 * Adds recorded shape s to the commands of every tile its bounding box touches
+	 */
+	private void addToTiles(int s, double minX, double minY, double maxX, double maxY)
+	{
+		int firstX = Math.max(0, (int)minX/TILE_SIZE), lastX = Math.min(tilesX - 1, (int)maxX/TILE_SIZE);
+		int firstY = Math.max(0, (int)minY/TILE_SIZE), lastY = Math.min(tilesY - 1, (int)maxY/TILE_SIZE);
+		for (int ty=firstY; ty<=lastY; ty++)
+			for (int tx=firstX; tx<=lastX; tx++)
+				addCommand(ty*tilesX + tx, s);
+	}
+
+	private void addCommand(int t, int command)
+	{
+		int n = tileCommandCounts[t];
+		if (n == tileCommands[t].length)
+			tileCommands[t] = Arrays.copyOf(tileCommands[t], 2*n);
+		tileCommands[t][n] = command;
+		tileCommandCounts[t] = n + 1;
+	}
+
+	/**
+	 * Transforms every recorded point into a pixel and groups the pixels by tile (then run, then drawing order).
+	 * The points are split into chunks (never straddling two runs) that are counted and then placed in parallel;
+	 * within a tile, each chunk's points land after every earlier chunk's, so the order survives.
+	 */
+	private void sortPoints()
+	{
+		int numTiles = tiles.length;
+		if (pointPixels.length < pointCount)
+		{
+			pointPixels = new int[pointCount];
+			pointTiles = new int[pointCount];
+		}
+
+		//Chunk c covers points [chunkStarts[c], chunkStarts[c+1]) of run chunkRuns[c]
+		int numChunks = 0;
+		for (int r=0; r<runCount; r++)
+			numChunks += ((runStarts[r+1] - runStarts[r])/2 + CHUNK_POINTS - 1)/CHUNK_POINTS;
+		int[] chunkStarts = new int[numChunks + 1], chunkRuns = new int[numChunks];
+		for (int r = 0, c = 0; r < runCount; r++)
+		{
+			for (int p = runStarts[r]/2, end = runStarts[r+1]/2; p < end; p += CHUNK_POINTS, c++)
+			{
+				chunkStarts[c] = p;
+				chunkRuns[c] = r;
+			}
+		}
+		chunkStarts[numChunks] = pointCount;
+
+		//Transform each chunk's points and count how many land in each tile
+		int[] cursors = new int[numChunks*numTiles];
+		pool.invoke(new RangeTask(0, numChunks, c -> locatePoints(chunkStarts[c], chunkStarts[c+1], chunkRuns[c], cursors, c*numTiles)));
+
+		//Turn the counts into where each chunk starts writing within each tile, noting where each run's points start in each tile
+		int stride = runCount + 1;
+		if (tileRunStarts.length < numTiles*stride)
+			tileRunStarts = new int[numTiles*stride];
+		int total = 0;
+		for (int t=0; t<numTiles; t++)
+		{
+			int run = 0;
+			for (int c=0; c<numChunks; c++)
+			{
+				while (run <= chunkRuns[c])
+					tileRunStarts[t*stride + run++] = total;
+				int n = cursors[c*numTiles + t];
+				cursors[c*numTiles + t] = total;
+				total += n;
+			}
+			while (run <= runCount)
+				tileRunStarts[t*stride + run++] = total;
+		}
+		if (sortedPixels.length < total)
+			sortedPixels = new int[Math.max(total, sortedPixels.length + sortedPixels.length/2)];
+
+		pool.invoke(new RangeTask(0, numChunks, c -> {
+			int[] pointPixels = this.pointPixels, pointTiles = this.pointTiles, sortedPixels = this.sortedPixels;
+			int base = c*numTiles;
+			for (int p = chunkStarts[c], end = chunkStarts[c+1]; p < end; p++)
+			{
+				if (pointPixels[p] >= 0)
+					sortedPixels[cursors[base + pointTiles[p]]++] = pointPixels[p];
+			}
+		}));
+	}
+
+	/**
+	 * Transforms points [from, to) of run r into pixel indices (as SoftwareRasterizer would plot them) and counts them into tileCounts
+	 */
+	private void locatePoints(int from, int to, int r, int[] tileCounts, int base)
+	{
+		double[] m = runTransforms, points = runPoints;
+		int o = 6*r;
+		double a = m[o], b = m[o+1], c = m[o+2], d = m[o+3], e = m[o+4], f = m[o+5];
+		int width = getWidth(), height = getHeight();
+		for (int p=from; p<to; p++)
+		{
+			double x = points[2*p], y = points[2*p+1];
+			double px = a*x + c*y + e, py = b*x + d*y + f;
+			if (!(px >= 0 && px < width && py >= 0 && py < height))
+			{
+				pointPixels[p] = -1;
+				continue;
+			}
+			int ix = (int)px, iy = (int)py;
+			int t = (iy/TILE_SIZE)*tilesX + ix/TILE_SIZE;
+			pointPixels[p] = iy*width + ix;
+			pointTiles[p] = t;
+			tileCounts[base + t]++;
+		}
+	}
+
+	/**
+	 * Replays every command recorded for tile t into that tile's pixels
+	 */
+	private void drawTile(int t)
+	{
+		Raster tile = tiles[t];
+		int[] commands = tileCommands[t];
+		int[] pixels = super.getPixels();
+		double[] coords = this.coords;
+		int[] colors = this.colors;
+		for (int i = 0, n = tileCommandCounts[t]; i < n; i++)
+		{
+			int s = commands[i];
+			if (s < 0)
+			{
+				//Point run ~s: its pixels in this tile are already sorted out, so just blend them in
+				int r = ~s, argb = runColors[r], at = t*(runCount + 1) + r;
+				for (int j = tileRunStarts[at], end = tileRunStarts[at+1]; j < end; j++)
+				{
+					int px = sortedPixels[j];
+					pixels[px] = Raster.blend(pixels[px], argb);
+				}
+				continue;
+			}
+
+			int c = coordStarts[s], k = colorStarts[s];
+			if (isLine[s])
+				tile.drawLine(coords[c], coords[c+1], coords[c+2], coords[c+3], colors[k]);
+			else
+				tile.fillTriangle(coords[c], coords[c+1], coords[c+2], coords[c+3], coords[c+4], coords[c+5], colors[k], colors[k+1], colors[k+2]);
+		}
+	}
+
+	/**
+	 * Forgets everything recorded since the last finish()
+	 */
+	private void reset()
+	{
+		shapeCount = 0;
+		coordCount = 0;
+		colorCount = 0;
+		runCount = 0;
+		pointCount = 0;
+		Arrays.fill(tileCommandCounts, 0);
+	}
+
+	/**
+	 * A fork/join task that runs an action for every index in a range, splitting the range in half until one index remains
+	 */
+	private static class RangeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final IntConsumer action;
+
+		RangeTask(int from, int to, IntConsumer action)
+		{
+			this.from = from;
+			this.to = to;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from > 1)
+			{
+				int mid = (from + to) >>> 1;
+				invokeAll(new RangeTask(from, mid, action), new RangeTask(mid, to, action));
+				return;
+			}
+			if (to > from)
+				action.accept(from);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package reusable.rendering;
+
+import java.awt.Color;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import reusable.graphicsPrimitives.Affine2;
+
+/**
+ * A growable list of colored 2D vertices, packed as interleaved floats (x, y, r, g, b, a) ready to be copied into a vertex buffer.
+ * Vertices are transformed on the CPU as they're added, so a whole frame's worth of shapes can be submitted with a single draw call.
+ * Doesn't touch OpenGL at all, so filling a batch can be tested and benchmarked headlessly (see BatchRenderer for drawing one).
+ * @author DEMcKnight
+ */
+public class VertexBatch
+{
+	/**
+	 * The number of floats each vertex takes up: a position (x, y) followed by a color (r, g, b, a)
+	 */
+	public static final int FLOATS_PER_VERTEX = 6;
+
+	/**
+	 * The number of bytes each vertex takes up in a vertex buffer
+	 */
+	public static final int STRIDE_BYTES = FLOATS_PER_VERTEX*4;
+
+	/**
+	 * The byte offset of each vertex's color from the start of the vertex
+	 */
+	public static final int COLOR_OFFSET_BYTES = 2*4;
+
+	/**
+	 * The packed vertices; only the first vertexCount*FLOATS_PER_VERTEX floats are in use
+	 */
+	private float[] data;
+
+	/**
+	 * The number of vertices in this batch
+	 */
+	private int vertexCount = 0;
+
+	//The color given to vertices as they're added
+	private float red = 1, green = 1, blue = 1, alpha = 1;
+
+	/**
+	 * Scratch space the vertices of the shape being added are transformed into, as interleaved (x, y) pairs
+	 */
+	private double[] placed = new double[64];
+
+	/**
+	 * Prepares an empty batch with room for 1024 vertices
+	 */
+	public VertexBatch()
+	{
+		this(1024);
+	}
+
+	/**
+	 * Prepares an empty batch
+	 * @param initialVertices The number of vertices the batch initially has room for
+	 */
+	public VertexBatch(int initialVertices)
+	{
+		data = new float[Math.max(1, initialVertices)*FLOATS_PER_VERTEX];
+	}
+
+	/**
+	 * Removes every vertex from this batch, keeping its storage for reuse
+	 */
+	public void clear()
+	{
+		vertexCount = 0;
+	}
+
+	/**
+	 * Returns the number of vertices in this batch
+	 * @return the number of vertices in this batch
+	 */
+	public int getVertexCount()
+	{
+		return vertexCount;
+	}
+
+	/**
+	 * Returns the array backing this batch. Its first getVertexCount()*FLOATS_PER_VERTEX floats are the packed vertices.
+	 * @return the array backing this batch
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	/**
+	 * Sets the color given to the vertices added after this call
+	 * @param color The color to use
+	 */
+	public void setColor(Color color)
+	{
+		setColor(color.getRed()/255f, color.getGreen()/255f, color.getBlue()/255f, color.getAlpha()/255f);
+	}
+
+	/**
+	 * Sets the color given to the vertices added after this call
+	 * @param red The red component, in [0, 1]
+	 * @param green The green component, in [0, 1]
+	 * @param blue The blue component, in [0, 1]
+	 * @param alpha The alpha component, in [0, 1]
+	 */
+	public void setColor(float red, float green, float blue, float alpha)
+	{
+		this.red = red;
+		this.green = green;
+		this.blue = blue;
+		this.alpha = alpha;
+	}
+
+	/**
+	 * Adds a single vertex in the current color
+	 * @param x The x-coordinate of the vertex
+	 * @param y The y-coordinate of the vertex
+	 */
+	public void addVertex(double x, double y)
+	{
+		ensureCapacity(vertexCount + 1);
+		put(vertexCount*FLOATS_PER_VERTEX, (float)x, (float)y);
+		vertexCount++;
+	}
+
+	/**
+	 * Adds indexed triangles over interleaved (x, y) vertices in the current color, transforming each vertex by the given placement
+	 * (e.g., Affine2.placement(scale, radians, x, y) to place it the way glTranslated, glRotated and glScaled would).
+	 * Every vertex is transformed once, in one batch, however many triangles share it.
+	 * @param vertices The untransformed vertices, as interleaved (x, y) pairs
+	 * @param triangles Triples of indices into vertices
+	 * @param placement The transformation to apply to each vertex
+	 */
+	public void addTriangles(double[] vertices, int[] triangles, Affine2 placement)
+	{
+		double[] placed = place(vertices, vertices.length/2, placement);
+
+		ensureCapacity(vertexCount + triangles.length);
+		int offset = vertexCount*FLOATS_PER_VERTEX;
+		for (int index:triangles)
+		{
+			put(offset, (float)placed[2*index], (float)placed[2*index+1]);
+			offset += FLOATS_PER_VERTEX;
+		}
+		vertexCount += triangles.length;
+	}
+
+	/**
+	 * Adds the closed outline through the first numVertices interleaved (x, y) vertices as separate line segments (for GL_LINES)
+	 * in the current color, transforming each vertex like addTriangles does
+	 * @param vertices The untransformed vertices, as interleaved (x, y) pairs
+	 * @param numVertices The number of leading vertices the outline passes through
+	 * @param placement The transformation to apply to each vertex
+	 */
+	public void addLineLoop(double[] vertices, int numVertices, Affine2 placement)
+	{
+		if (numVertices < 2)
+			return;
+		double[] placed = place(vertices, numVertices, placement);
+
+		ensureCapacity(vertexCount + 2*numVertices);
+		int offset = vertexCount*FLOATS_PER_VERTEX;
+
+		//Every vertex ends one segment and starts the next, so write it twice
+		float firstX = (float)placed[0];
+		float firstY = (float)placed[1];
+		put(offset, firstX, firstY);
+		offset += FLOATS_PER_VERTEX;
+		for (int i=1; i<numVertices; i++)
+		{
+			float px = (float)placed[2*i], py = (float)placed[2*i+1];
+			put(offset, px, py);
+			put(offset + FLOATS_PER_VERTEX, px, py);
+			offset += 2*FLOATS_PER_VERTEX;
+		}
+		put(offset, firstX, firstY);
+		vertexCount += 2*numVertices;
+	}
+
+	/**
+	 * Copies this batch's packed vertices into the given buffer at its position, advancing the position past them
+	 * @param buffer The buffer to copy into. Must have at least getVertexCount()*FLOATS_PER_VERTEX floats remaining.
+	 */
+	public void copyTo(FloatBuffer buffer)
+	{
+		buffer.put(data, 0, vertexCount*FLOATS_PER_VERTEX);
+	}
+
+	/**
+	 * Transforms the first n vertices by the given placement into the scratch array, growing it if needed
+	 * @return the scratch array, holding the transformed vertices
+	 */
+	private double[] place(double[] vertices, int n, Affine2 placement)
+	{
+		if (placed.length < 2*n)
+			placed = new double[Math.max(2*n, 2*placed.length)];
+		placement.apply(vertices, placed, n);
+		return placed;
+	}
+
+	/**
+	 * Writes a vertex with the current color at the given float offset
+	 */
+	private void put(int offset, float x, float y)
+	{
+		float[] data = this.data;
+		data[offset] = x;
+		data[offset+1] = y;
+		data[offset+2] = red;
+		data[offset+3] = green;
+		data[offset+4] = blue;
+		data[offset+5] = alpha;
+	}
+
+	/**
+	 * Grows the backing array (at least doubling it) so that it can hold the given number of vertices
+	 */
+	private void ensureCapacity(int vertices)
+	{
+		int needed = vertices*FLOATS_PER_VERTEX;
+		if (needed > data.length)
+			data = Arrays.copyOf(data, Math.max(needed, 2*data.length));
+	}
+}
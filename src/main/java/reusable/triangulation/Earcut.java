@@ -1,9 +1,15 @@
 
 package reusable.triangulation;
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Taken from Jani Simomaa's code at GitHub, with minor modifications by David McKnight
@@ -33,16 +39,165 @@ public final class Earcut {
      * @return List containing sets of three vertex indices. Each set corresponds to a triangle in the given array.
      */
     public static List<Integer> earcut(double[] data, int[] holeIndices, int dim) {
+        Workspace workspace = new Workspace();
+        triangulate(data, holeIndices, dim, workspace);
 
-        boolean hasHoles = holeIndices != null && holeIndices.length > 0;
-        int outerLen = hasHoles ? holeIndices[0] * dim : data.length;
+        List<Integer> triangles = new ArrayList<>(workspace.triangleCount);
+        for (int i = 0; i < workspace.triangleCount; i++)
+            triangles.add(workspace.triangles[i]);
+        return triangles;
+    }
+
+    /**
+     * Triangulates the given polygon, writing the vertex indices of the resulting triangles into a caller-provided array.
+     * Nothing is allocated once the workspace has grown to fit the largest polygon it has seen.
+     * 
+     * @param data A flat array of vertex coordinates (i.e., [x0,y0, x1,y1, x2,y2, ...])
+     * @param holeIndices An array of hole indices (see earcut(double[], int[], int)), or null
+     * @param dim The number of coordinates per vertex in the input array
+     * @param out The array to write (sequential) triples of vertex indices into. maxIndices gives a size that's always big enough.
+     * @param offset The index in out to write the first vertex index at
+     * @param workspace The scratch space to triangulate in. Its previous contents are discarded.
+     * @return The number of vertex indices written (three per triangle)
+     * @throws IndexOutOfBoundsException if the triangles don't fit in out
+     */
+    public static int earcut(double[] data, int[] holeIndices, int dim, int[] out, int offset, Workspace workspace) {
+        triangulate(data, holeIndices, dim, workspace);
+
+        int count = workspace.triangleCount;
+        if (offset < 0 || count > out.length - offset)
+            throw new IndexOutOfBoundsException(count + " indices don't fit in an array of length " + out.length + " at offset " + offset);
+        System.arraycopy(workspace.triangles, 0, out, offset, count);
+        return count;
+    }
+
+    /**
+     * Triangulates the given polygon, putting the vertex indices of the resulting triangles into a caller-provided buffer at its current position.
+     * Nothing is allocated once the workspace has grown to fit the largest polygon it has seen.
+     * 
+     * @param data A flat array of vertex coordinates (i.e., [x0,y0, x1,y1, x2,y2, ...])
+     * @param holeIndices An array of hole indices (see earcut(double[], int[], int)), or null
+     * @param dim The number of coordinates per vertex in the input array
+     * @param out The buffer to put (sequential) triples of vertex indices into
+     * @param workspace The scratch space to triangulate in. Its previous contents are discarded.
+     * @return The number of vertex indices put (three per triangle)
+     * @throws java.nio.BufferOverflowException if the triangles don't fit in the buffer's remaining space
+     */
+    public static int earcut(double[] data, int[] holeIndices, int dim, IntBuffer out, Workspace workspace) {
+        triangulate(data, holeIndices, dim, workspace);
+        out.put(workspace.triangles, 0, workspace.triangleCount);
+        return workspace.triangleCount;
+    }
 
-        Node outerNode = linkedList(data, 0, outerLen, dim, true);
+    /**
+     * Returns the most vertex indices that triangulating a polygon with the given number of vertices and holes can produce
+     * 
+     * @param numVertices The total number of vertices, including those of holes
+     * @param numHoles The number of holes
+     * @return The most vertex indices that triangulating such a polygon can produce
+     */
+    public static int maxIndices(int numVertices, int numHoles) {
+        // every hole adds two bridge vertices, and a polygon with n vertices has at most n - 2 triangles
+        return Math.max(0, 3 * (numVertices + 2 * numHoles - 2));
+    }
 
-        List<Integer> triangles = new ArrayList<>();
+    /**
+     * Triangulates a set of polygons packed into one array on the common ForkJoinPool (see earcutBatch(double[], int[], int[], int, ForkJoinPool))
+     * 
+     * @param data The vertex coordinates of every polygon, one polygon after another
+     * @param polygonOffsets The index of each polygon's first vertex, followed by the index just past the last polygon's last vertex
+     * @param holeIndices The ascending vertex indices at which holes start, or null
+     * @param dim The number of coordinates per vertex in the input array
+     * @return The triangles of every polygon in order, as (sequential) triples of vertex indices into data
+     */
+    public static int[] earcutBatch(double[] data, int[] polygonOffsets, int[] holeIndices, int dim) {
+        return earcutBatch(data, polygonOffsets, holeIndices, dim, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Triangulates a set of independent polygons packed into one array, spreading the polygons over the given pool.
+     * Each worker triangulates in a workspace borrowed from a pool that belongs to this call (so there are never more workspaces than
+     * leaf tasks running at once, and they're all garbage once the call returns), and writes every polygon's triangles straight
+     * into that polygon's own slice of a shared output array, so the workers never contend with each other.
+     * 
+     * @param data The vertex coordinates of every polygon, one polygon after another
+     * @param polygonOffsets The index of each polygon's first vertex, followed by the index just past the last polygon's last vertex
+     *        (i.e., polygon p is made of vertices polygonOffsets[p] up to but not including polygonOffsets[p + 1])
+     * @param holeIndices The ascending vertex indices at which holes start, or null. Each hole belongs to the polygon whose vertices it lies among,
+     *        and must come after that polygon's outer ring.
+     * @param dim The number of coordinates per vertex in the input array
+     * @param pool The pool to triangulate on
+     * @return The triangles of every polygon in order, as (sequential) triples of vertex indices into data
+     */
+    public static int[] earcutBatch(double[] data, int[] polygonOffsets, int[] holeIndices, int dim, ForkJoinPool pool) {
+        int numPolygons = polygonOffsets.length - 1;
+        if (numPolygons < 0)
+            throw new IllegalArgumentException("polygonOffsets must hold at least one offset");
+        for (int p = 0; p < numPolygons; p++)
+            if (polygonOffsets[p] < 0 || polygonOffsets[p] > polygonOffsets[p + 1])
+                throw new IllegalArgumentException("polygonOffsets must be non-negative and ascending, got " + polygonOffsets[p] + " then " + polygonOffsets[p + 1]);
+        if ((long) polygonOffsets[numPolygons] * dim > data.length)
+            throw new IllegalArgumentException("polygonOffsets runs past the end of data");
+
+        // find which holes belong to which polygon
+        int numHoles = holeIndices == null ? 0 : holeIndices.length;
+        int[] holeStarts = new int[numPolygons + 1];
+        int h = 0;
+        for (int p = 0; p < numPolygons; p++) {
+            holeStarts[p] = h;
+            while (h < numHoles && holeIndices[h] < polygonOffsets[p + 1]) {
+                if (holeIndices[h] <= polygonOffsets[p] || (h > 0 && holeIndices[h] <= holeIndices[h - 1]))
+                    throw new IllegalArgumentException("Hole index " + holeIndices[h] + " isn't ascending or doesn't follow its polygon's outer ring");
+                h++;
+            }
+        }
+        holeStarts[numPolygons] = h;
+        if (h != numHoles)
+            throw new IllegalArgumentException("Hole index " + holeIndices[h] + " doesn't lie inside any polygon");
+
+        // give every polygon a slice of the output big enough for its worst case
+        int[] slots = new int[numPolygons];
+        int capacity = 0;
+        for (int p = 0; p < numPolygons; p++) {
+            slots[p] = capacity;
+            capacity += maxIndices(polygonOffsets[p + 1] - polygonOffsets[p], holeStarts[p + 1] - holeStarts[p]);
+        }
+
+        int[] out = new int[capacity];
+        int[] counts = new int[numPolygons];
+        Queue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+        pool.invoke(new BatchTask(data, polygonOffsets, holeIndices, holeStarts, dim, out, slots, counts, workspaces, 0, numPolygons));
+
+        // close the gaps the worst-case slices left
+        int total = 0;
+        for (int p = 0; p < numPolygons; p++) {
+            System.arraycopy(out, slots[p], out, total, counts[p]);
+            total += counts[p];
+        }
+        return Arrays.copyOf(out, total);
+    }
+
+    private static void triangulate(double[] data, int[] holeIndices, int dim, Workspace workspace) {
+        triangulate(data, 0, data.length, holeIndices, 0, holeIndices == null ? 0 : holeIndices.length, dim, workspace);
+    }
+
+    // triangulates the polygon occupying data[start, end), whose holes start at the vertex indices holeIndices[holeFrom, holeTo);
+    // the resulting triangles index vertices of the whole data array
+    private static void triangulate(double[] data, int start, int end, int[] holeIndices, int holeFrom, int holeTo, int dim, Workspace workspace) {
+        workspace.reset();
+
+        boolean hasHoles = holeIndices != null && holeTo > holeFrom;
+        int outerLen = hasHoles ? holeIndices[holeFrom] * dim : end;
+
+        if (!hasHoles && end - start >= LARGE_POLYGON_VERTICES * dim) {
+            earcutLarge(data, start, end, dim, workspace);
+            return;
+        }
+
+        Node outerNode = linkedList(data, start, outerLen, dim, true, workspace);
 
         if (outerNode == null)
-            return triangles;
+            return;
 
         double minX = 0;
         double minY = 0;
@@ -51,15 +206,15 @@ public final class Earcut {
         double size = Double.MIN_VALUE;
 
         if (hasHoles)
-            outerNode = eliminateHoles(data, holeIndices, outerNode, dim);
+            outerNode = eliminateHoles(data, end, holeIndices, holeFrom, holeTo, outerNode, dim, workspace);
 
         // if the shape is not too simple, we'll use z-order curve hash later;
         // calculate polygon bbox
-        if (data.length > 80 * dim) {
-            minX = maxX = data[0];
-            minY = maxY = data[1];
+        if (end - start > 80 * dim) {
+            minX = maxX = data[start];
+            minY = maxY = data[start + 1];
 
-            for (int i = dim; i < outerLen; i += dim) {
+            for (int i = start + dim; i < outerLen; i += dim) {
                 double x = data[i];
                 double y = data[i + 1];
                 if (x < minX)
@@ -77,12 +232,52 @@ public final class Earcut {
             size = Math.max(maxX - minX, maxY - minY);
         }
 
-        earcutLinked(outerNode, triangles, dim, minX, minY, size, Integer.MIN_VALUE);
+        earcutLinked(outerNode, workspace, dim, minX, minY, size, Integer.MIN_VALUE);
+    }
 
-        return triangles;
+    // slices a large hole-free polygon with ZOrderEarcut; if that gets stuck, the rest of the polygon is relinked into nodes
+    // (keeping its z-order) and finished by the linked path's later passes, just as earcutLinked would have
+    private static void earcutLarge(double[] data, int start, int end, int dim, Workspace workspace) {
+        ZOrderEarcut large = workspace.zOrderEarcut();
+        int stuck = large.earcut(data, start, end, dim, workspace);
+        if (stuck < 0)
+            return;
+
+        Node[] nodes = workspace.relinked(large.n);
+        Node first = null;
+        Node last = null;
+        int p = stuck;
+        do {
+            Node node = workspace.newNode(large.vertex[p] * dim, large.x[p], large.y[p]);
+            node.z = large.z[p];
+            nodes[p] = node;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+                node.prev = last;
+            }
+            last = node;
+            p = large.next[p];
+        } while (p != stuck);
+        last.next = first;
+        first.prev = last;
+
+        Node tail = null;
+        for (int k = 0; k < large.sortedLength; k++) {
+            int q = large.sortedNode[k];
+            if (q < 0)
+                continue;
+            nodes[q].prevZ = tail;
+            if (tail != null)
+                tail.nextZ = nodes[q];
+            tail = nodes[q];
+        }
+
+        earcutLinked(filterPoints(first, null), workspace, dim, large.minX, large.minY, large.size, 1);
     }
 
-    private static void earcutLinked(Node ear, List<Integer> triangles, int dim, double minX, double minY, double size, int pass) {
+    private static void earcutLinked(Node ear, Workspace workspace, int dim, double minX, double minY, double size, int pass) {
         if (ear == null)
             return;
 
@@ -99,9 +294,7 @@ public final class Earcut {
 
             if (size != Double.MIN_VALUE ? isEarHashed(ear, minX, minY, size) : isEar(ear)) {
                 // cut off the triangle
-                triangles.add(prev.i / dim);
-                triangles.add(ear.i / dim);
-                triangles.add(next.i / dim);
+                workspace.addTriangle(prev.i / dim, ear.i / dim, next.i / dim);
 
                 removeNode(ear);
 
@@ -119,18 +312,18 @@ public final class Earcut {
             if (ear == stop) {
                 // try filtering points and slicing again
                 if (pass == Integer.MIN_VALUE) {
-                    earcutLinked(filterPoints(ear, null), triangles, dim, minX, minY, size, 1);
+                    earcutLinked(filterPoints(ear, null), workspace, dim, minX, minY, size, 1);
 
                     // if this didn't work, try curing all small
                     // self-intersections locally
                 } else if (pass == 1) {
-                    ear = cureLocalIntersections(ear, triangles, dim);
-                    earcutLinked(ear, triangles, dim, minX, minY, size, 2);
+                    ear = cureLocalIntersections(ear, workspace, dim);
+                    earcutLinked(ear, workspace, dim, minX, minY, size, 2);
 
                     // as a last resort, try splitting the remaining polygon
                     // into two
                 } else if (pass == 2) {
-                    splitEarcut(ear, triangles, dim, minX, minY, size);
+                    splitEarcut(ear, workspace, dim, minX, minY, size);
                 }
 
                 break;
@@ -138,7 +331,7 @@ public final class Earcut {
         }
     }
 
-    private static void splitEarcut(Node start, List<Integer> triangles, int dim, double minX, double minY, double size) {
+    private static void splitEarcut(Node start, Workspace workspace, int dim, double minX, double minY, double size) {
         // look for a valid diagonal that divides the polygon into two
         Node a = start;
         do {
@@ -146,15 +339,15 @@ public final class Earcut {
             while (b != a.prev) {
                 if (a.i != b.i && isValidDiagonal(a, b)) {
                     // split the polygon in two by the diagonal
-                    Node c = splitPolygon(a, b);
+                    Node c = splitPolygon(a, b, workspace);
 
                     // filter colinear points around the cuts
                     a = filterPoints(a, a.next);
                     c = filterPoints(c, c.next);
 
                     // run earcut on each half
-                    earcutLinked(a, triangles, dim, minX, minY, size, Integer.MIN_VALUE);
-                    earcutLinked(c, triangles, dim, minX, minY, size, Integer.MIN_VALUE);
+                    earcutLinked(a, workspace, dim, minX, minY, size, Integer.MIN_VALUE);
+                    earcutLinked(c, workspace, dim, minX, minY, size, Integer.MIN_VALUE);
                     return;
                 }
                 b = b.next;
@@ -198,16 +391,14 @@ public final class Earcut {
         return area(p1, q1, p2) > 0 != area(p1, q1, q2) > 0 && area(p2, q2, p1) > 0 != area(p2, q2, q1) > 0;
     }
 
-    private static Node cureLocalIntersections(Node start, List<Integer> triangles, int dim) {
+    private static Node cureLocalIntersections(Node start, Workspace workspace, int dim) {
         Node p = start;
         do {
             Node a = p.prev, b = p.next.next;
 
             if (!equals(a, b) && intersects(a, p, p.next, b) && locallyInside(a, b) && locallyInside(b, a)) {
 
-                triangles.add(a.i / dim);
-                triangles.add(p.i / dim);
-                triangles.add(b.i / dim);
+                workspace.addTriangle(a.i / dim, p.i / dim, b.i / dim);
 
                 // remove two nodes involved
                 removeNode(p);
@@ -277,19 +468,24 @@ public final class Earcut {
     }
 
     private static double zOrder(double x, double y, double minX, double minY, double size) {
+        return mortonCode(x, y, minX, minY, size);
+    }
+
+    // interleaves the bits of x and y (relative to the polygon's bbox) into a 30-bit z-order curve value
+    static int mortonCode(double x, double y, double minX, double minY, double size) {
         // coords are transformed into non-negative 15-bit integer range
-        int lx = new Double(32767 * (x - minX) / size).intValue();
-        int ly = new Double(32767 * (y - minY) / size).intValue();
+        int lx = (int) (32767 * (x - minX) / size);
+        int ly = (int) (32767 * (y - minY) / size);
 
         lx = (lx | (lx << 8)) & 0x00FF00FF;
         lx = (lx | (lx << 4)) & 0x0F0F0F0F;
         lx = (lx | (lx << 2)) & 0x33333333;
         lx = (lx | (lx << 1)) & 0x55555555;
 
-        y = (ly | (ly << 8)) & 0x00FF00FF;
-        y = (ly | (ly << 4)) & 0x0F0F0F0F;
-        y = (ly | (ly << 2)) & 0x33333333;
-        y = (ly | (ly << 1)) & 0x55555555;
+        ly = (ly | (ly << 8)) & 0x00FF00FF;
+        ly = (ly | (ly << 4)) & 0x0F0F0F0F;
+        ly = (ly | (ly << 2)) & 0x33333333;
+        ly = (ly | (ly << 1)) & 0x55555555;
 
         return lx | (ly << 1);
     }
@@ -374,35 +570,26 @@ public final class Earcut {
         return list;
     }
 
-    private static Node eliminateHoles(double[] data, int[] holeIndices, Node outerNode, int dim) {
-        List<Node> queue = new ArrayList<>();
+    private static Node eliminateHoles(double[] data, int dataEnd, int[] holeIndices, int holeFrom, int holeTo, Node outerNode, int dim, Workspace workspace) {
+        List<Node> queue = workspace.holeQueue;
+        queue.clear();
 
-        int len = holeIndices.length;
-        for (int i = 0; i < len; i++) {
+        for (int i = holeFrom; i < holeTo; i++) {
             int start = holeIndices[i] * dim;
-            int end = i < len - 1 ? holeIndices[i + 1] * dim : data.length;
-            Node list = linkedList(data, start, end, dim, false);
+            int end = i < holeTo - 1 ? holeIndices[i + 1] * dim : dataEnd;
+            Node list = linkedList(data, start, end, dim, false, workspace);
             if (list == list.next)
                 list.steiner = true;
             queue.add(getLeftmost(list));
         }
 
-        queue.sort(new Comparator<Node>() {
-
-            @Override
-            public int compare(Node o1, Node o2) {
-                if (o1.x - o2.x > 0)
-                    return 1;
-                else if (o1.x - o2.x < 0)
-                    return -2;
-                return 0;
-            }
-        });
+        queue.sort(LEFTMOST_FIRST);
 
         for (Node node : queue) {
-            eliminateHole(node, outerNode);
+            eliminateHole(node, outerNode, workspace);
             outerNode = filterPoints(outerNode, outerNode.next);
         }
+        queue.clear();
 
         return outerNode;
     }
@@ -441,17 +628,17 @@ public final class Earcut {
         return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
     }
 
-    private static void eliminateHole(Node hole, Node outerNode) {
+    private static void eliminateHole(Node hole, Node outerNode, Workspace workspace) {
         outerNode = findHoleBridge(hole, outerNode);
         if (outerNode != null) {
-            Node b = splitPolygon(outerNode, hole);
+            Node b = splitPolygon(outerNode, hole, workspace);
             filterPoints(b, b.next);
         }
     }
 
-    private static Node splitPolygon(Node a, Node b) {
-        Node a2 = new Node(a.i, a.x, a.y);
-        Node b2 = new Node(b.i, b.x, b.y);
+    private static Node splitPolygon(Node a, Node b, Workspace workspace) {
+        Node a2 = workspace.newNode(a.i, a.x, a.y);
+        Node b2 = workspace.newNode(b.i, b.x, b.y);
         Node an = a.next;
         Node bp = b.prev;
 
@@ -540,7 +727,7 @@ public final class Earcut {
         return area(a.prev, a, a.next) < 0 ? area(a, b, a.next) >= 0 && area(a, a.prev, b) >= 0 : area(a, b, a.prev) < 0 || area(a, a.next, b) < 0;
     }
 
-    private static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+    static boolean pointInTriangle(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
         return (cx - px) * (ay - py) - (ax - px) * (cy - py) >= 0 && (ax - px) * (by - py) - (bx - px) * (ay - py) >= 0
                 && (bx - px) * (cy - py) - (cx - px) * (by - py) >= 0;
     }
@@ -556,15 +743,15 @@ public final class Earcut {
         return leftmost;
     }
 
-    private static Node linkedList(double[] data, int start, int end, int dim, boolean clockwise) {
+    private static Node linkedList(double[] data, int start, int end, int dim, boolean clockwise, Workspace workspace) {
         Node last = null;
         if (clockwise == (signedArea(data, start, end, dim) > 0)) {
             for (int i = start; i < end; i += dim) {
-                last = insertNode(i, data[i], data[i + 1], last);
+                last = insertNode(i, data[i], data[i + 1], last, workspace);
             }
         } else {
             for (int i = (end - dim); i >= start; i -= dim) {
-                last = insertNode(i, data[i], data[i + 1], last);
+                last = insertNode(i, data[i], data[i + 1], last, workspace);
             }
         }
 
@@ -587,8 +774,8 @@ public final class Earcut {
         }
     }
 
-    private static Node insertNode(int i, double x, double y, Node last) {
-        Node p = new Node(i, x, y);
+    private static Node insertNode(int i, double x, double y, Node last, Workspace workspace) {
+        Node p = workspace.newNode(i, x, y);
 
         if (last == null) {
             p.prev = p;
@@ -612,6 +799,153 @@ public final class Earcut {
         return sum;
     }
 
+    // orders holes by their leftmost points' x-coordinates
+    private static final Comparator<Node> LEFTMOST_FIRST = new Comparator<Node>() {
+
+        @Override
+        public int compare(Node o1, Node o2) {
+            if (o1.x - o2.x > 0)
+                return 1;
+            else if (o1.x - o2.x < 0)
+                return -2;
+            return 0;
+        }
+    };
+
+    // the number of vertices from which hole-free polygons are sliced with ZOrderEarcut rather than as linked nodes
+    private static final int LARGE_POLYGON_VERTICES = 1024;
+
+    // the number of vertices below which a batch task triangulates its polygons itself rather than splitting them further
+    private static final int BATCH_GRAIN = 4096;
+
+    /**
+     * A fork/join task that triangulates a range of a batch's polygons, splitting the range in half (by vertex count) until it's small
+     */
+    private static final class BatchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] data;
+        private final int[] polygonOffsets;
+        private final int[] holeIndices;
+        private final int[] holeStarts;
+        private final int dim;
+        private final int[] out;
+        private final int[] slots;
+        private final int[] counts;
+        private final Queue<Workspace> workspaces;
+        private final int firstPolygon;
+        private final int lastPolygon;
+
+        BatchTask(double[] data, int[] polygonOffsets, int[] holeIndices, int[] holeStarts, int dim, int[] out, int[] slots, int[] counts, Queue<Workspace> workspaces, int firstPolygon, int lastPolygon) {
+            this.data = data;
+            this.polygonOffsets = polygonOffsets;
+            this.holeIndices = holeIndices;
+            this.holeStarts = holeStarts;
+            this.dim = dim;
+            this.out = out;
+            this.slots = slots;
+            this.counts = counts;
+            this.workspaces = workspaces;
+            this.firstPolygon = firstPolygon;
+            this.lastPolygon = lastPolygon;
+        }
+
+        @Override
+        protected void compute() {
+            int firstVertex = polygonOffsets[firstPolygon];
+            int lastVertex = polygonOffsets[lastPolygon];
+            if (lastPolygon - firstPolygon > 1 && lastVertex - firstVertex > BATCH_GRAIN) {
+                // split where half of the vertices are on each side, leaving at least one polygon per half
+                int mid = Arrays.binarySearch(polygonOffsets, firstPolygon, lastPolygon, (firstVertex + lastVertex) >>> 1);
+                if (mid < 0)
+                    mid = -mid - 1;
+                mid = Math.max(firstPolygon + 1, Math.min(lastPolygon - 1, mid));
+
+                invokeAll(new BatchTask(data, polygonOffsets, holeIndices, holeStarts, dim, out, slots, counts, workspaces, firstPolygon, mid),
+                        new BatchTask(data, polygonOffsets, holeIndices, holeStarts, dim, out, slots, counts, workspaces, mid, lastPolygon));
+                return;
+            }
+
+            // borrow a workspace another leaf has finished with, if there is one, and hand it back for the next leaf
+            Workspace workspace = workspaces.poll();
+            if (workspace == null)
+                workspace = new Workspace();
+            for (int p = firstPolygon; p < lastPolygon; p++) {
+                triangulate(data, polygonOffsets[p] * dim, polygonOffsets[p + 1] * dim, holeIndices, holeStarts[p], holeStarts[p + 1], dim, workspace);
+                System.arraycopy(workspace.triangles, 0, out, slots[p], workspace.triangleCount);
+                counts[p] = workspace.triangleCount;
+            }
+            workspaces.offer(workspace);
+        }
+    }
+
+    /**
+     * Reusable scratch space for triangulating: a pool of linked-list nodes and a growable buffer of triangle indices.
+     * Triangulating with the same workspace again reuses both, so repeated triangulation produces no garbage.
+     * A workspace must not be used by more than one thread at a time.
+     */
+    public static final class Workspace {
+
+        private Node[] nodes = new Node[64];
+        private int nodeCount = 0;
+
+        private int[] triangles = new int[192];
+        private int triangleCount = 0;
+
+        private final List<Node> holeQueue = new ArrayList<>();
+
+        private ZOrderEarcut zOrderEarcut;
+        private Node[] relinked = new Node[0];
+
+        /**
+         * Returns the number of vertex indices produced by the last triangulation done in this workspace
+         * 
+         * @return The number of vertex indices produced by the last triangulation
+         */
+        public int getIndexCount() {
+            return triangleCount;
+        }
+
+        private ZOrderEarcut zOrderEarcut() {
+            if (zOrderEarcut == null)
+                zOrderEarcut = new ZOrderEarcut();
+            return zOrderEarcut;
+        }
+
+        private Node[] relinked(int count) {
+            if (relinked.length < count)
+                relinked = new Node[count];
+            return relinked;
+        }
+
+        private void reset() {
+            nodeCount = 0;
+            triangleCount = 0;
+        }
+
+        private Node newNode(int i, double x, double y) {
+            if (nodeCount == nodes.length)
+                nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+
+            Node p = nodes[nodeCount];
+            if (p == null)
+                p = nodes[nodeCount] = new Node(i, x, y);
+            else
+                p.init(i, x, y);
+            nodeCount++;
+            return p;
+        }
+
+        void addTriangle(int a, int b, int c) {
+            if (triangleCount + 3 > triangles.length)
+                triangles = Arrays.copyOf(triangles, 2 * triangles.length);
+            triangles[triangleCount++] = a;
+            triangles[triangleCount++] = b;
+            triangles[triangleCount++] = c;
+        }
+    }
+
     private static class Node {
 
         int i;
@@ -626,6 +960,11 @@ public final class Earcut {
         Node nextZ;
 
         Node(int i, double x, double y) {
+            init(i, x, y);
+        }
+
+        // (re)initializes this node, so that a pooled node can be reused
+        Node init(int i, double x, double y) {
             // vertice index in coordinates array
             this.i = i;
 
@@ -646,6 +985,8 @@ public final class Earcut {
 
             // indicates whether this is a steiner point
             this.steiner = false;
+
+            return this;
         }
 
         @Override
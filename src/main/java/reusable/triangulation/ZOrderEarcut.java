@@ -0,0 +1,299 @@
+
+package reusable.triangulation;
+
+import java.util.Arrays;
+
+/**
+ * Earcut's ear-slicing pass for large hole-free polygons, with the polygon held in primitive arrays instead of linked Nodes.
+ * The z-order index is a radix-sorted array of Morton codes, and the ear test scans outwards from the ear's place in it,
+ * so the points near an ear are read from contiguous memory rather than by chasing prevZ/nextZ pointers.
+ * Produces the triangles Earcut's linked path does, except that the cheap bounding-box test before each point-in-triangle test
+ * can let through a near-degenerate (collinear) ear that path would skip. If slicing gets stuck, the remaining polygon is handed back to that path.
+ * Instances are reused through Earcut.Workspace, and so are not thread-safe.
+ *
+ * @author DEMcKnight
+ */
+final class ZOrderEarcut {
+
+    // bits per radix-sort digit; three passes cover Earcut's 30-bit Morton codes
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    // the number of nodes in the ring (including removed ones)
+    int n;
+
+    // per node: coordinates, vertex index in the input, ring links, Morton code, and position in the sorted arrays
+    double[] x = new double[0];
+    double[] y = new double[0];
+    int[] vertex = new int[0];
+    int[] prev = new int[0];
+    int[] next = new int[0];
+    int[] z = new int[0];
+    private int[] rank = new int[0];
+
+    // the nodes in z-order, with removed nodes left in place as -1 until the arrays are compacted;
+    // the Morton codes and coordinates are copied alongside so that ear tests scan contiguous memory
+    int[] sortedNode = new int[0];
+    private int[] sortedZ = new int[0];
+    private double[] sortedXY = new double[0];
+    int sortedLength;
+    private int removed;
+
+    // radix-sort scratch
+    private int[] tmpNode = new int[0];
+    private int[] tmpZ = new int[0];
+    private final int[] buckets = new int[RADIX];
+
+    // the polygon's bounding box corner and larger dimension, which Morton codes are relative to
+    double minX;
+    double minY;
+    double size;
+
+    /**
+     * Slices ears off of the polygon occupying data[start, end) the way Earcut's first (hashed) pass does
+     *
+     * @param data A flat array of vertex coordinates
+     * @param start The index in data of the polygon's first coordinate
+     * @param end The index in data just past the polygon's last coordinate
+     * @param dim The number of coordinates per vertex in the input array
+     * @param workspace The workspace to add triangles to
+     * @return -1 if the polygon was completely triangulated, otherwise the node slicing got stuck on
+     */
+    int earcut(double[] data, int start, int end, int dim, Earcut.Workspace workspace) {
+        int ear = buildRing(data, start, end, dim);
+        if (ear < 0)
+            return -1;
+        computeBounds();
+        indexCurve();
+
+        int stop = ear;
+
+        // iterate through ears, slicing them one by one
+        while (prev[ear] != next[ear]) {
+            int p = prev[ear];
+            int q = next[ear];
+
+            if (isEar(ear)) {
+                // cut off the triangle
+                workspace.addTriangle(vertex[p], vertex[ear], vertex[q]);
+
+                removeNode(ear);
+
+                // skipping the next vertex leads to less sliver triangles
+                ear = next[q];
+                stop = next[q];
+
+                continue;
+            }
+
+            ear = q;
+
+            // if we looped through the whole remaining polygon and can't find any more ears, let the linked path take over
+            if (ear == stop)
+                return ear;
+        }
+
+        return -1;
+    }
+
+    // links the polygon's vertices into a ring in clockwise order, exactly as Earcut.linkedList does;
+    // returns the node Earcut would start slicing from, or -1 for an empty polygon
+    private int buildRing(double[] data, int start, int end, int dim) {
+        int count = (end - start + dim - 1) / dim;
+        ensureCapacity(count);
+
+        n = 0;
+        if (signedArea(data, start, end, dim) > 0) {
+            for (int i = start; i < end; i += dim)
+                addNode(i / dim, data[i], data[i + 1]);
+        } else {
+            for (int i = (end - dim); i >= start; i -= dim)
+                addNode(i / dim, data[i], data[i + 1]);
+        }
+        if (n == 0)
+            return -1;
+
+        // drop a closing vertex that duplicates the first one
+        if (n > 1 && x[n - 1] == x[0] && y[n - 1] == y[0])
+            n--;
+
+        for (int i = 0; i < n; i++) {
+            prev[i] = i == 0 ? n - 1 : i - 1;
+            next[i] = i == n - 1 ? 0 : i + 1;
+        }
+
+        // Earcut starts from the last node linked (or the first one, if the last was dropped)
+        return n == count ? n - 1 : 0;
+    }
+
+    // minX, minY and size are used to transform coords into integers for z-order calculation
+    private void computeBounds() {
+        double maxX, maxY;
+        minX = maxX = x[0];
+        minY = maxY = y[0];
+        for (int i = 1; i < n; i++) {
+            if (x[i] < minX)
+                minX = x[i];
+            if (y[i] < minY)
+                minY = y[i];
+            if (x[i] > maxX)
+                maxX = x[i];
+            if (y[i] > maxY)
+                maxY = y[i];
+        }
+        size = Math.max(maxX - minX, maxY - minY);
+    }
+
+    private void addNode(int v, double px, double py) {
+        vertex[n] = v;
+        x[n] = px;
+        y[n] = py;
+        n++;
+    }
+
+    // computes every node's Morton code and radix-sorts the nodes by it
+    private void indexCurve() {
+        for (int i = 0; i < n; i++) {
+            z[i] = Earcut.mortonCode(x[i], y[i], minX, minY, size);
+            sortedNode[i] = i;
+            sortedZ[i] = z[i];
+        }
+
+        // least significant digit first; each pass is stable, so ties stay in ring order
+        int[] srcNode = sortedNode, srcZ = sortedZ, dstNode = tmpNode, dstZ = tmpZ;
+        for (int shift = 0; shift < 30; shift += RADIX_BITS) {
+            Arrays.fill(buckets, 0);
+            for (int i = 0; i < n; i++)
+                buckets[(srcZ[i] >>> shift) & (RADIX - 1)]++;
+            for (int b = 0, sum = 0; b < RADIX; b++) {
+                int c = buckets[b];
+                buckets[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                int slot = buckets[(srcZ[i] >>> shift) & (RADIX - 1)]++;
+                dstNode[slot] = srcNode[i];
+                dstZ[slot] = srcZ[i];
+            }
+            int[] t = srcNode; srcNode = dstNode; dstNode = t;
+            t = srcZ; srcZ = dstZ; dstZ = t;
+        }
+        sortedNode = srcNode;
+        sortedZ = srcZ;
+        tmpNode = dstNode;
+        tmpZ = dstZ;
+
+        for (int k = 0; k < n; k++) {
+            int node = sortedNode[k];
+            rank[node] = k;
+            sortedXY[2 * k] = x[node];
+            sortedXY[2 * k + 1] = y[node];
+        }
+        sortedLength = n;
+        removed = 0;
+    }
+
+    private boolean isEar(int ear) {
+        int a = prev[ear];
+        int c = next[ear];
+        double ax = x[a], ay = y[a], bx = x[ear], by = y[ear], cx = x[c], cy = y[c];
+
+        if (area(ax, ay, bx, by, cx, cy) >= 0)
+            return false; // reflex, can't be an ear
+
+        // triangle bbox; min & max are calculated like this for speed
+        double minTX = ax < bx ? (ax < cx ? ax : cx) : (bx < cx ? bx : cx), minTY = ay < by ? (ay < cy ? ay : cy) : (by < cy ? by : cy),
+                maxTX = ax > bx ? (ax > cx ? ax : cx) : (bx > cx ? bx : cx), maxTY = ay > by ? (ay > cy ? ay : cy) : (by > cy ? by : cy);
+
+        // z-order range for the current triangle bbox
+        int minZ = Earcut.mortonCode(minTX, minTY, minX, minY, size);
+        int maxZ = Earcut.mortonCode(maxTX, maxTY, minX, minY, size);
+
+        // look for points inside the triangle in increasing, then decreasing z-order, reading the sorted arrays contiguously
+        int r = rank[ear];
+        for (int k = r + 1; k < sortedLength && sortedZ[k] <= maxZ; k++)
+            if (isBlocking(k, a, c, ax, ay, bx, by, cx, cy, minTX, minTY, maxTX, maxTY))
+                return false;
+        for (int k = r - 1; k >= 0 && sortedZ[k] >= minZ; k--)
+            if (isBlocking(k, a, c, ax, ay, bx, by, cx, cy, minTX, minTY, maxTX, maxTY))
+                return false;
+
+        return true;
+    }
+
+    // true if the node at position k of the sorted arrays is a live reflex node inside the ear a, b, c (other than a or c)
+    private boolean isBlocking(int k, int a, int c, double ax, double ay, double bx, double by, double cx, double cy,
+            double minTX, double minTY, double maxTX, double maxTY) {
+        // most points in a z-order range lie outside the triangle's bbox, so rule those out before the full test
+        double px = sortedXY[2 * k], py = sortedXY[2 * k + 1];
+        if (px < minTX || px > maxTX || py < minTY || py > maxTY)
+            return false;
+        int p = sortedNode[k];
+        return p >= 0 && p != a && p != c && Earcut.pointInTriangle(ax, ay, bx, by, cx, cy, px, py) && isReflex(p);
+    }
+
+    // true if the polygon doesn't turn towards its inside at node p (i.e., Earcut's area(p.prev, p, p.next) >= 0)
+    private boolean isReflex(int p) {
+        int a = prev[p];
+        int c = next[p];
+        return area(x[a], y[a], x[p], y[p], x[c], y[c]) >= 0;
+    }
+
+    private void removeNode(int p) {
+        next[prev[p]] = next[p];
+        prev[next[p]] = prev[p];
+
+        sortedNode[rank[p]] = -1;
+        if (++removed > sortedLength - removed)
+            compact();
+    }
+
+    // squeezes removed nodes out of the sorted arrays once they make up more than half of them
+    private void compact() {
+        int k = 0;
+        for (int j = 0; j < sortedLength; j++) {
+            int node = sortedNode[j];
+            if (node < 0)
+                continue;
+            sortedNode[k] = node;
+            sortedZ[k] = sortedZ[j];
+            sortedXY[2 * k] = sortedXY[2 * j];
+            sortedXY[2 * k + 1] = sortedXY[2 * j + 1];
+            rank[node] = k;
+            k++;
+        }
+        sortedLength = k;
+        removed = 0;
+    }
+
+    private void ensureCapacity(int count) {
+        if (x.length >= count)
+            return;
+        x = new double[count];
+        y = new double[count];
+        vertex = new int[count];
+        prev = new int[count];
+        next = new int[count];
+        z = new int[count];
+        rank = new int[count];
+        sortedNode = new int[count];
+        sortedZ = new int[count];
+        sortedXY = new double[2 * count];
+        tmpNode = new int[count];
+        tmpZ = new int[count];
+    }
+
+    private static double area(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qy - py) * (rx - qx) - (qx - px) * (ry - qy);
+    }
+
+    private static double signedArea(double[] data, int start, int end, int dim) {
+        double sum = 0;
+        int j = end - dim;
+        for (int i = start; i < end; i += dim) {
+            sum += (data[j] - data[i]) * (data[i + 1] + data[j + 1]);
+            j = i;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,246 @@
+package snowflakes;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.media.opengl.GL;
+
+import reusable.Helpers;
+import reusable.graphicsPrimitives.Affine2;
+import reusable.rendering.VertexBatch;
+
+/**
+ * The shape of a snowflake at unit circumradius, shared by every flake of the same type (a flyweight).
+ * Flakes differ only by size, so each flake just references one of these and a scale factor instead of owning its own outline.
+ * Geometries are built once per (type, generations, n, offset flags) combination and cached.
+ * @author DEMcKnight
+ */
+public final class FlakeGeometry
+{
+	/**
+	 * Every geometry built so far
+	 */
+	private static final Map<Key, FlakeGeometry> cache = new ConcurrentHashMap<Key, FlakeGeometry>();
+
+	/**
+	 * The vertices of this geometry at unit circumradius, as interleaved (x, y) pairs
+	 */
+	final double[] vertices;
+
+	/**
+	 * Triples of vertex indices forming the triangles drawn in black underneath every flake's overlay
+	 */
+	final int[] underlayTriangles;
+
+	/**
+	 * Triples of vertex indices forming the triangles drawn in white in the overlay
+	 */
+	final int[] overlayTriangles;
+
+	/**
+	 * The number of leading vertices that form a closed outline drawn in white in the overlay (0 for none)
+	 */
+	final int outlineLength;
+
+	/**
+	 * Prepares a geometry
+	 * @param vertices The vertices at unit circumradius, as interleaved (x, y) pairs
+	 * @param underlayTriangles Triples of vertex indices drawn in black underneath every flake's overlay
+	 * @param overlayTriangles Triples of vertex indices drawn in white in the overlay
+	 * @param outlineLength The number of leading vertices that form a closed white outline (0 for none)
+	 */
+	FlakeGeometry(double[] vertices, int[] underlayTriangles, int[] overlayTriangles, int outlineLength)
+	{
+		this.vertices = vertices;
+		this.underlayTriangles = underlayTriangles;
+		this.overlayTriangles = overlayTriangles;
+		this.outlineLength = outlineLength;
+	}
+
+	/**
+	 * Returns the (shared) geometry of a Koch snowflake with the given number of generations
+	 * @param numGenerations The number of times to apply the Koch rewrite rules
+	 * @return the geometry of a unit Koch snowflake
+	 */
+	public static FlakeGeometry koch(int numGenerations)
+	{
+		return cache.computeIfAbsent(new Key(Key.KOCH, numGenerations, 3, false, false), k -> KochSnowflake.buildGeometry(numGenerations));
+	}
+
+	/**
+	 * Returns the (shared) geometry of an n-flake with the given parameters
+	 * @param numSides The n of the n-flake
+	 * @param numIterations The number of times to apply the production rule
+	 * @param centersOffset True if the location of subsequent polygons about their spawning polygon should be rotationally offset by PI/numSides
+	 * @param centersRotated True if the angle of subsequent polygons should be rotationally offset by PI/numSides in comparison with their spawning polygon.
+	 * @return the geometry of a unit n-flake
+	 */
+	public static FlakeGeometry nflake(int numSides, int numIterations, boolean centersOffset, boolean centersRotated)
+	{
+		return cache.computeIfAbsent(new Key(Key.NFLAKE, numIterations, numSides, centersOffset, centersRotated),
+				k -> nflake.buildGeometry(numSides, numIterations, centersOffset, centersRotated));
+	}
+
+	/**
+	 * Returns the number of vertices in this geometry
+	 * @return the number of vertices in this geometry
+	 */
+	public int getVertexCount()
+	{
+		return vertices.length/2;
+	}
+
+	/**
+	 * Returns a copy of this geometry's vertices at unit circumradius, as interleaved (x, y) pairs
+	 * @return a copy of this geometry's vertices
+	 */
+	public double[] getVertices()
+	{
+		return vertices.clone();
+	}
+
+	/**
+	 * Returns true if this geometry draws anything in the underlay pass
+	 * @return true if this geometry draws anything in the underlay pass
+	 */
+	public boolean hasUnderlay()
+	{
+		return underlayTriangles.length > 0;
+	}
+
+	/**
+	 * Draws this geometry's underlay at the given circumradius (see Snowflake.drawUnderlay)
+	 * @param gl
+	 * @param scale The circumradius to draw at
+	 */
+	public void drawUnderlay(GL gl, double scale)
+	{
+		if (!hasUnderlay())
+			return;
+		Helpers.setColor(gl, Color.black);
+		Helpers.drawTriangles(gl, vertices, underlayTriangles, scale);
+	}
+
+	/**
+	 * Draws this geometry's overlay at the given circumradius (see Snowflake.drawOverlay)
+	 * @param gl
+	 * @param scale The circumradius to draw at
+	 */
+	public void drawOverlay(GL gl, double scale)
+	{
+		Helpers.setColor(gl, Color.white);
+		if (overlayTriangles.length > 0)
+			Helpers.drawTriangles(gl, vertices, overlayTriangles, scale);
+		if (outlineLength > 0)
+			Helpers.drawLineLoop(gl, vertices, outlineLength, scale);
+	}
+
+	/**
+	 * Sets the given transformation to place this geometry at the given circumradius, angle and position,
+	 * the way drawUnderlay and drawOverlay would draw it after glTranslated(x, y, 0) and glRotated(angle, 0, 0, 1)
+	 * @param placement The transformation to overwrite
+	 * @param scale The circumradius to draw at
+	 * @param angle The angle to rotate by, in degrees counterclockwise
+	 * @param x The x-coordinate of the flake's position
+	 * @param y The y-coordinate of the flake's position
+	 * @return placement
+	 */
+	public static Affine2 place(Affine2 placement, double scale, double angle, double x, double y)
+	{
+		return placement.setPlacement(scale, Math.toRadians(angle), x, y);
+	}
+
+	/**
+	 * Returns the given array of placements if it holds at least count of them, or else a longer copy with new placements in the added slots
+	 * @param placements The placements to grow
+	 * @param count The number of placements needed
+	 * @return an array of at least count placements
+	 */
+	static Affine2[] ensurePlacements(Affine2[] placements, int count)
+	{
+		if (count <= placements.length)
+			return placements;
+
+		//Grow geometrically like the flurry does
+		int oldLength = placements.length;
+		placements = Arrays.copyOf(placements, Math.max(count, 2*oldLength));
+		for (int i=oldLength; i<placements.length; i++)
+			placements[i] = Affine2.identity();
+		return placements;
+	}
+
+	/**
+	 * Adds this geometry's underlay to the given batch as black triangles, transformed by the given placement (see place)
+	 * @param triangles The batch of triangles to add to
+	 * @param placement Where to put the flake
+	 */
+	public void addUnderlay(VertexBatch triangles, Affine2 placement)
+	{
+		if (!hasUnderlay())
+			return;
+		triangles.setColor(0, 0, 0, 1);
+		triangles.addTriangles(vertices, underlayTriangles, placement);
+	}
+
+	/**
+	 * Adds this geometry's overlay to the given batches in white, transformed by the given placement like addUnderlay
+	 * @param triangles The batch of triangles to add the overlay's triangles to
+	 * @param lines The batch of line segments to add the overlay's outline to
+	 * @param placement Where to put the flake
+	 */
+	public void addOverlay(VertexBatch triangles, VertexBatch lines, Affine2 placement)
+	{
+		if (overlayTriangles.length > 0)
+		{
+			triangles.setColor(1, 1, 1, 1);
+			triangles.addTriangles(vertices, overlayTriangles, placement);
+		}
+		if (outlineLength > 0)
+		{
+			lines.setColor(1, 1, 1, 1);
+			lines.addLineLoop(vertices, outlineLength, placement);
+		}
+	}
+
+	/**
+	 * The parameters that identify a geometry in the cache
+	 */
+	private static final class Key
+	{
+		static final int KOCH = 0;
+		static final int NFLAKE = 1;
+
+		private final int type;
+		private final int generations;
+		private final int numSides;
+		private final boolean centersOffset;
+		private final boolean centersRotated;
+
+		Key(int type, int generations, int numSides, boolean centersOffset, boolean centersRotated)
+		{
+			this.type = type;
+			this.generations = generations;
+			this.numSides = numSides;
+			this.centersOffset = centersOffset;
+			this.centersRotated = centersRotated;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key)o;
+			return type == k.type && generations == k.generations && numSides == k.numSides
+					&& centersOffset == k.centersOffset && centersRotated == k.centersRotated;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (((type*31 + generations)*31 + numSides)*2 + (centersOffset ? 1 : 0))*2 + (centersRotated ? 1 : 0);
+		}
+	}
+}
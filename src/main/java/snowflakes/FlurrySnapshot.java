@@ -0,0 +1,116 @@
+package snowflakes;
+
+import java.util.Arrays;
+
+import reusable.graphicsPrimitives.Affine2;
+import reusable.rendering.VertexBatch;
+
+/**
+ * A copy of a SnowFlurry's flakes as they were after one simulation step, along with where they were the step before,
+ * so that a renderer on another thread can draw them (blended anywhere between the two steps) while the flurry keeps moving.
+ * @author DEMcKnight
+ */
+public final class FlurrySnapshot
+{
+	/**
+	 * The number of simulation steps the flurry had taken when this snapshot was captured (-1 if nothing has been captured yet)
+	 */
+	private long step = -1;
+
+	/**
+	 * The number of flakes in this snapshot. Flake i's state is held at index i of each of the arrays below.
+	 */
+	int count = 0;
+
+	//Per-flake state, copied from the flurry's arrays of the same names (see SnowFlurry.copyInto)
+	FlakeGeometry[] geometry = new FlakeGeometry[0];
+	double[] radius = new double[0];
+	double[] prevX = new double[0];
+	double[] prevY = new double[0];
+	double[] prevAngle = new double[0];
+	double[] x = new double[0];
+	double[] y = new double[0];
+	double[] angle = new double[0];
+
+	/**
+	 * Scratch space for each flake's placement while filling batches (render thread only)
+	 */
+	private Affine2[] placements = new Affine2[0];
+
+	/**
+	 * Overwrites this snapshot with the given flurry's current flakes. Must not be called while another thread reads this snapshot.
+	 * @param flurry The flurry to copy
+	 * @param step The number of simulation steps the flurry has taken
+	 */
+	public void capture(SnowFlurry flurry, long step)
+	{
+		flurry.copyInto(this);
+		this.step = step;
+	}
+
+	/**
+	 * Returns the number of simulation steps the flurry had taken when this snapshot was captured
+	 * @return the flurry's step count at capture time, or -1 if nothing has been captured yet
+	 */
+	public long getStep()
+	{
+		return step;
+	}
+
+	/**
+	 * Returns the number of flakes in this snapshot
+	 * @return the number of flakes in this snapshot
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Fills the given batches with every flake in this snapshot, placed alpha of the way from where it was the step before
+	 * the snapshot to where it was at the snapshot (see SnowFlurry.fillBatches for the drawing order)
+	 * @param triangles The batch to replace with every flake's triangles
+	 * @param lines The batch to replace with every flake's outline segments
+	 * @param alpha How far between the previous step (0) and the captured step (1) to place the flakes
+	 */
+	public void fillBatches(VertexBatch triangles, VertexBatch lines, double alpha)
+	{
+		triangles.clear();
+		lines.clear();
+		//Work out each flake's blended placement once and share it between the two passes
+		placements = FlakeGeometry.ensurePlacements(placements, count);
+		for (int i=0; i<count; i++)
+		{
+			FlakeGeometry.place(placements[i], radius[i], lerp(prevAngle[i], angle[i], alpha), lerp(prevX[i], x[i], alpha), lerp(prevY[i], y[i], alpha));
+			geometry[i].addUnderlay(triangles, placements[i]);
+		}
+		for (int i=0; i<count; i++)
+			geometry[i].addOverlay(triangles, lines, placements[i]);
+	}
+
+	/**
+	 * Makes sure the per-flake arrays can hold at least the given number of flakes
+	 * @param capacity The number of flakes to make room for
+	 */
+	void ensureCapacity(int capacity)
+	{
+		if (capacity <= x.length)
+			return;
+
+		//Grow geometrically like the flurry does, so a growing flurry doesn't reallocate every capture
+		capacity = Math.max(capacity, 2*x.length);
+		geometry = Arrays.copyOf(geometry, capacity);
+		radius = Arrays.copyOf(radius, capacity);
+		prevX = Arrays.copyOf(prevX, capacity);
+		prevY = Arrays.copyOf(prevY, capacity);
+		prevAngle = Arrays.copyOf(prevAngle, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		angle = Arrays.copyOf(angle, capacity);
+	}
+
+	private static double lerp(double from, double to, double alpha)
+	{
+		return from + (to - from)*alpha;
+	}
+}
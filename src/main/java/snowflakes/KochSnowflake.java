@@ -1,13 +1,10 @@
 package snowflakes;
 
-import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import javax.media.opengl.GL;
 
 import reusable.graphicsPrimitives.Vec2;
-import reusable.Helpers;
 
 import reusable.triangulation.*;
 
@@ -20,11 +17,19 @@ public class KochSnowflake extends Snowflake
 {
 	
 	/**
-	 * The coordinates of this Koch Snowflake's vertices at the current number of generations
+	 * The most generations an outline can be built with: the starting triangle plus 10 applications of the rewrite rules (3*4^10 vertices)
 	 */
-	public ArrayList<Vec2> coordinates;
+	public static final int MAX_GENERATIONS = 11;
 	
-	List<Integer> triangulation;
+	/**
+	 * The shape of this Koch Snowflake at unit circumradius, shared with every other Koch Snowflake of the same number of generations
+	 */
+	private final FlakeGeometry geometry;
+	
+	/**
+	 * The overall circumradius of this Koch Snowflake
+	 */
+	private final double radius;
 
 	/**
 	 * Prepares a KochSnowflake with position and angle being handled by the superclass Snowflake. 
@@ -36,87 +41,172 @@ public class KochSnowflake extends Snowflake
 	public KochSnowflake(Vec2 position, double radius, double angle, int numGenerations)
 	{
 		super(position, angle);
+		this.geometry = FlakeGeometry.koch(numGenerations);
+		this.radius = radius;
+	}
+	
+	public FlakeGeometry getGeometry()
+	{
+		return geometry;
+	}
+	
+	public double getRadius()
+	{
+		return radius;
+	}
+	
+	/**
+	 * Builds (without caching) the geometry of a unit Koch Snowflake: its outline, drawn in white, over a black fill.
+	 * The fill's triangles are emitted structurally while the outline is generated: the starting triangle, then one triangle per bump.
+	 * Use FlakeGeometry.koch to get the shared copy instead.
+	 * @param numGenerations The number of times to iterate applying the rewrite rules
+	 * @return the geometry of a unit Koch Snowflake
+	 */
+	public static FlakeGeometry buildGeometry(int numGenerations)
+	{
+		int[] triangles = new int[numGenerations == 0 ? 0 : 3 << 2*(numGenerations-1)];
+		double[] outline = buildOutline(numGenerations, triangles);
+		return new FlakeGeometry(outline, triangles, new int[0], outline.length/2);
+	}
+	
+	/**
+	 * Builds (without caching) the geometry of a unit Koch Snowflake like buildGeometry, but triangulates the fill by running Earcut on the outline.
+	 * Slower, since it has to rediscover the structure buildGeometry already knows; kept as a fallback and for comparison.
+	 * @param numGenerations The number of times to iterate applying the rewrite rules
+	 * @return the geometry of a unit Koch Snowflake
+	 */
+	public static FlakeGeometry buildGeometryWithEarcut(int numGenerations)
+	{
+		double[] outline = buildOutline(numGenerations);
 		
-		coordinates = new ArrayList<Vec2>();
-		for (int i=0; i<numGenerations; i++)
-		{
-			anotherLayer(radius, i);
-		}	
+		int[] triangles = new int[Earcut.maxIndices(outline.length/2, 0)];
+		int numIndices = Earcut.earcut(outline, null, 2, triangles, 0, new Earcut.Workspace());
+		triangles = Arrays.copyOf(triangles, numIndices);
 		
-		double[] flattenedCoords = new double[coordinates.size()*2];
+		return new FlakeGeometry(outline, triangles, new int[0], outline.length/2);
+	}
+	
+	/**
+	 * Builds the outline of a unit Koch Snowflake. Each generation is written straight into a preallocated array
+	 * (the two arrays trade places between generations), so building the outline takes time linear in its number of vertices.
+	 * @param numGenerations The number of times to iterate applying the rewrite rules, from 0 (empty) to MAX_GENERATIONS.
+	 * The first generation is the starting triangle, so the outline has 3*4^(numGenerations-1) vertices.
+	 * @return the vertices of the outline, as interleaved (x, y) pairs
+	 */
+	public static double[] buildOutline(int numGenerations)
+	{
+		return buildOutline(numGenerations, null);
+	}
+	
+	/**
+	 * Builds the outline of a unit Koch Snowflake (see buildOutline(int)), optionally triangulating its interior along the way.
+	 * A vertex created in generation k ends up at k's index times 4^(numGenerations-k) in the final outline, so each triangle
+	 * can be written with its final indices as soon as its vertices exist. Bumps' bases lie along their parents' edges,
+	 * which leaves T-junctions where a bump meets its parent; that's harmless for a flat fill.
+	 * @param numGenerations The number of times to iterate applying the rewrite rules, from 0 (empty) to MAX_GENERATIONS
+	 * @param triangles Where to write the 4^(numGenerations-1) counter-clockwise triangles of the interior as index triples, or null to skip triangulating
+	 * @return the vertices of the outline, as interleaved (x, y) pairs
+	 */
+	private static double[] buildOutline(int numGenerations, int[] triangles)
+	{
+		if (numGenerations < 0 || numGenerations > MAX_GENERATIONS)
+			throw new IllegalArgumentException("numGenerations must be between 0 and " + MAX_GENERATIONS + ", got " + numGenerations);
+		if (numGenerations == 0)
+			return new double[0];
+		
+		int numVertices = 3 << 2*(numGenerations-1);
+		double[] current = new double[2*numVertices];
+		double[] next = numGenerations > 1 ? new double[2*numVertices] : null;
 		
-		for (int i=0; i<coordinates.size(); i++)
+		//Base case
+		for (int i=0; i<3; i++)
 		{
-			flattenedCoords[2*i] = coordinates.get(i).getX();
-			flattenedCoords[2*i+1] = coordinates.get(i).getY();
+			double theta = i * 2*Math.PI/3.0;
+			current[2*i] = Math.cos(theta);
+			current[2*i+1] = Math.sin(theta);
 		}
 		
-		triangulation = Earcut.earcut(flattenedCoords);
-
+		//The starting triangle covers the middle of the snowflake
+		int stride = numVertices/3;
+		if (triangles != null)
+		{
+			triangles[0] = 0;
+			triangles[1] = stride;
+			triangles[2] = 2*stride;
+		}
+		
+		for (int gen=1, n=3, t=3; gen<numGenerations; gen++, t+=3*n, n*=4)
+		{
+			stride /= 4;
+			anotherLayer(current, n, next, triangles, t, stride);
+			double[] swap = current;
+			current = next;
+			next = swap;
+		}
+		return current;
 	}
 	
 	/**
-	 * Advances the generation, applying the production rule for the Koch Snowflake
-	 * @param radius The overall radius of this Koch Snowflake
-	 * @param genNumber The number of generations remaining to continue recursively calling anotherLayer
+	 * Advances the generation, applying the production rule for the Koch Snowflake to every edge of src and writing the result to dst
+	 * @param src The vertices of the current outline, as interleaved (x, y) pairs
+	 * @param n The number of vertices in the current outline
+	 * @param dst Where to write the 4*n vertices of the next outline
+	 * @param triangles Where to write the n new bump triangles, or null to skip triangulating
+	 * @param t The index in triangles to write the first bump triangle at
+	 * @param stride How far apart consecutive vertices of the next outline are in the final outline
 	 */
-	private void anotherLayer(double radius, int genNumber)
+	private static void anotherLayer(double[] src, int n, double[] dst, int[] triangles, int t, int stride)
 	{
-		if (genNumber == 0)
-		{
-			//Base case
-			for (int i=0; i<3; i++)
-			{
-				double theta = i * 2*Math.PI/3.0;
-				Vec2 disp = new Vec2(Math.cos(theta), Math.sin(theta)).multiply(radius);
-				coordinates.add(disp);
-			}
-		}
-		//Iterative version 
-		else
+		//The bump's tip is the third-of-the-way vector rotated by -PI/3
+		final double cos = Math.cos(-Math.PI/3.0);
+		final double sin = Math.sin(-Math.PI/3.0);
+		
+		//For every two coordinates in the current outline, add a triangle at the third-of-the-way points between them
+		for (int i=0; i<n; i++)
 		{
-			//For every two coordinates in the current list, add a triangle at the third-of-the-way points between them
-			for (int i = 0; i<coordinates.size(); i++)
+			//Grab first and second of the coordinates
+			double startX = src[2*i];
+			double startY = src[2*i+1];
+			int end = i+1 < n ? 2*(i+1) : 0;
+			
+			//Find the vector between them and divide it by three
+			double diffX = (src[end] - startX) * (1/3.0);
+			double diffY = (src[end+1] - startY) * (1/3.0);
+			
+			//Then use that vector to generate a triangle between them
+			double p1X = startX + diffX;
+			double p1Y = startY + diffY;
+			
+			int o = 8*i;
+			dst[o] = startX;
+			dst[o+1] = startY;
+			dst[o+2] = p1X;
+			dst[o+3] = p1Y;
+			dst[o+4] = p1X + (cos*diffX - sin*diffY);
+			dst[o+5] = p1Y + (sin*diffX + cos*diffY);
+			dst[o+6] = p1X + diffX;
+			dst[o+7] = p1Y + diffY;
+			
+			//The outline runs counter-clockwise and the bump's tip points outwards (to the right of the edge), so base, tip, base is counter-clockwise
+			if (triangles != null)
 			{
-				//Grab first and second of the coordinates
-				Vec2 start = coordinates.get(i);
-				Vec2 end = coordinates.get((i+1)%coordinates.size());	
-				
-				//Find the vector between them and divide it by three
-				Vec2 diff = end.subtract(start).multiply(1/3.0);
-				
-				//Then use that vector to generate  triangle between them
-				Vec2 p1 = start.add(diff);
-				Vec2 p2 = p1.add(diff.rotated(-Math.PI/3.0));
-				Vec2 p3 = p1.add(diff);
-				
-				//Add the triangle's coordinates
-				coordinates.add(i+1, p1);
-				coordinates.add(i+2, p2);
-				coordinates.add(i+3, p3);
-				i+=3;
+				triangles[t + 3*i] = (4*i+1)*stride;
+				triangles[t + 3*i + 1] = (4*i+2)*stride;
+				triangles[t + 3*i + 2] = (4*i+3)*stride;
 			}
 		}
 	}
 
 	@Override
-	public void internalDraw(GL gl)
+	protected void drawUnderlay(GL gl)
 	{
-		Helpers.setColor(gl, Color.black);
-		for (int i=0; i<triangulation.size(); i+=3)
-		{
-			ArrayList<Vec2> triangle = new ArrayList<Vec2>();
-			triangle.add(coordinates.get(triangulation.get(i)));
-			triangle.add(coordinates.get(triangulation.get(i+1)));
-			triangle.add(coordinates.get(triangulation.get(i+2)));
-			Helpers.drawPolygon(gl, triangle);
-		}
-		//Helpers.drawPolygon(gl, coordinates);
-		Helpers.setColor(gl, Color.white);
-		Helpers.drawLineLoop(gl, coordinates);
+		geometry.drawUnderlay(gl, radius);
+	}
 
+	@Override
+	protected void drawOverlay(GL gl)
+	{
+		geometry.drawOverlay(gl, radius);
 	}
-	
-	
 
 }
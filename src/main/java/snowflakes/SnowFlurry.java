@@ -1,15 +1,17 @@
 package snowflakes;
 
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 
-import java.util.function.*;
-
 import javax.media.opengl.GL;
-import javax.media.opengl.GL2;
 
+import reusable.graphicsPrimitives.Affine2;
 import reusable.graphicsPrimitives.Vec2;
+import reusable.rendering.BatchRenderer;
+import reusable.rendering.GLRenderTarget;
+import reusable.rendering.RenderTarget;
+import reusable.rendering.VertexBatch;
 
 /**
  * A class for spawning lots of Snowflakes
@@ -52,9 +54,83 @@ public class SnowFlurry
 	public double flakeOccurrence = 0.5;
 	Random randy = new Random();
 	
-	//List of snowflakes being drawn
-	public ArrayList<Snowflake> snowflakes;
-	
+	/**
+	 * The number of flakes currently alive. Flake i's state is held at index i of each of the arrays below.
+	 */
+	private int count = 0;
+
+	//Per-flake state, stored as parallel primitive arrays so that each behavior updates every flake in one tight loop
+	/**
+	 * The x-coordinate of each flake's position
+	 */
+	private double[] posX;
+	/**
+	 * The y-coordinate of each flake's position
+	 */
+	private double[] posY;
+	/**
+	 * The angular offset of each flake
+	 */
+	private double[] angle;
+	/**
+	 * The x-coordinate of each flake's position before the last call to iterate (for interpolating between steps, see FlurrySnapshot)
+	 */
+	private double[] prevX;
+	/**
+	 * The y-coordinate of each flake's position before the last call to iterate
+	 */
+	private double[] prevY;
+	/**
+	 * The angular offset of each flake before the last call to iterate
+	 */
+	private double[] prevAngle;
+	/**
+	 * How long it's been since each flake was spawned
+	 */
+	private double[] timeElapsed;
+	/**
+	 * The rate at which each flake rotates counter-clockwise (radians/second)
+	 */
+	private double[] rotationVelocity;
+	/**
+	 * The rate at which each flake falls (pixels/second)
+	 */
+	private double[] fallRate;
+	/**
+	 * The radius of the circle each flake's back-and-forth cycloid is based on
+	 */
+	private double[] cycloidRadius;
+	/**
+	 * Where in its cycloid each flake started, as a time offset
+	 */
+	private double[] cycloidOffset;
+	/**
+	 * The shape of each flake at unit circumradius. These are shared between every flake of the same type (see FlakeGeometry).
+	 */
+	private FlakeGeometry[] geometry;
+	/**
+	 * The overall circumradius of each flake, which its geometry is scaled by when drawn
+	 */
+	private double[] radius;
+
+	/**
+	 * Every flake's triangles, transformed into place, reused from frame to frame
+	 */
+	private final VertexBatch triangleBatch = new VertexBatch();
+	/**
+	 * Every flake's outline segments, transformed into place, reused from frame to frame
+	 */
+	private final VertexBatch lineBatch = new VertexBatch();
+	/**
+	 * Scratch space for each flake's placement while filling batches
+	 */
+	private Affine2[] placements = new Affine2[0];
+
+	/**
+	 * The number of flakes the per-flake arrays initially have room for
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+
 	/**
 	 * Instantiates a Snowflurry box with the given boundaries
 	 * @param minX The minimum X value that this SnowFlurry's Snowflakes can travel. Past this point they are despawned.
@@ -77,13 +153,114 @@ public class SnowFlurry
 		init();
 	}
 	
-	private void init()
+	/**
+	 * Instantiates a SnowFlurry with the same boundaries and settings as the given one, holding copies of all of its flakes.
+	 * The copies share their (immutable) geometry with the originals.
+	 * @param other The SnowFlurry to copy
+	 */
+	public SnowFlurry(SnowFlurry other)
 	{
-		snowflakes = new ArrayList<Snowflake>();
+		this(other.minX, other.maxX, other.disY, other.minY, other.maxY, other.flakeOccurrence);
+		lowestY = other.lowestY;
+		count = other.count;
+		posX = other.posX.clone();
+		posY = other.posY.clone();
+		angle = other.angle.clone();
+		prevX = other.prevX.clone();
+		prevY = other.prevY.clone();
+		prevAngle = other.prevAngle.clone();
+		timeElapsed = other.timeElapsed.clone();
+		rotationVelocity = other.rotationVelocity.clone();
+		fallRate = other.fallRate.clone();
+		cycloidRadius = other.cycloidRadius.clone();
+		cycloidOffset = other.cycloidOffset.clone();
+		geometry = other.geometry.clone();
+		radius = other.radius.clone();
 	}
 	
+	private void init()
+	{
+		count = 0;
+		posX = new double[INITIAL_CAPACITY];
+		posY = new double[INITIAL_CAPACITY];
+		angle = new double[INITIAL_CAPACITY];
+		prevX = new double[INITIAL_CAPACITY];
+		prevY = new double[INITIAL_CAPACITY];
+		prevAngle = new double[INITIAL_CAPACITY];
+		timeElapsed = new double[INITIAL_CAPACITY];
+		rotationVelocity = new double[INITIAL_CAPACITY];
+		fallRate = new double[INITIAL_CAPACITY];
+		cycloidRadius = new double[INITIAL_CAPACITY];
+		cycloidOffset = new double[INITIAL_CAPACITY];
+		geometry = new FlakeGeometry[INITIAL_CAPACITY];
+		radius = new double[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Restarts the random numbers this flurry spawns (and melts) flakes with from the given seed, so that it snows the same way every time
+	 * @param seed The seed for the random numbers
+	 */
+	public void setSeed(long seed)
+	{
+		randy.setSeed(seed);
+	}
+
+	/**
+	 * Returns the number of flakes currently in this flurry
+	 * @return the number of flakes currently in this flurry
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Returns the x-coordinate of flake i's position
+	 * @param i The index of the flake, in [0, size())
+	 * @return the x-coordinate of flake i's position
+	 */
+	public double getX(int i)
+	{
+		return posX[checkIndex(i)];
+	}
+
+	/**
+	 * Returns the y-coordinate of flake i's position
+	 * @param i The index of the flake, in [0, size())
+	 * @return the y-coordinate of flake i's position
+	 */
+	public double getY(int i)
+	{
+		return posY[checkIndex(i)];
+	}
+
+	/**
+	 * Returns flake i's angular offset
+	 * @param i The index of the flake, in [0, size())
+	 * @return flake i's angular offset
+	 */
+	public double getAngle(int i)
+	{
+		return angle[checkIndex(i)];
+	}
+
+	/**
+	 * Throws an IndexOutOfBoundsException if i isn't the index of a live flake
+	 */
+	private int checkIndex(int i)
+	{
+		if (i < 0 || i >= count)
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+		return i;
+	}
+
 	public void iterate(double timestep)
 	{
+		//Remember where every flake was, so a renderer can blend between this step and the last
+		System.arraycopy(posX, 0, prevX, 0, count);
+		System.arraycopy(posY, 0, prevY, 0, count);
+		System.arraycopy(angle, 0, prevAngle, 0, count);
+
 		if (randy.nextDouble()<flakeOccurrence)
 		{
 			int snowflakeType = randy.nextInt(5);
@@ -93,44 +270,166 @@ public class SnowFlurry
 			double radius = randy.nextDouble() * 15 + 11;
 			double angle = randy.nextDouble() * 2 * Math.PI;
 			double startPos = randy.nextDouble();
-			//snowflakes.add(generateSnowflake(snowflakeType, radius, angle, rotationVelocity, fallRate, cycloidCircleRadius, randy.nextBoolean(), randy.nextBoolean()));
-			snowflakes.add(generateSnowflake(snowflakeType, radius, angle, rotationVelocity, fallRate, cycloidCircleRadius, startPos, false, false));
+			spawn(snowflakeType, randy.nextDouble()*maxX-minX, maxY, radius, angle, rotationVelocity, fallRate, cycloidCircleRadius, startPos);
+		}
+
+		//Apply each behavior to every flake in turn (same order as the behaviors generateSnowflake attaches)
+		applyCycloid(timestep);
+		applyRotation(timestep);
+		applyFall(timestep);
+		for (int i=0; i<count; i++)
+			timeElapsed[i] += timestep;
+
+		despawn();
+	}
+
+	/**
+	 * Adds a flake to this flurry with the given parameters, giving it the same behaviors generateSnowflake would
+	 * @param type The type of Snowflake to add (see generateSnowflake)
+	 * @param x The x-coordinate of the flake's starting position
+	 * @param y The y-coordinate of the flake's starting position
+	 * @param radius The overall circumradius of the flake
+	 * @param angle The starting angle of the flake
+	 * @param rotationVelocity The rate at which the flake rotates counter-clockwise (radians/second)
+	 * @param fallRate The rate at which the flake falls (pixels/second)
+	 * @param cycloidCircleRadius The radius of the circle about which the flake's back-and-forth cycloid is based
+	 * @param startPos Where in its cycloid to start the flake, in [0, 1)
+	 */
+	public void spawn(int type, double x, double y, double radius, double angle, double rotationVelocity, double fallRate, double cycloidCircleRadius, double startPos)
+	{
+		if (count == posX.length)
+			grow();
+
+		int i = count++;
+		this.posX[i] = x;
+		this.posY[i] = y;
+		this.angle[i] = angle;
+		this.prevX[i] = x;
+		this.prevY[i] = y;
+		this.prevAngle[i] = angle;
+		this.timeElapsed[i] = 0;
+		this.rotationVelocity[i] = rotationVelocity;
+		this.fallRate[i] = fallRate;
+		this.cycloidRadius[i] = cycloidCircleRadius;
+		this.cycloidOffset[i] = startPos*4*Math.PI;
+		this.geometry[i] = geometryFor(type);
+		this.radius[i] = radius;
+	}
+
+	/**
+	 * Doubles the capacity of the per-flake arrays
+	 */
+	private void grow()
+	{
+		int capacity = 2*posX.length;
+		posX = Arrays.copyOf(posX, capacity);
+		posY = Arrays.copyOf(posY, capacity);
+		angle = Arrays.copyOf(angle, capacity);
+		prevX = Arrays.copyOf(prevX, capacity);
+		prevY = Arrays.copyOf(prevY, capacity);
+		prevAngle = Arrays.copyOf(prevAngle, capacity);
+		timeElapsed = Arrays.copyOf(timeElapsed, capacity);
+		rotationVelocity = Arrays.copyOf(rotationVelocity, capacity);
+		fallRate = Arrays.copyOf(fallRate, capacity);
+		cycloidRadius = Arrays.copyOf(cycloidRadius, capacity);
+		cycloidOffset = Arrays.copyOf(cycloidOffset, capacity);
+		geometry = Arrays.copyOf(geometry, capacity);
+		radius = Arrays.copyOf(radius, capacity);
+	}
+
+	/**
+	 * Moves every flake along its back-and-forth cycloid (see SnowflakeBehaviors.getCycloidBehavior)
+	 * @param timestep How much time to progress the flakes
+	 */
+	private void applyCycloid(double timestep)
+	{
+		for (int i=0; i<count; i++)
+		{
+			double radius = cycloidRadius[i];
+			double t = timeElapsed[i] + cycloidOffset[i];
+			double sinT = Math.sin(t);
+			double next = t + timestep;
+
+			//Where in the cycloid we are (x-wise), in cycles of 4 pi r so that we have 2 periods
+			double cyclePos = (radius * (t - sinT)) % (4 * Math.PI * radius);
 
+			//Find the difference between the future position and the current position of the original cycloid
+			double xDiff = radius * (next - Math.sin(next)) - radius * (t - sinT);
+			double yDiff = radius * (1+Math.cos(next)) - radius * (1+Math.cos(t));
+
+			//If we're on the second of the two periods, reverse the direction of motion
+			if (cyclePos > 2 * Math.PI * radius)
+				xDiff = -xDiff;
+
+			posX[i] += xDiff;
+			posY[i] += yDiff/3.0;
 		}
-		
-		
-		//for each of the snowflakes
-		for (int i = 0; i<snowflakes.size(); i++)
+	}
+
+	/**
+	 * Rotates every flake at its rotational velocity (see SnowflakeBehaviors.getRotationBehavior)
+	 * @param timestep How much time to progress the flakes
+	 */
+	private void applyRotation(double timestep)
+	{
+		for (int i=0; i<count; i++)
+			angle[i] += timestep*rotationVelocity[i];
+	}
+
+	/**
+	 * Moves every flake down at its fall rate (see SnowflakeBehaviors.getStraightFallBehavior)
+	 * @param timestep How much time to progress the flakes
+	 */
+	private void applyFall(double timestep)
+	{
+		for (int i=0; i<count; i++)
+			posY[i] -= fallRate[i]*timestep;
+	}
+
+	/**
+	 * Removes the flakes that have left this flurry's boundaries (or randomly melted after passing disY), and tracks lowestY.
+	 * Each removal moves the last flake into the removed flake's slot, so despawning costs O(1) per flake no matter how many leave at once.
+	 */
+	private void despawn()
+	{
+		int i = 0;
+		while (i < count)
 		{
-			//grab a snowflake
-			Snowflake s = snowflakes.get(i);
-			
-			//update it
-			s.update(timestep);
-			
-			//if its position is too high or too low, remove it
-			Vec2 pos = s.getPosition();
-			
-			if (pos.getY() < lowestY)
-				lowestY = pos.getY();
-			
-			
-			if (pos.getY()<disY)
-			{
-				if (randy.nextDouble()<0.002)
-				{
-					snowflakes.remove(i);
-					i--;
-				}
-			}
-			
-			if (pos.getY()<minY || pos.getY() > maxY)
-			{
-				snowflakes.remove(i);
-				i--;
-			}				
+			double y = posY[i];
+
+			if (y < lowestY)
+				lowestY = y;
+
+			//if its position is too high or too low (or it melted), remove it
+			//and look at this slot again, since it now holds a flake that hasn't been checked yet
+			if ((y<disY && randy.nextDouble()<0.002) || y<minY || y > maxY)
+				remove(i);
+			else
+				i++;
 		}
-		
+	}
+
+	/**
+	 * Removes flake i by moving the last flake into its place. Doesn't preserve the order of the flakes.
+	 * @param i The index of the flake to remove
+	 */
+	private void remove(int i)
+	{
+		int last = --count;
+		posX[i] = posX[last];
+		posY[i] = posY[last];
+		angle[i] = angle[last];
+		prevX[i] = prevX[last];
+		prevY[i] = prevY[last];
+		prevAngle[i] = prevAngle[last];
+		timeElapsed[i] = timeElapsed[last];
+		rotationVelocity[i] = rotationVelocity[last];
+		fallRate[i] = fallRate[last];
+		cycloidRadius[i] = cycloidRadius[last];
+		cycloidOffset[i] = cycloidOffset[last];
+		geometry[i] = geometry[last];
+		geometry[last] = null;
+		radius[i] = radius[last];
 	}
 	
 	/**
@@ -150,52 +449,132 @@ public class SnowFlurry
 		//Randomly generate a position spanning along the top of the screen
 		Vec2 position = new Vec2(randy.nextDouble()*maxX-minX, maxY);
 		
-		//Randomly select a snowflake type
+		//Build the requested type of snowflake
+		s = createShape(i, position, radius, angle, centersPositionOffset, centersRotateOffset);
+		
+		//assign behaviors
+		s.addUpdateFunc(SnowflakeBehaviors.getCycloidBehavior(cycloidCircleRadius, startPos));
+		s.addUpdateFunc(SnowflakeBehaviors.getRotationBehavior(rotationVelocity));
+		s.addUpdateFunc(SnowflakeBehaviors.getStraightFallBehavior(fallRate));		
+		
+		//return the snowflake
+		return s;
+	}
+	
+	/**
+	 * Builds a Snowflake of the given type
+	 * @param i the type of Snowflake to build: 0-3 for a tri-, quadri-, penta- or hexaflake, 4 (or anything else) for a Koch snowflake
+	 * @param position The position of the Snowflake
+	 * @param radius The overall circumradius of the Snowflake
+	 * @param angle The angle of the Snowflake
+	 * @param centersPositionOffset For n-flakes, whether the locations of subsequent polygons are rotationally offset
+	 * @param centersRotateOffset For n-flakes, whether subsequent polygons are rotated relative to their spawning polygon
+	 * @return a Snowflake (either an n-flake or a Koch Snowflake) of the given type
+	 */
+	private static Snowflake createShape(int i, Vec2 position, double radius, double angle, boolean centersPositionOffset, boolean centersRotateOffset)
+	{
 		switch(i)
 		{
 		case 0:
 			// generate a triflake
-			s = new nflake(position, radius, angle, 3, 3, centersPositionOffset, centersRotateOffset);
-			break;
+			return new nflake(position, radius, angle, 3, 3, centersPositionOffset, centersRotateOffset);
 		case 1:
 			// generate a quadriflake
-			s = new nflake(position, radius, angle, 4, 3, centersPositionOffset, centersRotateOffset);
-			break;
+			return new nflake(position, radius, angle, 4, 3, centersPositionOffset, centersRotateOffset);
 		case 2:
 			// generate a pentaflake
-			s = new nflake(position, radius, angle, 5, 3, centersPositionOffset, centersRotateOffset);
-			break;
+			return new nflake(position, radius, angle, 5, 3, centersPositionOffset, centersRotateOffset);
 		case 3:
 			// generate a hexaflake
-			s = new nflake(position, radius, angle, 6, 2, centersPositionOffset, centersRotateOffset);
-			break;
+			return new nflake(position, radius, angle, 6, 2, centersPositionOffset, centersRotateOffset);
 		case 4:
 			// generate a Koch snowflake
-			s = new KochSnowflake(position, radius, angle, 3);
-			break;
+			return new KochSnowflake(position, radius, angle, 3);
 		default:
 			// generate a Koch snowflake
-			s = new KochSnowflake(position, radius, angle, 3);
-			break;
+			return new KochSnowflake(position, radius, angle, 3);
+		}
+	}
+	
+	/**
+	 * Returns the shared geometry of the given type of Snowflake, as createShape would build it with no offsets
+	 * @param i the type of Snowflake: 0-3 for a tri-, quadri-, penta- or hexaflake, 4 (or anything else) for a Koch snowflake
+	 * @return the geometry of the given type of Snowflake at unit circumradius
+	 */
+	private static FlakeGeometry geometryFor(int i)
+	{
+		switch(i)
+		{
+		case 0:
+			return FlakeGeometry.nflake(3, 3, false, false);
+		case 1:
+			return FlakeGeometry.nflake(4, 3, false, false);
+		case 2:
+			return FlakeGeometry.nflake(5, 3, false, false);
+		case 3:
+			return FlakeGeometry.nflake(6, 2, false, false);
+		default:
+			return FlakeGeometry.koch(3);
 		}
-		
-		//assign behaviors
-		s.addUpdateFunc(SnowflakeBehaviors.getCycloidBehavior(cycloidCircleRadius, startPos));
-		s.addUpdateFunc(SnowflakeBehaviors.getRotationBehavior(rotationVelocity));
-		s.addUpdateFunc(SnowflakeBehaviors.getStraightFallBehavior(fallRate));		
-		
-		//return the snowflake
-		return s;
 	}
 	
 	/**
-	 * Calls draw on each of the Snowflakes contained by this SnowFlurry
+	 * Fills the given batches with every flake contained by this SnowFlurry, transformed to its current position and angle.
+	 * Every flake's underlay is added before any flake's overlay, so the (unspecified) order of the flakes doesn't affect the picture
+	 * as long as the triangles are drawn before the lines (the outlines are all drawn in the overlay's white anyway).
+	 * @param triangles The batch to replace with every flake's triangles
+	 * @param lines The batch to replace with every flake's outline segments
+	 */
+	public void fillBatches(VertexBatch triangles, VertexBatch lines)
+	{
+		triangles.clear();
+		lines.clear();
+		//Work out each flake's placement once and share it between the two passes
+		placements = FlakeGeometry.ensurePlacements(placements, count);
+		for (int i=0; i<count; i++)
+			geometry[i].addUnderlay(triangles, FlakeGeometry.place(placements[i], radius[i], angle[i], posX[i], posY[i]));
+		for (int i=0; i<count; i++)
+			geometry[i].addOverlay(triangles, lines, placements[i]);
+	}
+
+	/**
+	 * Copies every flake's shape, size and current and previous placement into the given snapshot (see FlurrySnapshot.capture)
+	 * @param snapshot The snapshot to overwrite
+	 */
+	void copyInto(FlurrySnapshot snapshot)
+	{
+		snapshot.ensureCapacity(count);
+		snapshot.count = count;
+		System.arraycopy(geometry, 0, snapshot.geometry, 0, count);
+		System.arraycopy(radius, 0, snapshot.radius, 0, count);
+		System.arraycopy(prevX, 0, snapshot.prevX, 0, count);
+		System.arraycopy(prevY, 0, snapshot.prevY, 0, count);
+		System.arraycopy(prevAngle, 0, snapshot.prevAngle, 0, count);
+		System.arraycopy(posX, 0, snapshot.x, 0, count);
+		System.arraycopy(posY, 0, snapshot.y, 0, count);
+		System.arraycopy(angle, 0, snapshot.angle, 0, count);
+	}
+
+	/**
+	 * Draws each of the Snowflakes contained by this SnowFlurry at its current position and angle.
+	 * The flakes are transformed on the CPU and drawn with one draw call for all of their triangles and one for all of their outlines.
 	 * @param gl
+	 * @param renderer The renderer to draw the flakes' batches with
 	 */
-	public void draw(GL gl)
-	{		
-		for (Snowflake flake: snowflakes)
-			flake.draw(gl);
+	public void draw(GL gl, BatchRenderer renderer)
+	{
+		draw(new GLRenderTarget(gl.getGL2(), renderer));
+	}
+
+	/**
+	 * Draws each of the Snowflakes contained by this SnowFlurry at its current position and angle onto the given target
+	 * @param target The target to draw onto
+	 */
+	public void draw(RenderTarget target)
+	{
+		fillBatches(triangleBatch, lineBatch);
+		target.drawTriangles(triangleBatch);
+		target.drawLines(lineBatch);
 	}
 		
 	
@@ -18,9 +18,10 @@ import javax.media.opengl.fixedfunc.GLMatrixFunc;
 public abstract class Snowflake
 {
 	/**
-	 * The offset of this Snowflake. The amount we'll translate the Model matrix during our OpenGL draw call
+	 * The offset of this Snowflake. The amount we'll translate the Model matrix during our OpenGL draw call.
+	 * This Snowflake owns this vector and updates it in place, so it's never shared with callers (or with constants like Vec2.Zero).
 	 */
-	private Vec2 position = Vec2.Zero;
+	private final Vec2 position = new Vec2(0, 0);
 	
 	/**
 	 * The angular offset of this Snowflake in radians counterclockwise. The amount we'll rotate the Model matrix during our OpenGL draw call
@@ -35,7 +36,7 @@ public abstract class Snowflake
 	/**
 	 * A list of behavioral lambda functions that are invoked (with timestep) when update(timestep) is called. 
 	 */
-	private ArrayList<BiConsumer<Double, Snowflake>> updateFunctions = new ArrayList<BiConsumer<Double, Snowflake>>();
+	private ArrayList<SnowflakeBehavior> updateFunctions = new ArrayList<SnowflakeBehavior>();
 	
 	/**
 	 * Creates a snowflake with the given position and angle
@@ -53,9 +54,34 @@ public abstract class Snowflake
 		return position.makeCopy();
 	}
 	
+	/**
+	 * Copies this Snowflake's position into out instead of allocating a copy
+	 * @param out The vector to copy the position into
+	 * @return out
+	 */
+	public Vec2 getPosition(Vec2 out)
+	{
+		out.copy(position);
+		return out;
+	}
+	
+	/**
+	 * Sets this Snowflake's position to the given vector's values (the vector itself isn't kept)
+	 * @param v The new position
+	 */
 	public void setPosition(Vec2 v)
 	{
-		this.position = v;
+		position.copy(v);
+	}
+	
+	/**
+	 * Moves this Snowflake by the given amounts, in place
+	 * @param dx The amount to move right
+	 * @param dy The amount to move up
+	 */
+	public void translate(double dx, double dy)
+	{
+		position.addAssignment(dx, dy);
 	}
 	
 	public double getAngle()
@@ -84,7 +110,11 @@ public abstract class Snowflake
 	 */
 	public void addUpdateFunc(BiConsumer<Double, Snowflake> updateFunc)
 	{
-		this.updateFunctions.add(updateFunc);
+		//Behaviors that take the timestep unboxed are stored as they are; anything else is adapted (and boxes on every update)
+		if (updateFunc instanceof SnowflakeBehavior)
+			this.updateFunctions.add((SnowflakeBehavior)updateFunc);
+		else
+			this.updateFunctions.add((timestep, s) -> updateFunc.accept(timestep, s));
 	}
 	
 	/**
@@ -93,8 +123,8 @@ public abstract class Snowflake
 	 */
 	public void update(double timestep)
 	{
-		for (BiConsumer<Double, Snowflake> updateFunction : updateFunctions)
-			updateFunction.accept(timestep, this);
+		for (SnowflakeBehavior updateFunction : updateFunctions)
+			updateFunction.update(timestep, this);
 		timeElapsed+=timestep;
 	}
 	
@@ -117,9 +147,29 @@ public abstract class Snowflake
 	}
 	
 	/**
-	 * Called by draw after translation and rotation occur
+	 * Called by draw after translation and rotation occur. Draws the underlay, then the overlay.
+	 * @param gl
+	 */
+	protected void internalDraw(GL gl)
+	{
+		drawUnderlay(gl);
+		drawOverlay(gl);
+	}
+	
+	/**
+	 * Draws the parts of this Snowflake that belong underneath every Snowflake's overlay (e.g., dark fills).
+	 * SnowFlurry draws every flake's underlay before any flake's overlay, so that the order flakes are stored in doesn't affect the picture.
+	 * Does nothing by default.
+	 * @param gl
+	 */
+	protected void drawUnderlay(GL gl)
+	{
+	}
+	
+	/**
+	 * Draws the visible (white) parts of this Snowflake, on top of every Snowflake's underlay
 	 * @param gl
 	 */
-	protected abstract void internalDraw(GL gl);
+	protected abstract void drawOverlay(GL gl);
 	
 }
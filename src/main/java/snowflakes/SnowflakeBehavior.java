@@ -0,0 +1,26 @@
+package snowflakes;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A behavior attached to a Snowflake, invoked with the timestep whenever the Snowflake is updated (see SnowflakeBehaviors).
+ * Takes the timestep as a primitive so that updating doesn't box it, while still being usable anywhere a
+ * BiConsumer&lt;Double, Snowflake&gt; is expected.
+ * @author DEMcKnight
+ */
+@FunctionalInterface
+public interface SnowflakeBehavior extends BiConsumer<Double, Snowflake>
+{
+	/**
+	 * Applies this behavior to the given Snowflake
+	 * @param timestep How much time to progress the Snowflake
+	 * @param s The Snowflake to apply this behavior to
+	 */
+	void update(double timestep, Snowflake s);
+
+	@Override
+	default void accept(Double timestep, Snowflake s)
+	{
+		update(timestep, s);
+	}
+}
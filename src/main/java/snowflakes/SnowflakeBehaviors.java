@@ -1,9 +1,5 @@
 package snowflakes;
 
-import java.util.function.*;
-
-import reusable.graphicsPrimitives.Vec2;
-
 /**
  * Functions for attaching to Snowflakes to define the Snowflakes behavior when its Update function is called
  * @author DEMcKnight
@@ -16,11 +12,12 @@ public class SnowflakeBehaviors
 	 * @param velocity The rate at which the Snowflake should fall (pixels/second)
 	 * @return A function that defines falling behavior for a Snowflake at the specified velocity
 	 */
-	public static BiConsumer<Double, Snowflake> getStraightFallBehavior(double velocity)
+	public static SnowflakeBehavior getStraightFallBehavior(double velocity)
 	{
-		return (Double timestep, Snowflake s)->
+		return (double timestep, Snowflake s)->
 		{
-			s.setPosition(s.getPosition().add(Vec2.Down.makeCopy().multiply(velocity*timestep)));
+			//Vec2.Down scaled by the distance fallen, added in place
+			s.translate(0, -velocity*timestep);
 		};
 	}
 	
@@ -29,9 +26,9 @@ public class SnowflakeBehaviors
 	 * @param rotateRate The rate at which the Snowflake should rotate counter-clockwise (radians/second)
 	 * @return A function that defines rotation behavior for a Snowflake at the specified rotational velocity
 	 */
-	public static BiConsumer<Double, Snowflake> getRotationBehavior(double rotateRate)
+	public static SnowflakeBehavior getRotationBehavior(double rotateRate)
 	{
-		return (Double timestep, Snowflake s)->
+		return (double timestep, Snowflake s)->
 		{
 			s.setAngle(s.getAngle()+timestep*rotateRate);
 		};
@@ -43,9 +40,9 @@ public class SnowflakeBehaviors
 	 * @param startPoint Where in the cycle to start
 	 * @return A function that defines a back-and-forth behavior for a Snowflake using a circle of the specified radius
 	 */
-	public static BiConsumer<Double, Snowflake> getCycloidBehavior(double radius, double startPoint)
+	public static SnowflakeBehavior getCycloidBehavior(double radius, double startPoint)
 	{
-		return (Double timestep, Snowflake s)->
+		return (double timestep, Snowflake s)->
 		{
 			//How much the x and y values should change
 			double xDiff;
@@ -75,7 +72,7 @@ public class SnowflakeBehaviors
 		    }
 
 		    //Update the position of the snowflake with the displacement (xDiff and yDiff) values
-			s.setPosition(s.getPosition().add(new Vec2(xDiff, yDiff/3.0)));
+			s.translate(xDiff, yDiff/3.0);
 
 		};
 	};
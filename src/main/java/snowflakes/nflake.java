@@ -5,7 +5,6 @@ import java.util.ArrayList;
 import javax.media.opengl.GL;
 
 import geometry.RegularPolygon;
-import reusable.Helpers;
 import reusable.graphicsPrimitives.Vec2;
 
 /**
@@ -23,9 +22,14 @@ public class nflake extends Snowflake
 	public int numSides = 6;
 	
 	/**
-	 * ArrayList of the polygons that compose this nflake
+	 * The shape of this nflake at unit circumradius, shared with every other nflake built with the same parameters
 	 */
-	public ArrayList<RegularPolygon> polygons = new ArrayList<RegularPolygon>();
+	private final FlakeGeometry geometry;
+	
+	/**
+	 * The overall circumradius of this nflake
+	 */
+	private final double radius;
 	
 	/**
 	 * Prepares an nflake with the given center position (passed up to Snowflake as position), overall radius, angle (passed up to Snowflake as angle), numSides (the n of this n-flake), numIterations (number of times to apply the production rule), and offset parameters. 
@@ -41,11 +45,37 @@ public class nflake extends Snowflake
 	{
 		super(center, angle);
 		this.numSides = numSides;
+		this.geometry = FlakeGeometry.nflake(numSides, numIterations, centersOffset, centersRotated);
+		this.radius = radius;
+	}
+	
+	public FlakeGeometry getGeometry()
+	{
+		return geometry;
+	}
+	
+	public double getRadius()
+	{
+		return radius;
+	}
+	
+	/**
+	 * Builds (without caching) the geometry of a unit nflake: every polygon, fan-triangulated and filled in white.
+	 * Use FlakeGeometry.nflake to get the shared copy instead.
+	 * @param numSides The number of sides for the center polygon (and subsequent ones) to have. In other words, the n of this n-flake.
+	 * @param numIterations The number of iterations remaining to recursively apply the production rule
+	 * @param centersOffset True if the location of subsequent polygons about their spawning polygon should be rotationally offset by PI/numSides
+	 * @param centersRotated True if the angle of subsequent polygons should be rotationally offset by PI/numSides in comparison with their spawning polygon.
+	 * @return the geometry of a unit nflake
+	 */
+	public static FlakeGeometry buildGeometry(int numSides, int numIterations, boolean centersOffset, boolean centersRotated)
+	{
+		ArrayList<RegularPolygon> polygons = new ArrayList<RegularPolygon>();
 		
 		//The center polygon's radius is different than the full radius.
 		//As such, letting c be the radius of the center polygon,
 		// r = c + (summation from i=1 to n-1 of  (1/2)^(n-1)*c) and solving for c, we get
-		double radius2 = radius/(1 + 2-Math.pow(2, 1-numIterations));
+		double radius2 = 1/(1 + 2-Math.pow(2, 1-numIterations));
 		
 		//Create the center polygon
 		polygons.add(new RegularPolygon(Vec2.Zero, 0, radius2, numSides));
@@ -53,46 +83,61 @@ public class nflake extends Snowflake
 		//Perform iterations
 		if (numIterations>0)
 		{
-			iterate(Vec2.Zero, radius2, 0.0, numSides, numIterations-1, centersOffset, centersRotated);
+			iterate(polygons, Vec2.Zero, radius2, 0.0, numSides, numIterations-1, centersOffset, centersRotated);
 		}
+		
+		//Pack every polygon's vertices together, and fan each polygon out from its first vertex
+		double[] vertices = new double[2*numSides*polygons.size()];
+		int[] triangles = new int[3*(numSides-2)*polygons.size()];
+		int v = 0;
+		int t = 0;
+		for (RegularPolygon polygon : polygons)
+		{
+			int first = v;
+			polygon.getPackedBoundaryPoints().copyTo(vertices, 2*v);
+			v += polygon.getPackedBoundaryPoints().size();
+			for (int j=1; j<numSides-1; j++)
+			{
+				triangles[t++] = first;
+				triangles[t++] = first + j;
+				triangles[t++] = first + j + 1;
+			}
+		}
+		
+		return new FlakeGeometry(vertices, new int[0], triangles, 0);
 	}
 	
 	/**
-	 * Prepares an nflake with the given center position (passed up to Snowflake as position), overall radius, angle (passed up to Snowflake as angle), numSides (the n of this n-flake), numIterations (number of times to apply the production rule), and offset parameters. 
-	 * @param center The center of this nflake (passed up to Snowflake as position)
-	 * @param radius The overall circumradius of this nflake
-	 * @param angle The angle offset of this nflake, counter-clockwise in radians (passed up to Snowflake as angle)
+	 * Applies the production rule about the given polygon, adding the new polygons to the given list
+	 * @param polygons The list of polygons that compose the nflake being built
+	 * @param center The center of the polygon to spawn new polygons around
+	 * @param radius The circumradius of the polygon to spawn new polygons around
+	 * @param angle The angle of the polygon to spawn new polygons around
 	 * @param numSides The number of sides for the center polygon (and subsequent ones) to have. In other words, the n of this n-flake.
 	 * @param numIterations The number of iterations remaining to recursively apply the production rule
 	 * @param centersOffset True if the location of subsequent polygons about their spawning polygon should be rotationally offset by PI/numSides
 	 * @param centersRotated True if the angle of subsequent polygons should be rotationally offset by PI/numSides in comparison with their spawning polygon.
 	 */
-	public void iterate(Vec2 center, double radius, double angle, int numSides, int numIterations, boolean centersOffset, boolean centersRotated)
+	private static void iterate(ArrayList<RegularPolygon> polygons, Vec2 center, double radius, double angle, int numSides, int numIterations, boolean centersOffset, boolean centersRotated)
 	{
-
 		for (int i=0; i<numSides; i++)
 		{
 			double theta = angle + (i + (centersOffset? 0.5 : 0)) * 2 * Math.PI/(double)numSides;
-			//Calculate the offset to the current new polygon from the original polygon
-			Vec2 offset = new Vec2(Math.cos(theta), Math.sin(theta)).multiply(radius*1.5);
-			//Find the center of the current new polygon
-			Vec2 newCenter = center.add(offset);
+			//Find the center of the current new polygon, offset from the original polygon's by 1.5 radii
+			double offset = radius*1.5;
+			Vec2 newCenter = new Vec2(center.getX() + Math.cos(theta)*offset, center.getY() + Math.sin(theta)*offset);
 			//Create and add the current new polygon to the overall polygon list
 			polygons.add(new RegularPolygon(newCenter, theta + (centersRotated? Math.PI/numSides : 0), radius/2.0, numSides));
 			//If we're not at the final iteration yet, iterate
 			if (numIterations>0)
-				iterate(newCenter, radius/2.0, theta, numSides, numIterations-1, centersOffset, centersRotated);
+				iterate(polygons, newCenter, radius/2.0, theta, numSides, numIterations-1, centersOffset, centersRotated);
 		}
 	}
 
 	@Override
-	public void internalDraw(GL gl)
+	protected void drawOverlay(GL gl)
 	{
-		if (polygons != null)
-			for (RegularPolygon flake: polygons)
-				Helpers.drawPolygon(gl, flake.boundaryPoints);
+		geometry.drawOverlay(gl, radius);
 	}
-	
-
 
-}
\ No newline at end of file
+}
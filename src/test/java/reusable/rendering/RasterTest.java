@@ -0,0 +1,282 @@
+package reusable.rendering;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Golden-pixel tests for Raster's coverage rules, in device coordinates (pixels, y pointing down)
+ * @author DEMcKnight
+ */
+public class RasterTest
+{
+	private static final int BLACK = 0xFF000000;
+	private static final int WHITE = 0xFFFFFFFF;
+
+	/**
+	 * Half-transparent white: blending it over a pixel twice gives a different color than blending it once
+	 */
+	private static final int TRANSLUCENT = 0x80FFFFFF;
+
+	/**
+	 * A square whose edges run exactly through pixel centers keeps the centers on its top and left edges and drops those on its right and bottom
+	 */
+	@Test
+	public void squareOwnsItsTopAndLeftEdges()
+	{
+		int[] pixels = blank(5, 5);
+		Raster raster = new Raster(pixels, 5, 5);
+		raster.fillTriangle(0.5, 0.5, 2.5, 0.5, 2.5, 2.5, WHITE);
+		raster.fillTriangle(0.5, 0.5, 2.5, 2.5, 0.5, 2.5, WHITE);
+
+		assertPixels(pixels, 5,
+				"##...",
+				"##...",
+				".....",
+				".....",
+				".....");
+	}
+
+	/**
+	 * Each half of the square gets the centers on the diagonal that is its own left edge
+	 */
+	@Test
+	public void sharedDiagonalGoesToTheTriangleItIsALeftEdgeOf()
+	{
+		int[] upper = blank(3, 3);
+		new Raster(upper, 3, 3).fillTriangle(0.5, 0.5, 2.5, 0.5, 2.5, 2.5, WHITE);
+		assertPixels(upper, 3,
+				"##.",
+				".#.",
+				"...");
+
+		int[] lower = blank(3, 3);
+		new Raster(lower, 3, 3).fillTriangle(0.5, 0.5, 2.5, 2.5, 0.5, 2.5, WHITE);
+		assertPixels(lower, 3,
+				"...",
+				"#..",
+				"...");
+	}
+
+	/**
+	 * Both windings of the same triangle cover the same pixels
+	 */
+	@Test
+	public void windingDoesNotChangeCoverage()
+	{
+		int[] clockwise = blank(8, 8);
+		new Raster(clockwise, 8, 8).fillTriangle(0.5, 0.5, 7.5, 2.5, 3.5, 7.5, WHITE);
+		int[] counterClockwise = blank(8, 8);
+		new Raster(counterClockwise, 8, 8).fillTriangle(0.5, 0.5, 3.5, 7.5, 7.5, 2.5, WHITE);
+
+		assertArrayEquals(clockwise, counterClockwise);
+	}
+
+	/**
+	 * A fan of translucent triangles around an off-center point blends every pixel inside the polygon exactly once: no gaps along the
+	 * shared edges, and no pixel drawn by two triangles
+	 */
+	@Test
+	public void fanCoversEveryInteriorPixelExactlyOnce()
+	{
+		int size = 64;
+		int[] pixels = blank(size, size);
+		Raster raster = new Raster(pixels, size, size);
+
+		int sides = 7;
+		double[] xs = new double[sides], ys = new double[sides];
+		for (int i=0; i<sides; i++)
+		{
+			double theta = 0.3 + i*2*Math.PI/sides;
+			xs[i] = 32 + 29*Math.cos(theta);
+			ys[i] = 32 + 29*Math.sin(theta);
+		}
+		double hubX = 27.25, hubY = 35.5;
+		for (int i=0; i<sides; i++)
+		{
+			int j = (i + 1) % sides;
+			raster.fillTriangle(hubX, hubY, xs[i], ys[i], xs[j], ys[j], TRANSLUCENT);
+		}
+
+		int once = Raster.blend(BLACK, TRANSLUCENT);
+		for (int py=0; py<size; py++)
+			for (int px=0; px<size; px++)
+			{
+				int pixel = pixels[py*size + px];
+				assertTrue("Pixel (" + px + ", " + py + ") was blended more than once", pixel == BLACK || pixel == once);
+				if (distanceInside(xs, ys, px + 0.5, py + 0.5) > 1e-3)
+					assertEquals("Pixel (" + px + ", " + py + ") inside the polygon was missed", once, pixel);
+			}
+	}
+
+	/**
+	 * Corners are snapped to 1/256 of a pixel, so nudging them by less than half of that changes nothing
+	 */
+	@Test
+	public void cornersSnapToSubpixels()
+	{
+		int[] exact = blank(8, 8);
+		new Raster(exact, 8, 8).fillTriangle(0.5, 0.5, 7.5, 2.5, 3.5, 7.5, WHITE);
+		int[] nudged = blank(8, 8);
+		double nudge = 0.4/256;
+		new Raster(nudged, 8, 8).fillTriangle(0.5 - nudge, 0.5 + nudge, 7.5 + nudge, 2.5 - nudge, 3.5 - nudge, 7.5 + nudge, WHITE);
+
+		assertArrayEquals(exact, nudged);
+	}
+
+	/**
+	 * Neighbors whose shared corners disagree by less than a subpixel still agree on who owns the edge between them
+	 */
+	@Test
+	public void snappingClosesHairlineGapsBetweenNeighbors()
+	{
+		int[] pixels = blank(5, 5);
+		Raster raster = new Raster(pixels, 5, 5);
+		raster.fillTriangle(0.5, 0.5, 2.5, 0.5, 2.5, 2.5, TRANSLUCENT);
+		raster.fillTriangle(0.5 + 1e-6, 0.5 - 1e-6, 2.5 - 1e-6, 2.5 + 1e-6, 0.5, 2.5, TRANSLUCENT);
+
+		int once = Raster.blend(BLACK, TRANSLUCENT);
+		for (int py=0; py<5; py++)
+			for (int px=0; px<5; px++)
+				assertEquals("Pixel (" + px + ", " + py + ")", px < 2 && py < 2 ? once : BLACK, pixels[py*5 + px]);
+	}
+
+	/**
+	 * A sliver that snaps to zero area draws nothing
+	 */
+	@Test
+	public void triangleWithNoAreaAfterSnappingDrawsNothing()
+	{
+		int[] pixels = blank(5, 5);
+		new Raster(pixels, 5, 5).fillTriangle(0.5, 0.5, 4.5, 4.5, 2.5, 2.5 + 1e-4, WHITE);
+
+		assertPixels(pixels, 5, ".....", ".....", ".....", ".....", ".....");
+	}
+
+	/**
+	 * Lines cover the pixels whose centers lie between their ends, leaving out the pixel at the end point whichever way they're drawn
+	 */
+	@Test
+	public void lineLeavesOutItsEndPixel()
+	{
+		int[] right = blank(5, 3);
+		new Raster(right, 5, 3).drawLine(0.5, 1.5, 4.5, 1.5, WHITE);
+		assertPixels(right, 5,
+				".....",
+				"####.",
+				".....");
+
+		int[] left = blank(5, 3);
+		new Raster(left, 5, 3).drawLine(4.5, 1.5, 0.5, 1.5, WHITE);
+		assertPixels(left, 5,
+				".....",
+				".####",
+				".....");
+
+		int[] down = blank(3, 5);
+		new Raster(down, 3, 5).drawLine(1.5, 0.5, 1.5, 4.5, WHITE);
+		assertPixels(down, 3,
+				".#.",
+				".#.",
+				".#.",
+				".#.",
+				"...");
+	}
+
+	/**
+	 * A shallow line takes one pixel per column, in the row its center line is in at the column's center (the lower row on a tie)
+	 */
+	@Test
+	public void diagonalLineStepsAlongItsMajorAxis()
+	{
+		int[] pixels = blank(5, 5);
+		new Raster(pixels, 5, 5).drawLine(0.5, 0.5, 4.5, 2.5, WHITE);
+
+		assertPixels(pixels, 5,
+				"#....",
+				".##..",
+				"...#.",
+				".....",
+				".....");
+	}
+
+	@Test
+	public void drawingStaysInsideTheClipRectangle()
+	{
+		int[] pixels = blank(5, 5);
+		Raster raster = new Raster(pixels, 5, 5);
+		raster.setClip(1, 1, 3, 4);
+		raster.fillTriangle(-10, -10, 20, -10, -10, 20, WHITE);
+		raster.drawLine(0.5, 4.5, 4.5, 4.5, WHITE);
+		raster.plot(0.5, 0.5, WHITE);
+
+		assertPixels(pixels, 5,
+				".....",
+				".##..",
+				".##..",
+				".##..",
+				".....");
+	}
+
+	/**
+	 * Blending matches glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA) on every channel, alpha included
+	 */
+	@Test
+	public void blendWeighsBySourceAlpha()
+	{
+		assertEquals(0xFF102030, Raster.blend(BLACK, 0xFF102030));
+		assertEquals(0x12345678, Raster.blend(0x12345678, 0x00FFFFFF));
+		assertEquals(0xBF808080, Raster.blend(BLACK, TRANSLUCENT));
+		assertEquals(0xBFBF4000, Raster.blend(0xFFFF0000, 0x80808000));
+	}
+
+	/**
+	 * Returns an opaque black framebuffer of the given size
+	 */
+	private static int[] blank(int width, int height)
+	{
+		int[] pixels = new int[width*height];
+		Arrays.fill(pixels, BLACK);
+		return pixels;
+	}
+
+	/**
+	 * Checks every pixel against a picture with one string per row, '#' for white and '.' for untouched black
+	 */
+	private static void assertPixels(int[] pixels, int width, String... rows)
+	{
+		StringBuilder actual = new StringBuilder(), expected = new StringBuilder();
+		for (int py=0; py<rows.length; py++)
+		{
+			for (int px=0; px<width; px++)
+			{
+				int pixel = pixels[py*width + px];
+				actual.append(pixel == WHITE ? '#' : pixel == BLACK ? '.' : '?');
+			}
+			actual.append('\n');
+			expected.append(rows[py]).append('\n');
+		}
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	/**
+	 * Returns how far (x, y) is inside the convex polygon with the given corners, in either winding (negative if it's outside)
+	 */
+	private static double distanceInside(double[] xs, double[] ys, double x, double y)
+	{
+		double inside = Double.POSITIVE_INFINITY, outside = Double.POSITIVE_INFINITY;
+		for (int i=0; i<xs.length; i++)
+		{
+			int j = (i + 1) % xs.length;
+			double ex = xs[j] - xs[i], ey = ys[j] - ys[i];
+			double d = (ex*(y - ys[i]) - ey*(x - xs[i])) / Math.hypot(ex, ey);
+			inside = Math.min(inside, d);
+			outside = Math.min(outside, -d);
+		}
+		return Math.max(inside, outside);
+	}
+}
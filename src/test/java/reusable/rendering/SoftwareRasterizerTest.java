@@ -0,0 +1,221 @@
+package reusable.rendering;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+import reusable.graphicsPrimitives.Affine2;
+
+/**
+ * Golden-pixel tests for SoftwareRasterizer's mapping of world coordinates onto the framebuffer: the projection, the transform stack
+ * and the shapes built on Raster
+ * @author DEMcKnight
+ */
+public class SoftwareRasterizerTest
+{
+	private static final int BLACK = 0xFF000000;
+	private static final Color TRANSLUCENT = new Color(255, 255, 255, 128);
+
+	/**
+	 * World y points up but framebuffer rows run from the top, so the default projection puts the world origin at the bottom-left pixel
+	 */
+	@Test
+	public void defaultProjectionFlipsY()
+	{
+		SoftwareRasterizer target = blank(4, 3);
+		target.drawPoints(new double[] {0.5, 0.5, 3.5, 2.5}, 0, 2);
+
+		int[] pixels = target.getPixels();
+		assertEquals(0xFFFFFFFF, pixels[2*4 + 0]);
+		assertEquals(0xFFFFFFFF, pixels[0*4 + 3]);
+		assertEquals(2, countNot(pixels, BLACK));
+	}
+
+	/**
+	 * The top quarter of [-1, 1] by [-1, 1] lands on the top row of a 4x4 framebuffer
+	 */
+	@Test
+	public void setProjectionMapsTheGivenRegionOntoTheFramebuffer()
+	{
+		SoftwareRasterizer target = blank(4, 4);
+		target.setProjection(-1, 1, -1, 1);
+		target.fillPolygon(new double[] {-1, 0.5, 1, 0.5, 1, 1, -1, 1}, 4);
+
+		int[] pixels = target.getPixels();
+		for (int i=0; i<pixels.length; i++)
+			assertEquals("Pixel " + i, i < 4 ? 0xFFFFFFFF : BLACK, pixels[i]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void setProjectionDiscardsSavedTransforms()
+	{
+		SoftwareRasterizer target = blank(4, 4);
+		target.pushTransform();
+		target.setProjection(0, 4, 0, 4);
+		target.popTransform();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void popWithoutPushThrows()
+	{
+		blank(4, 4).popTransform();
+	}
+
+	/**
+	 * translate, rotate and scale compose like glTranslated, glRotated and glScaled: the same as one transform by the equivalent placement
+	 */
+	@Test
+	public void transformStackComposesLikeGL()
+	{
+		double[] triangle = {-3, -2, 4, -1, 0, 5};
+
+		SoftwareRasterizer stepByStep = blank(32, 32);
+		stepByStep.translate(16, 14);
+		stepByStep.rotate(30);
+		stepByStep.scale(2, 2);
+		stepByStep.fillPolygon(triangle, 3);
+
+		SoftwareRasterizer placed = blank(32, 32);
+		placed.transform(Affine2.placement(2, Math.toRadians(30), 16, 14));
+		placed.fillPolygon(triangle, 3);
+
+		SoftwareRasterizer preTransformed = blank(32, 32);
+		double[] moved = new double[triangle.length];
+		Affine2.placement(2, Math.toRadians(30), 16, 14).apply(triangle, moved, 3);
+		preTransformed.fillPolygon(moved, 3);
+
+		assertTrue(countNot(stepByStep.getPixels(), BLACK) > 0);
+		assertArrayEquals(stepByStep.getPixels(), placed.getPixels());
+		assertArrayEquals(stepByStep.getPixels(), preTransformed.getPixels());
+	}
+
+	/**
+	 * Two transforms in a row apply the second one to the vertices first, like two glMultMatrixd calls
+	 */
+	@Test
+	public void successiveTransformsComposeInnerFirst()
+	{
+		Affine2 outer = new Affine2(0.5, -1.5, 1.25, 0.75, 12, 9);
+		Affine2 inner = Affine2.placement(1.5, 0.4, -2, 3);
+		double[] quad = {-2, -2, 3, -2, 3, 2, -2, 2};
+
+		SoftwareRasterizer twice = blank(32, 32);
+		twice.transform(outer);
+		twice.transform(inner);
+		twice.fillPolygon(quad, 4);
+
+		SoftwareRasterizer once = blank(32, 32);
+		once.transform(Affine2.compose(outer, inner, Affine2.identity()));
+		once.fillPolygon(quad, 4);
+
+		assertTrue(countNot(once.getPixels(), BLACK) > 0);
+		assertArrayEquals(once.getPixels(), twice.getPixels());
+	}
+
+	@Test
+	public void popTransformRestoresThePushedTransform()
+	{
+		double[] quad = {1, 1, 5, 1, 5, 4, 1, 4};
+
+		SoftwareRasterizer plain = blank(16, 16);
+		plain.translate(2, 3);
+		plain.fillPolygon(quad, 4);
+
+		SoftwareRasterizer pushed = blank(16, 16);
+		pushed.translate(2, 3);
+		pushed.pushTransform();
+		pushed.rotate(45);
+		pushed.scale(3, 0.5);
+		pushed.popTransform();
+		pushed.fillPolygon(quad, 4);
+
+		assertArrayEquals(plain.getPixels(), pushed.getPixels());
+	}
+
+	/**
+	 * A translucent line loop through pixel centers blends each pixel of its outline once, corners included, because every side
+	 * leaves out its end pixel for the next side to draw
+	 */
+	@Test
+	public void lineLoopBlendsEveryCornerOnce()
+	{
+		SoftwareRasterizer target = blank(6, 6);
+		target.setColor(TRANSLUCENT);
+		target.drawLineLoop(new double[] {0.5, 0.5, 4.5, 0.5, 4.5, 4.5, 0.5, 4.5}, 4);
+
+		int once = Raster.blend(BLACK, TRANSLUCENT.getRGB());
+		int[] pixels = target.getPixels();
+		for (int row=0; row<6; row++)
+			for (int col=0; col<6; col++)
+			{
+				//The outline runs through the centers of columns 0-4 and rows 1-5
+				boolean onOutline = col <= 4 && row >= 1 && (col == 0 || col == 4 || row == 1 || row == 5);
+				assertEquals("Pixel (" + col + ", " + row + ")", onOutline ? once : BLACK, pixels[row*6 + col]);
+			}
+	}
+
+	/**
+	 * Two triangles of a quad, drawn translucently through fillTriangles, never both blend a pixel along their shared diagonal
+	 */
+	@Test
+	public void indexedTrianglesShareTheirEdgeCleanly()
+	{
+		SoftwareRasterizer target = blank(16, 16);
+		target.setColor(TRANSLUCENT);
+		target.fillTriangles(new double[] {1.3, 1.1, 14.6, 2.2, 13.9, 14.8, 2.4, 12.7}, new int[] {0, 1, 2, 0, 2, 3});
+
+		int once = Raster.blend(BLACK, TRANSLUCENT.getRGB());
+		int covered = 0;
+		for (int pixel : target.getPixels())
+		{
+			assertTrue(pixel == BLACK || pixel == once);
+			if (pixel == once)
+				covered++;
+		}
+		assertTrue(covered > 100);
+	}
+
+	/**
+	 * The gradient runs from bottomColor at the bottom of the rectangle to topColor at the top
+	 */
+	@Test
+	public void verticalGradientBlendsFromBottomToTop()
+	{
+		SoftwareRasterizer target = blank(2, 8);
+		target.fillVerticalGradient(0, 2, 0, 8, Color.RED, Color.BLUE);
+
+		int[] pixels = target.getPixels();
+		for (int row=1; row<8; row++)
+		{
+			int above = pixels[(row - 1)*2], below = pixels[row*2];
+			assertTrue("Red should grow toward the bottom at row " + row, ((below >> 16) & 255) > ((above >> 16) & 255));
+			assertTrue("Blue should grow toward the top at row " + row, (below & 255) < (above & 255));
+		}
+	}
+
+	/**
+	 * Returns a framebuffer of the given size cleared to opaque black
+	 */
+	private static SoftwareRasterizer blank(int width, int height)
+	{
+		SoftwareRasterizer target = new SoftwareRasterizer(width, height);
+		target.clear(BLACK);
+		return target;
+	}
+
+	/**
+	 * Returns the number of pixels that aren't the given color
+	 */
+	private static int countNot(int[] pixels, int argb)
+	{
+		int count = 0;
+		for (int pixel : pixels)
+			if (pixel != argb)
+				count++;
+		return count;
+	}
+}
@@ -0,0 +1,135 @@
+package reusable.rendering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import reusable.graphicsPrimitives.Affine2;
+
+/**
+ * Checks the layout VertexBatch packs vertices in, which BatchRenderer hands to OpenGL as is
+ * @author DEMcKnight
+ */
+public class VertexBatchTest
+{
+	private static final double[] SQUARE = {0, 0, 1, 0, 1, 1, 0, 1};
+
+	/**
+	 * Every index of every triangle becomes one vertex: its position followed by the current color
+	 */
+	@Test
+	public void addTrianglesPacksOneVertexPerIndex()
+	{
+		VertexBatch batch = new VertexBatch();
+		batch.setColor(0.25f, 0.5f, 0.75f, 1);
+		batch.addTriangles(SQUARE, new int[] {0, 1, 2, 0, 2, 3}, Affine2.identity());
+
+		assertEquals(6, batch.getVertexCount());
+		int[] expected = {0, 1, 2, 0, 2, 3};
+		for (int v=0; v<expected.length; v++)
+			assertVertex(batch, v, SQUARE[2*expected[v]], SQUARE[2*expected[v]+1], 0.25f, 0.5f, 0.75f, 1);
+	}
+
+	/**
+	 * A placement scales, then rotates, then translates, like glTranslated, glRotated and glScaled issued in that order
+	 */
+	@Test
+	public void addTrianglesAppliesThePlacement()
+	{
+		VertexBatch batch = new VertexBatch();
+		batch.addTriangles(new double[] {1, 0, 0, 1, 0, 0}, new int[] {0, 1, 2}, Affine2.placement(2, Math.PI/2, 10, 20));
+
+		assertVertex(batch, 0, 10, 22, 1, 1, 1, 1);
+		assertVertex(batch, 1, 8, 20, 1, 1, 1, 1);
+		assertVertex(batch, 2, 10, 20, 1, 1, 1, 1);
+	}
+
+	/**
+	 * A line loop becomes one GL_LINES segment per side, closing back to the first vertex
+	 */
+	@Test
+	public void addLineLoopWritesEverySideAsASegment()
+	{
+		VertexBatch batch = new VertexBatch();
+		batch.addLineLoop(SQUARE, 3, Affine2.identity());
+
+		assertEquals(6, batch.getVertexCount());
+		int[] expected = {0, 1, 1, 2, 2, 0};
+		for (int v=0; v<expected.length; v++)
+			assertVertex(batch, v, SQUARE[2*expected[v]], SQUARE[2*expected[v]+1], 1, 1, 1, 1);
+	}
+
+	/**
+	 * Each vertex keeps the color that was current when it was added
+	 */
+	@Test
+	public void colorChangesOnlyAffectLaterVertices()
+	{
+		VertexBatch batch = new VertexBatch();
+		batch.setColor(1, 0, 0, 1);
+		batch.addVertex(1, 2);
+		batch.setColor(0, 0, 1, 0.5f);
+		batch.addVertex(3, 4);
+
+		assertVertex(batch, 0, 1, 2, 1, 0, 0, 1);
+		assertVertex(batch, 1, 3, 4, 0, 0, 1, 0.5f);
+	}
+
+	@Test
+	public void growingKeepsEarlierVertices()
+	{
+		VertexBatch batch = new VertexBatch(1);
+		for (int i=0; i<100; i++)
+			batch.addVertex(i, -i);
+
+		assertEquals(100, batch.getVertexCount());
+		for (int i=0; i<100; i++)
+			assertVertex(batch, i, i, -i, 1, 1, 1, 1);
+	}
+
+	@Test
+	public void clearKeepsTheStorage()
+	{
+		VertexBatch batch = new VertexBatch();
+		batch.addTriangles(SQUARE, new int[] {0, 1, 2}, Affine2.identity());
+		float[] data = batch.getData();
+		batch.clear();
+
+		assertEquals(0, batch.getVertexCount());
+		batch.addVertex(5, 6);
+		assertSame(data, batch.getData());
+		assertVertex(batch, 0, 5, 6, 1, 1, 1, 1);
+	}
+
+	@Test
+	public void copyToWritesOnlyTheVerticesInUse()
+	{
+		VertexBatch batch = new VertexBatch(64);
+		batch.addVertex(7, 8);
+		batch.addVertex(9, 10);
+		FloatBuffer buffer = FloatBuffer.allocate(64*VertexBatch.FLOATS_PER_VERTEX);
+		batch.copyTo(buffer);
+
+		assertEquals(2*VertexBatch.FLOATS_PER_VERTEX, buffer.position());
+		assertEquals(9, buffer.get(VertexBatch.FLOATS_PER_VERTEX), 0);
+		assertEquals(10, buffer.get(VertexBatch.FLOATS_PER_VERTEX + 1), 0);
+	}
+
+	/**
+	 * Checks the position and color of the given vertex of a batch
+	 */
+	private static void assertVertex(VertexBatch batch, int vertex, double x, double y, float red, float green, float blue, float alpha)
+	{
+		float[] data = batch.getData();
+		int i = vertex*VertexBatch.FLOATS_PER_VERTEX;
+		assertEquals("x of vertex " + vertex, x, data[i], 1e-5);
+		assertEquals("y of vertex " + vertex, y, data[i+1], 1e-5);
+		assertEquals("red of vertex " + vertex, red, data[i+2], 0);
+		assertEquals("green of vertex " + vertex, green, data[i+3], 0);
+		assertEquals("blue of vertex " + vertex, blue, data[i+4], 0);
+		assertEquals("alpha of vertex " + vertex, alpha, data[i+5], 0);
+	}
+}